@@ -0,0 +1,131 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Деление потока байт на строки без декодирования в символы.
+ *
+ * <p>Байты читаются блоками в один буфер, а строки передаются обработчику как части этого буфера.
+ * Строкой считается последовательность байт до {@code \n}; завершающий {@code \r} отбрасывается,
+ * как в {@link FileChunk}. В UTF-8 байт {@code \n} не встречается внутри многобайтовых символов,
+ * поэтому поиск по байтам дает те же строки, что и по декодированному тексту.
+ *
+ * <p>{@code \n} ищется сразу в восьми байтах: слово из буфера сравнивается со всеми байтами
+ * через вычитание (SWAR), побайтно проверяется только хвост буфера.
+ */
+@UtilityClass
+public class ByteLineSplitter {
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final VarHandle LONG_VIEW =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * Источник байт, например {@link java.io.InputStream#read(byte[], int, int)}.
+     */
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * Читает байты в буфер.
+         *
+         * @param buffer Буфер
+         * @param offset Смещение в буфере
+         * @param length Наибольшее количество байт
+         * @return Количество прочитанных байт или -1 в конце данных
+         * @throws IOException Если данные не удалось прочитать
+         */
+        int read(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Обработчик строки, заданной частью буфера. Буфер переиспользуется для следующих строк,
+     * поэтому обработчик не должен сохранять ссылку на него.
+     */
+    @FunctionalInterface
+    public interface LineConsumer {
+        /**
+         * Обрабатывает строку.
+         *
+         * @param buffer Буфер с байтами строки в UTF-8
+         * @param start  Смещение начала строки (включительно)
+         * @param end    Смещение конца строки без {@code \n} и {@code \r} (не включительно)
+         */
+        void accept(byte[] buffer, int start, int end);
+    }
+
+    /**
+     * Передает обработчику все строки источника по порядку.
+     *
+     * @param source       Источник байт
+     * @param lineConsumer Обработчик строк
+     * @throws IOException Если данные не удалось прочитать
+     */
+    public static void forEachLine(Source source, LineConsumer lineConsumer) throws IOException {
+        byte[] buffer = new byte[BLOCK_SIZE];
+        int lineStart = 0;
+        int filled = 0;
+        while (true) {
+            if (filled == buffer.length) {
+                // Незавершенная строка переносится в начало буфера, а слишком длинная - в больший буфер
+                if (lineStart == 0) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                } else {
+                    System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+                    filled -= lineStart;
+                    lineStart = 0;
+                }
+            }
+            int read = source.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                break;
+            }
+            int scanFrom = filled;
+            filled += read;
+            for (int newline = indexOf(buffer, scanFrom, filled); newline >= 0;
+                newline = indexOf(buffer, newline + 1, filled)) {
+                emitLine(buffer, lineStart, newline, lineConsumer);
+                lineStart = newline + 1;
+            }
+        }
+        if (lineStart < filled) {
+            emitLine(buffer, lineStart, filled, lineConsumer);
+        }
+    }
+
+    /**
+     * Находит первый {@code \n} в части массива.
+     *
+     * @param buffer Массив
+     * @param from   Смещение начала поиска (включительно)
+     * @param to     Смещение конца поиска (не включительно)
+     * @return Смещение {@code \n} или -1, если его нет
+     */
+    public static int indexOf(byte[] buffer, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = (long) LONG_VIEW.get(buffer, i) ^ ONES * '\n';
+            // Старший бит выставляется в каждом нулевом байте слова; младший из них - первый \n
+            long found = (word - ONES) & ~word & HIGH_BITS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void emitLine(byte[] buffer, int start, int end, LineConsumer lineConsumer) {
+        int lineEnd = end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+        lineConsumer.accept(buffer, start, lineEnd);
+    }
+}
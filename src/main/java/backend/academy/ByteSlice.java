@@ -0,0 +1,68 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Изменяемое представление части массива байт ASCII в виде {@link CharSequence} без копирования.
+ *
+ * <p>Каждый байт соответствует одному символу, поэтому хеш {@link CharSequenceHashStrategy}
+ * совпадает с хешем такой же строки. Части с байтами вне ASCII так представлять нельзя:
+ * их нужно сначала декодировать из UTF-8.
+ */
+final class ByteSlice implements CharSequence {
+    private byte[] bytes = new byte[0];
+    private int start;
+    private int end;
+
+    /**
+     * Направляет представление на часть массива.
+     *
+     * @param bytes Массив байт ASCII
+     * @param start Смещение начала (включительно)
+     * @param end   Смещение конца (не включительно)
+     * @return Это же представление
+     */
+    ByteSlice wrap(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    /**
+     * Проверяет, что часть массива состоит только из байт ASCII.
+     *
+     * @param bytes Массив байт
+     * @param start Смещение начала (включительно)
+     * @param end   Смещение конца (не включительно)
+     * @return true, если все байты меньше 0x80
+     */
+    static boolean isAscii(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) bytes[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return new String(bytes, start + from, to - from, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,38 @@
+package backend.academy;
+
+import it.unimi.dsi.fastutil.Hash;
+
+/**
+ * Сравнение ключей хеш-таблиц fastutil по содержимому, а не по типу.
+ *
+ * <p>Хеш совпадает с {@link String#hashCode()}, поэтому в таблице со строковыми ключами
+ * можно искать по {@link StringSlice} и копировать ключ в строку только при вставке.
+ */
+enum CharSequenceHashStrategy implements Hash.Strategy<CharSequence> {
+    INSTANCE;
+
+    private static final int HASH_MULTIPLIER = 31;
+
+    @Override
+    public int hashCode(CharSequence key) {
+        if (key == null) {
+            return 0;
+        }
+        if (key instanceof String string) {
+            return string.hashCode();
+        }
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            hash = HASH_MULTIPLIER * hash + key.charAt(i);
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(CharSequence first, CharSequence second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+        return CharSequence.compare(first, second) == 0;
+    }
+}
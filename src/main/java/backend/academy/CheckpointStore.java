@@ -0,0 +1,140 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Хранилище контрольных точек обработки лог-файлов, чтобы повторный запуск читал только дописанные строки.
+ *
+ * <p>Для каждого файла в каталоге хранилища лежит отдельная контрольная точка: до какого смещения
+ * файл обработан и статистика, собранная по этой части. Контрольная точка применяется, только если
+ * это тот же файл: совпадают {@link BasicFileAttributes#fileKey()} (inode), настройки запуска
+ * и хеш первых байт файла, а размер файла не меньше обработанного. Иначе файл читается с начала,
+ * например после ротации с усечением или повторного использования inode.
+ */
+public class CheckpointStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointStore.class);
+
+    private static final int MAGIC = 0x4c41434b;
+    // Версия 3: состояние сборщика в формате StatisticsSnapshot версии 2 (с гистограммой);
+    // точки старых версий игнорируются, и файл читается заново
+    private static final int VERSION = 3;
+    private static final String EXTENSION = ".checkpoint";
+    // Сколько первых байт файла сравнивается, чтобы отличить новый файл с тем же inode
+    private static final int HEAD_LENGTH = 4096;
+
+    private final Path directory;
+
+    /**
+     * Создает хранилище в каталоге; каталог создается при необходимости.
+     *
+     * @param directory Каталог контрольных точек
+     * @throws IOException Если каталог не удалось создать
+     */
+    public CheckpointStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Ищет контрольную точку файла, применимую к его текущему содержимому.
+     *
+     * @param file     Лог-файл
+     * @param settings Настройки запуска, влияющие на собранную статистику (например, фильтры)
+     * @return Контрольная точка или null, если ее нет или файл изменился не только дописыванием
+     */
+    public Checkpoint find(Path file, String settings) {
+        Path checkpointFile = checkpointFile(file);
+        try {
+            SnapshotReader in = SnapshotReader.unseal(Files.readAllBytes(checkpointFile));
+            if (in.readInt() != MAGIC || in.readVarLong() != VERSION) {
+                return null;
+            }
+            if (!file.toString().equals(in.readString()) || !settings.equals(in.readString())
+                || !Objects.toString(fileKey(file)).equals(in.readString())) {
+                return null;
+            }
+            long headHash = in.readLong();
+            long offset = in.readVarLong();
+            if (Files.size(file) < offset || headHash(file, offset) != headHash) {
+                return null;
+            }
+            return new Checkpoint(offset, StatisticsCollector.readFrom(in));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось прочитать контрольную точку {}: {}", checkpointFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Сохраняет контрольную точку файла. Запись атомарна: прежняя точка заменяется только целиком.
+     *
+     * @param file       Лог-файл
+     * @param settings   Настройки запуска, влияющие на собранную статистику
+     * @param checkpoint Обработанное смещение и собранная статистика
+     * @throws IOException Если запись не удалась
+     */
+    public void save(Path file, String settings, Checkpoint checkpoint) throws IOException {
+        SnapshotWriter out = new SnapshotWriter();
+        out.writeInt(MAGIC);
+        out.writeVarLong(VERSION);
+        out.writeString(file.toString());
+        out.writeString(settings);
+        out.writeString(Objects.toString(fileKey(file)));
+        out.writeLong(headHash(file, checkpoint.offset()));
+        out.writeVarLong(checkpoint.offset());
+        checkpoint.statistics().writeTo(out);
+
+        Path checkpointFile = checkpointFile(file);
+        Path temporary = Files.createTempFile(directory, checkpointFile.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, out.toSealedArray());
+            Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Имя контрольной точки - хеш абсолютного пути к файлу
+    private Path checkpointFile(Path file) {
+        CRC32 crc = new CRC32();
+        crc.update(file.toString().getBytes(StandardCharsets.UTF_8));
+        String name = file.getFileName() + "-" + HexFormat.of().toHexDigits((int) crc.getValue());
+        return directory.resolve(name + EXTENSION);
+    }
+
+    static Object fileKey(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    // Хеш первых байт обработанной части файла
+    static long headHash(Path file, long offset) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            CRC32 crc = new CRC32();
+            crc.update(input.readNBytes((int) Math.min(offset, HEAD_LENGTH)));
+            return crc.getValue();
+        }
+    }
+
+    /**
+     * Состояние обработки файла.
+     *
+     * @param offset     Смещение, до которого файл обработан
+     * @param statistics Статистика по обработанной части файла
+     */
+    public record Checkpoint(long offset, StatisticsCollector statistics) {
+    }
+}
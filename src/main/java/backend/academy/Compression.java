@@ -0,0 +1,111 @@
+package backend.academy;
+
+import com.github.luben.zstd.ZstdInputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Сжатие лог-файла, определяемое по первым байтам, а не по расширению:
+ * после ротации {@code access.log.2.gz} и несжатый {@code access.log.1} лежат рядом.
+ */
+public enum Compression {
+    NONE,
+    GZIP,
+    ZSTD;
+
+    // Размер буфера чтения сжатого файла и блока распакованных данных
+    static final int BUFFER_SIZE = 1024 * 1024;
+    // Сколько распакованных блоков может ждать разбора
+    private static final int READ_AHEAD_BLOCKS = 4;
+
+    private static final int GZIP_MAGIC = 0x1f8b;
+    private static final int ZSTD_MAGIC = 0x28b52ffd;
+    private static final int MAGIC_LENGTH = 4;
+
+    /**
+     * Определяет сжатие файла по сигнатуре в начале.
+     *
+     * @param path Путь к файлу
+     * @return Сжатие файла; {@link #NONE}, если сигнатура не распознана
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public static Compression detect(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            ByteBuffer magic = ByteBuffer.wrap(input.readNBytes(MAGIC_LENGTH));
+            if (magic.limit() >= Short.BYTES && magic.getShort(0) == (short) GZIP_MAGIC) {
+                return GZIP;
+            }
+            if (magic.limit() == MAGIC_LENGTH && magic.getInt(0) == ZSTD_MAGIC) {
+                return ZSTD;
+            }
+            return NONE;
+        }
+    }
+
+    /**
+     * Открывает файл и распаковывает его, если он сжат. Распаковка идет в отдельном потоке
+     * блоками по {@link #BUFFER_SIZE} байт и перекрывается с разбором прочитанных строк.
+     * Gzip-файл из нескольких независимых частей с известными размерами (формат BGZF)
+     * распаковывается в {@code threads} потоков.
+     *
+     * @param path    Путь к файлу
+     * @param threads Количество потоков для распаковки частей gzip-файла
+     * @return Поток распакованных данных
+     * @throws IOException Если файл не удалось открыть
+     */
+    public static InputStream open(Path path, int threads) throws IOException {
+        return open(path, detect(path), threads);
+    }
+
+    /**
+     * Открывает файл, сжатие которого уже определено {@link #detect(Path)}, и распаковывает его,
+     * если он сжат. В остальном то же, что {@link #open(Path, int)}.
+     *
+     * @param path        Путь к файлу
+     * @param compression Сжатие файла
+     * @param threads     Количество потоков для распаковки частей gzip-файла
+     * @return Поток распакованных данных
+     * @throws IOException Если файл не удалось открыть
+     */
+    public static InputStream open(Path path, Compression compression, int threads) throws IOException {
+        if (compression == NONE) {
+            return Files.newInputStream(path);
+        }
+        if (compression == GZIP && threads > 1) {
+            List<ParallelGzipInputStream.Member> members = ParallelGzipInputStream.split(path);
+            if (members.size() > 1) {
+                return new ParallelGzipInputStream(path, members, threads);
+            }
+        }
+        InputStream compressed = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        try {
+            return new ReadAheadInputStream(compression.decode(compressed), BUFFER_SIZE, READ_AHEAD_BLOCKS,
+                "decompress-" + path.getFileName());
+        } catch (IOException | RuntimeException e) {
+            compressed.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Оборачивает поток сжатых данных в распаковщик.
+     *
+     * @param compressed Поток сжатых данных
+     * @return Поток распакованных данных
+     * @throws IOException Если заголовок сжатых данных некорректен
+     */
+    public InputStream decode(InputStream compressed) throws IOException {
+        return switch (this) {
+            case NONE -> compressed;
+            // GZIPInputStream читает все части файла, записанные подряд
+            case GZIP -> new GZIPInputStream(compressed, BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStream(compressed);
+        };
+    }
+}
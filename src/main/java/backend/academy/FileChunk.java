@@ -0,0 +1,195 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Диапазон байт файла {@code [start, end)}, границы которого совпадают с началом строки.
+ *
+ * <p>Большой файл делится на такие диапазоны, и каждый из них читается независимо через
+ * отображение в память, без общего {@link java.io.BufferedReader}. Строкой считается
+ * последовательность байт до {@code \n}; завершающий {@code \r} отбрасывается.
+ *
+ * @param path  Путь к файлу
+ * @param start Смещение первого байта диапазона
+ * @param end   Смещение байта, следующего за последним байтом диапазона
+ */
+public record FileChunk(Path path, long start, long end) {
+    // Размер одного отображения в память не должен превышать Integer.MAX_VALUE
+    static final long MAX_CHUNK_SIZE = 1L << 30;
+
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Делит файл на диапазоны, выровненные по границам строк.
+     * Количество диапазонов может оказаться меньше запрошенного, если в файле мало строк.
+     *
+     * @param path  Путь к файлу
+     * @param count Желаемое количество диапазонов
+     * @return Диапазоны, покрывающие весь файл
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public static List<FileChunk> split(Path path, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return split(channel, path, 0, channel.size(), count);
+        }
+    }
+
+    /**
+     * Делит диапазон файла, начинающийся с начала строки, на диапазоны, выровненные по границам строк.
+     *
+     * @param path  Путь к файлу
+     * @param start Смещение начала диапазона (начало строки)
+     * @param end   Смещение конца диапазона (начало строки или конец файла)
+     * @param count Желаемое количество диапазонов
+     * @return Диапазоны, покрывающие {@code [start, end)}
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public static List<FileChunk> split(Path path, long start, long end, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return split(channel, path, start, end, count);
+        }
+    }
+
+    private static List<FileChunk> split(FileChannel channel, Path path, long from, long to, int count)
+        throws IOException {
+        long size = to - from;
+        int chunks = (int) Math.max(count, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        List<FileChunk> result = new ArrayList<>(chunks);
+        long start = from;
+        for (int i = 1; i < chunks && start < to; i++) {
+            long boundary = nextLineStart(channel, Math.max(start, from + size / chunks * i), to);
+            if (boundary > start && boundary < to) {
+                result.add(new FileChunk(path, start, boundary));
+                start = boundary;
+            }
+        }
+        result.add(new FileChunk(path, start, to));
+        return result;
+    }
+
+    /**
+     * Находит конец последней завершенной строки в диапазоне файла. Дописываемый файл может
+     * заканчиваться недописанной строкой, которую нужно дочитать при следующем обращении.
+     *
+     * @param path  Путь к файлу
+     * @param start Смещение начала диапазона
+     * @param end   Смещение конца диапазона
+     * @return Смещение байта после последнего {@code \n} в диапазоне или {@code start}, если его нет
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public static long completeLinesEnd(Path path, long start, long end) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return completeLinesEnd(channel, start, end);
+        }
+    }
+
+    static long completeLinesEnd(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long blockEnd = end;
+        while (blockEnd > start) {
+            long blockStart = Math.max(start, blockEnd - SCAN_BUFFER_SIZE);
+            scan.clear().limit((int) (blockEnd - blockStart));
+            int read = channel.read(scan, blockStart);
+            for (int i = read - 1; i >= 0; i--) {
+                if (scan.get(i) == '\n') {
+                    return blockStart + i + 1;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return start;
+    }
+
+    /**
+     * Передает все строки диапазона в обработчик в порядке их следования в файле.
+     *
+     * @param lineConsumer Обработчик строк
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public void forEachLine(Consumer<String> lineConsumer) throws IOException {
+        forEachRawLine((buffer, from, to) -> lineConsumer.accept(new String(buffer, from, to - from,
+            StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Передает все строки диапазона в обработчик байтами, без декодирования в строки.
+     *
+     * @param lineConsumer Обработчик строк в байтах UTF-8
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public void forEachRawLine(ByteLineSplitter.LineConsumer lineConsumer) throws IOException {
+        forEachRawLine(lineConsumer, MAX_CHUNK_SIZE);
+    }
+
+    // Диапазон отображается в память окнами не больше windowSize байт: одно отображение не может
+    // превышать Integer.MAX_VALUE. Строку на границе окон дособирает ByteLineSplitter
+    void forEachRawLine(ByteLineSplitter.LineConsumer lineConsumer, long windowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long limit = Math.min(end, channel.size());
+            if (limit <= start) {
+                return;
+            }
+            ByteLineSplitter.forEachLine(new MappedWindows(channel, start, limit, windowSize), lineConsumer);
+        }
+    }
+
+    // Смещение первого байта после ближайшего '\n', начиная с position; size, если перевода строки нет
+    static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long offset = position;
+        while (offset < size) {
+            scan.clear();
+            int read = channel.read(scan, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    // Последовательно отображает в память окна диапазона [position, limit) и читает их
+    private static final class MappedWindows implements ByteLineSplitter.Source {
+        private final FileChannel channel;
+        private final long limit;
+        private final long windowSize;
+        private long position;
+        private MappedByteBuffer window;
+
+        private MappedWindows(FileChannel channel, long position, long limit, long windowSize) {
+            this.channel = channel;
+            this.position = position;
+            this.limit = limit;
+            this.windowSize = windowSize;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                if (position >= limit) {
+                    return -1;
+                }
+                long size = Math.min(windowSize, limit - position);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                position += size;
+            }
+            int read = Math.min(length, window.remaining());
+            window.get(buffer, offset, read);
+            return read;
+        }
+    }
+}
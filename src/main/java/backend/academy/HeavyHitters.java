@@ -0,0 +1,249 @@
+package backend.academy;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Приблизительный подсчет самых частых ключей с фиксированным объемом памяти (алгоритм Space-Saving).
+ *
+ * <p>Хранится не больше {@code capacity} счетчиков. Новый ключ при заполненной структуре вытесняет
+ * ключ с наименьшим счетчиком и наследует его значение как погрешность. Для каждого ключа
+ * {@code count - error <= истинное количество <= count}, а погрешность любого ключа не превышает
+ * {@link #getErrorBound()}, то есть {@code N / capacity}, где {@code N} - сумма всех добавлений.
+ * Любой ключ, встречающийся чаще {@code N / capacity} раз, гарантированно присутствует в результате.
+ */
+public class HeavyHitters {
+    private static final Comparator<Entry> BY_COUNT_DESC =
+        Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::key);
+
+    private final int capacity;
+    // Поиск по содержимому: ключ копируется в строку, только когда он попадает в структуру
+    private final Object2IntOpenCustomHashMap<CharSequence> slots;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    // Минимальная двоичная куча номеров ячеек по значению счетчика и обратный индекс позиций в ней
+    private final int[] heap;
+    private final int[] heapPosition;
+    private int size;
+    private long total;
+
+    /**
+     * Создает пустую структуру.
+     *
+     * @param capacity Максимальное количество отслеживаемых ключей
+     */
+    public HeavyHitters(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Емкость должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new Object2IntOpenCustomHashMap<>(capacity, CharSequenceHashStrategy.INSTANCE);
+        this.slots.defaultReturnValue(-1);
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapPosition = new int[capacity];
+    }
+
+    /**
+     * Увеличивает счетчик ключа. Ключ не сохраняется, если он уже отслеживается,
+     * поэтому можно передавать изменяемое представление строки.
+     *
+     * @param key       Ключ
+     * @param increment Положительное приращение
+     */
+    public void add(CharSequence key, long increment) {
+        total += increment;
+        int slot = slots.getInt(key);
+        if (slot >= 0) {
+            counts[slot] += increment;
+            siftDown(heapPosition[slot]);
+        } else if (size < capacity) {
+            insert(key.toString(), increment, 0);
+        } else {
+            slot = heap[0];
+            slots.removeInt(keys[slot]);
+            errors[slot] = counts[slot];
+            counts[slot] += increment;
+            keys[slot] = key.toString();
+            slots.put(keys[slot], slot);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Добавляет к текущей структуре счетчики другой структуры той же емкости.
+     * Ключ, отсутствующий в одной из структур, получает ее наименьший счетчик,
+     * поэтому граница погрешности {@code N / capacity} сохраняется для суммарного {@code N}.
+     *
+     * @param other Структура, счетчики которой добавляются к текущей
+     */
+    public void merge(HeavyHitters other) {
+        if (capacity != other.capacity) {
+            throw new IllegalArgumentException("Нельзя объединить структуры с разной емкостью: "
+                + capacity + " и " + other.capacity);
+        }
+        long thisMissing = getErrorBound();
+        long otherMissing = other.getErrorBound();
+        List<Entry> combined = new ArrayList<>(size + other.size);
+        for (int slot = 0; slot < size; slot++) {
+            int otherSlot = other.slots.getInt(keys[slot]);
+            long otherCount = otherSlot >= 0 ? other.counts[otherSlot] : otherMissing;
+            long otherError = otherSlot >= 0 ? other.errors[otherSlot] : otherMissing;
+            combined.add(new Entry(keys[slot], counts[slot] + otherCount, errors[slot] + otherError));
+        }
+        for (int slot = 0; slot < other.size; slot++) {
+            if (!slots.containsKey(other.keys[slot])) {
+                combined.add(new Entry(other.keys[slot], other.counts[slot] + thisMissing,
+                    other.errors[slot] + thisMissing));
+            }
+        }
+        combined.sort(BY_COUNT_DESC);
+
+        long mergedTotal = total + other.total;
+        slots.clear();
+        Arrays.fill(keys, null);
+        size = 0;
+        for (Entry entry : combined.subList(0, Math.min(capacity, combined.size()))) {
+            insert(entry.key(), entry.count(), entry.error());
+        }
+        total = mergedTotal;
+    }
+
+    /**
+     * Возвращает ключи с наибольшими счетчиками; при равных счетчиках порядок определяется ключом.
+     *
+     * @param limit Максимальное количество ключей
+     * @return Ключи в порядке убывания счетчика
+     */
+    public List<Entry> getTop(int limit) {
+        TopSelector<String> selector = new TopSelector<>(Math.min(limit, size));
+        for (int slot = 0; slot < size; slot++) {
+            selector.offer(keys[slot], counts[slot]);
+        }
+        List<Entry> entries = new ArrayList<>();
+        selector.drainDescending((key, count) -> entries.add(new Entry(key, count, errors[slots.getInt(key)])));
+        return entries;
+    }
+
+    /**
+     * Наибольшая возможная погрешность счетчика любого ключа. Равна 0, пока вытеснений не было.
+     *
+     * @return Граница погрешности, не превышающая {@code N / capacity}
+     */
+    public long getErrorBound() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    /**
+     * Записывает отслеживаемые ключи со счетчиками в порядке ключей; емкость не записывается.
+     *
+     * @param out Запись снимка
+     */
+    void writeTo(SnapshotWriter out) {
+        out.writeVarLong(total);
+        out.writeVarLong(size);
+        String[] sortedKeys = Arrays.copyOf(keys, size);
+        Arrays.sort(sortedKeys);
+        String previous = "";
+        for (String key : sortedKeys) {
+            int slot = slots.getInt(key);
+            out.writeString(previous, key);
+            out.writeVarLong(counts[slot]);
+            out.writeVarLong(errors[slot]);
+            previous = key;
+        }
+    }
+
+    /**
+     * Заполняет пустую структуру ключами из снимка структуры той же емкости.
+     *
+     * @param in Чтение снимка
+     * @throws IOException Если данные повреждены
+     */
+    void readFrom(SnapshotReader in) throws IOException {
+        long readTotal = in.readVarLong();
+        int readSize = in.readVarInt(capacity);
+        String previous = "";
+        for (int i = 0; i < readSize; i++) {
+            previous = in.readString(previous);
+            insert(previous, in.readVarLong(), in.readVarLong());
+        }
+        total = readTotal;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    private void insert(String key, long count, long error) {
+        int slot = size++;
+        keys[slot] = key;
+        counts[slot] = count;
+        errors[slot] = error;
+        slots.put(key, slot);
+        heap[slot] = slot;
+        heapPosition[slot] = slot;
+        siftUp(slot);
+    }
+
+    private void siftUp(int position) {
+        int current = position;
+        while (current > 0) {
+            int parent = (current - 1) / 2;
+            if (counts[heap[parent]] <= counts[heap[current]]) {
+                break;
+            }
+            swap(parent, current);
+            current = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        int current = position;
+        while (true) {
+            int smallest = current;
+            int left = 2 * current + 1;
+            int right = left + 1;
+            if (left < size && counts[heap[left]] < counts[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && counts[heap[right]] < counts[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == current) {
+                return;
+            }
+            swap(smallest, current);
+            current = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int slot = heap[first];
+        heap[first] = heap[second];
+        heap[second] = slot;
+        heapPosition[heap[first]] = first;
+        heapPosition[heap[second]] = second;
+    }
+
+    /**
+     * Счетчик ключа.
+     *
+     * @param key   Ключ
+     * @param count Оценка количества сверху
+     * @param error Наибольшая погрешность оценки
+     */
+    public record Entry(String key, long count, long error) {
+    }
+}
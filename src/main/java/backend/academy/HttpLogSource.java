@@ -0,0 +1,347 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Лог, доступный по HTTP(S).
+ *
+ * <p>Если сервер поддерживает запросы диапазонов ({@code Range}), большой лог делится на части
+ * {@code [start, end)}, которые загружаются и разбираются независимо. Части выравниваются по строкам
+ * так же, как {@link FileChunk}: части принадлежат строки, начинающиеся в ее диапазоне, поэтому
+ * загрузка начинается с байта перед {@code start} и продолжается за {@code end} до конца строки.
+ * Запрос части ограничен байтом {@code end - 1 + }{@link #RANGE_SLACK}; если последняя строка
+ * в нем не закончилась, следующие {@link #RANGE_SLACK} байт запрашиваются отдельно.
+ *
+ * <p>Соединение и чтение ограничены тайм-аутами. При обрыве загрузка продолжается с места
+ * остановки запросом диапазона, не более {@link #MAX_RETRIES} раз подряд.
+ */
+final class HttpLogSource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpLogSource.class);
+
+    /**
+     * Количество повторных попыток подряд после ошибки соединения.
+     */
+    static final int MAX_RETRIES = 3;
+
+    /**
+     * Размер части, начиная с которого лог загружается по частям.
+     */
+    static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * Сколько байт за концом части запрашивается, чтобы дочитать ее последнюю строку.
+     */
+    static final int RANGE_SLACK = 64 * 1024;
+
+    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 30_000;
+    private static final long RETRY_DELAY_MILLIS = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_LINE_CAPACITY = 1024;
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+    private static final int HTTP_SERVER_ERROR = 500;
+    private static final Pattern CONTENT_RANGE_TOTAL = Pattern.compile("bytes \\d+-\\d+/(\\d+)");
+
+    private final URL url;
+    private final long segmentSize;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    /**
+     * Создает источник с тайм-аутами и размером части по умолчанию.
+     *
+     * @param url URL лога
+     */
+    HttpLogSource(String url) {
+        this(url, DEFAULT_SEGMENT_SIZE, DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Создает источник.
+     *
+     * @param url                  URL лога
+     * @param segmentSize          Наименьший размер части при загрузке по частям
+     * @param connectTimeoutMillis Тайм-аут установки соединения
+     * @param readTimeoutMillis    Тайм-аут ожидания данных
+     */
+    HttpLogSource(String url, long segmentSize, int connectTimeoutMillis, int readTimeoutMillis) {
+        try {
+            this.url = URI.create(url).toURL();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный URL: " + url, e);
+        }
+        this.segmentSize = segmentSize;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Делит лог на части для параллельной загрузки. Если сервер не поддерживает запросы диапазонов,
+     * не сообщает размер или лог меньше двух частей, возвращается одна часть на весь лог.
+     *
+     * @param maxSegments Наибольшее количество частей
+     * @return Части, покрывающие весь лог
+     */
+    List<Segment> split(int maxSegments) {
+        long length = maxSegments > 1 ? rangeLength() : -1;
+        long count = length < 0 ? 1 : Math.min(maxSegments, length / segmentSize);
+        if (count < 2) {
+            return List.of(Segment.WHOLE);
+        }
+        List<Segment> segments = new ArrayList<>((int) count);
+        for (int i = 0; i < count; i++) {
+            segments.add(new Segment(length * i / count, length * (i + 1) / count));
+        }
+        LOGGER.info("Загрузка {} ({} байт) в {} частях", url, length, count);
+        return segments;
+    }
+
+    /**
+     * Загружает часть лога и передает ее строки в обработчик по мере получения.
+     *
+     * @param segment      Часть лога
+     * @param lineConsumer Обработчик строк
+     * @throws IOException Если загрузка не удалась после всех повторных попыток
+     */
+    void forEachLine(Segment segment, Consumer<String> lineConsumer) throws IOException {
+        long fetchFrom = segment.start() == 0 ? 0 : segment.start() - 1;
+        long fetchLast = segment == Segment.WHOLE ? -1 : segment.end() - 1 + RANGE_SLACK;
+        // Байт перед началом части нужен, чтобы найти первую строку, начинающуюся в части
+        boolean skipping = segment.start() > 0;
+        long offset = fetchFrom;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] line = new byte[INITIAL_LINE_CAPACITY];
+        int lineLength = 0;
+        try (ResumingStream input = new ResumingStream(fetchFrom, fetchLast)) {
+            while (true) {
+                int read = input.read(buffer);
+                if (read < 0) {
+                    // Диапазон прочитан, а последняя строка части не закончилась
+                    if (input.extend(RANGE_SLACK)) {
+                        continue;
+                    }
+                    break;
+                }
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    if (!skipping) {
+                        line = append(line, lineLength, buffer, from, i);
+                        lineLength += i - from;
+                        emitLine(line, lineLength, lineConsumer);
+                        lineLength = 0;
+                    }
+                    skipping = false;
+                    from = i + 1;
+                    if (offset + from >= segment.end()) {
+                        return;
+                    }
+                }
+                if (!skipping) {
+                    line = append(line, lineLength, buffer, from, read);
+                    lineLength += read - from;
+                }
+                offset += read;
+            }
+        }
+        if (lineLength > 0) {
+            emitLine(line, lineLength, lineConsumer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return url.toString();
+    }
+
+    private static byte[] append(byte[] line, int lineLength, byte[] buffer, int from, int to) {
+        int length = lineLength + to - from;
+        byte[] target = line.length >= length ? line : Arrays.copyOf(line, Math.max(length, line.length * 2));
+        System.arraycopy(buffer, from, target, lineLength, to - from);
+        return target;
+    }
+
+    private static void emitLine(byte[] line, int length, Consumer<String> lineConsumer) {
+        int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        lineConsumer.accept(new String(line, 0, end, StandardCharsets.UTF_8));
+    }
+
+    // Размер лога по ответу на запрос первого байта; -1, если сервер не поддерживает диапазоны
+    private long rangeLength() {
+        try {
+            HttpURLConnection connection = connect(0, 0);
+            try {
+                String contentRange = connection.getHeaderField("Content-Range");
+                Matcher total = CONTENT_RANGE_TOTAL.matcher(contentRange == null ? "" : contentRange);
+                boolean ranges = connection.getResponseCode() == HTTP_PARTIAL_CONTENT && total.matches()
+                    && connection.getHeaderField("Content-Encoding") == null;
+                return ranges ? Long.parseLong(total.group(1)) : -1;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось определить размер {}, загрузка одним потоком: {}", url, e.getMessage());
+            return -1;
+        }
+    }
+
+    // Запрос с заголовком Range для from > 0 или last >= 0; last < 0 - до конца лога
+    private HttpURLConnection connect(long from, long last) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        if (from > 0 || last >= 0) {
+            connection.setRequestProperty("Range", "bytes=" + from + "-" + (last >= 0 ? last : ""));
+        }
+        int status = connection.getResponseCode();
+        if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+            connection.disconnect();
+            throw new HttpStatusException(url, status);
+        }
+        return connection;
+    }
+
+    /**
+     * Часть лога {@code [start, end)}; строки, начинающиеся в ней, читаются целиком.
+     *
+     * @param start Смещение начала части
+     * @param end   Смещение конца части ({@link Long#MAX_VALUE} - до конца лога)
+     */
+    record Segment(long start, long end) {
+        /**
+         * Весь лог.
+         */
+        static final Segment WHOLE = new Segment(0, Long.MAX_VALUE);
+    }
+
+    // Ответ сервера с кодом ошибки; повторяются только запросы, завершившиеся ошибкой сервера
+    private static final class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private HttpStatusException(URL url, int status) {
+            super("Сервер вернул код " + status + " для " + url);
+            this.status = status;
+        }
+    }
+
+    // Поток тела ответа на запрос диапазона [position, last], который после обрыва соединения
+    // запрашивает продолжение с места остановки; last < 0 - до конца лога
+    private final class ResumingStream extends InputStream {
+        private long position;
+        private long last;
+        private long total = -1;
+        private long expectedEnd = -1;
+        private HttpURLConnection connection;
+        private InputStream body;
+        private int failures;
+        private boolean resumable = true;
+
+        private ResumingStream(long position, long last) {
+            this.position = position;
+            this.last = last;
+        }
+
+        // Продлевает диапазон на bytes байт; false, если лог прочитан до конца
+        private boolean extend(long bytes) {
+            if (last < 0 || total >= 0 && position >= total) {
+                return false;
+            }
+            close();
+            // Без известного размера лога продолжение запрашивается до конца, чтобы не выйти за него
+            last = total < 0 ? -1 : Math.min(total - 1, last + bytes);
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (true) {
+                try {
+                    if (last >= 0 && position > last) {
+                        return -1;
+                    }
+                    if (body == null) {
+                        open();
+                    }
+                    int read = body.read(buffer, offset, length);
+                    if (read > 0) {
+                        position += read;
+                        failures = 0;
+                    } else if (read < 0 && expectedEnd >= 0 && position < expectedEnd) {
+                        throw new IOException("Соединение закрыто на байте " + position + " из " + expectedEnd);
+                    }
+                    return read;
+                } catch (IOException e) {
+                    close();
+                    retryOrThrow(e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            connection = null;
+            body = null;
+        }
+
+        private void open() throws IOException {
+            connection = connect(position, last);
+            boolean partial = connection.getResponseCode() == HTTP_PARTIAL_CONTENT;
+            if (position > 0 && !partial) {
+                resumable = false;
+                throw new IOException("Сервер не поддерживает запросы диапазонов: " + url);
+            }
+            if (partial) {
+                String contentRange = connection.getHeaderField("Content-Range");
+                Matcher totalMatcher = CONTENT_RANGE_TOTAL.matcher(contentRange == null ? "" : contentRange);
+                total = totalMatcher.matches() ? Long.parseLong(totalMatcher.group(1)) : total;
+            } else {
+                // Сервер отдал лог целиком, несмотря на Range
+                last = -1;
+            }
+            long length = connection.getContentLengthLong();
+            expectedEnd = length < 0 ? -1 : position + length;
+            body = connection.getInputStream();
+        }
+
+        private void retryOrThrow(IOException error) throws IOException {
+            boolean serverError = !(error instanceof HttpStatusException status) || status.status >= HTTP_SERVER_ERROR;
+            if (!serverError || !resumable || ++failures > MAX_RETRIES) {
+                throw error;
+            }
+            LOGGER.warn("Ошибка загрузки {} с байта {}, попытка {} из {}: {}",
+                url, position, failures, MAX_RETRIES, error.getMessage());
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS * failures);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Загрузка прервана", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package backend.academy;
+
+/**
+ * Стандартные методы HTTP. Позволяет считать запросы в массиве, индексированном по {@link #ordinal()},
+ * вместо карты со строковыми ключами.
+ */
+public enum HttpMethod {
+    GET, HEAD, POST, PUT, DELETE, CONNECT, OPTIONS, TRACE, PATCH;
+
+    private static final HttpMethod[] VALUES = values();
+
+    /**
+     * Находит стандартный метод по его имени с учетом регистра.
+     *
+     * @param name Имя метода из строки запроса
+     * @return Метод или null, если имя не относится к стандартным методам
+     */
+    public static HttpMethod fromName(String name) {
+        for (HttpMethod method : VALUES) {
+            if (method.name().equals(name)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Находит стандартный метод по имени, расположенному в части строки, без создания подстроки.
+     *
+     * @param text  Строка, содержащая имя метода
+     * @param start Индекс начала имени (включительно)
+     * @param end   Индекс конца имени (не включительно)
+     * @return Метод или null, если имя не относится к стандартным методам
+     */
+    public static HttpMethod fromName(String text, int start, int end) {
+        int length = end - start;
+        for (HttpMethod method : VALUES) {
+            if (method.name().length() == length && text.startsWith(method.name(), start)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Находит стандартный метод по имени, расположенному в части массива байт.
+     *
+     * @param bytes Массив байт, содержащий имя метода
+     * @param start Смещение начала имени (включительно)
+     * @param end   Смещение конца имени (не включительно)
+     * @return Метод или null, если имя не относится к стандартным методам
+     */
+    public static HttpMethod fromName(byte[] bytes, int start, int end) {
+        for (HttpMethod method : VALUES) {
+            String name = method.name();
+            if (name.length() == end - start && startsWith(bytes, start, name)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (bytes[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Количество стандартных методов, размер массива счетчиков.
+     *
+     * @return Количество значений перечисления
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Метод по порядковому номеру без копирования массива {@link #values()}.
+     *
+     * @param ordinal Порядковый номер
+     * @return Метод
+     */
+    public static HttpMethod byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
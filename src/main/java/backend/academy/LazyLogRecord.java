@@ -0,0 +1,211 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Запись лога - представление строки, из которой она разобрана.
+ *
+ * <p>Хранит саму строку и смещения полей, а подстроки создает только при вызове
+ * соответствующего геттера. Числовые поля, время и метод запроса хранятся в разобранном виде.
+ * Один экземпляр переиспользуется для разбора следующих строк
+ * (см. {@link LogParser#parse(String, LogRecordFilter, LazyLogRecord)}), поэтому после нового
+ * разбора прежние значения недоступны: обработчик не должен сохранять ссылку на запись или на
+ * {@link #getRequestResourceChars()}. Экземпляр предназначен для одного потока.
+ *
+ * <p>Строка может быть задана байтами UTF-8 (см. {@link #setLine(byte[])}); тогда смещения
+ * указываются в массиве байт, а поля декодируются в строки только при обращении к ним.
+ * Ресурс из одних символов ASCII представляется прямо байтами, без декодирования.
+ */
+public class LazyLogRecord extends LogRecord {
+    private final StringSlice resourceView = new StringSlice();
+    private final ByteSlice resourceBytesView = new ByteSlice();
+
+    private String line = "";
+    // Байты строки в UTF-8; null, если запись разобрана из строки line
+    private byte[] bytes;
+    private CharSequence resourceChars = resourceView;
+    private int ipStart;
+    private int ipEnd;
+    private int userStart;
+    private int userEnd;
+    private long timeMillis;
+    private int requestStart;
+    private int requestEnd;
+    private int status;
+    private int size;
+    private int refererStart;
+    private int refererEnd;
+    private int agentStart;
+    private int agentEnd;
+
+    // Разбор строки запроса: стандартный метод и смещения частей в line
+    private HttpMethod method;
+    private int methodEnd;
+    private int resourceStart;
+    private int resourceEnd;
+    private int pathEnd;
+    private int protocolStart;
+
+    LazyLogRecord setLine(String line) {
+        this.line = line;
+        this.bytes = null;
+        return this;
+    }
+
+    LazyLogRecord setLine(byte[] bytes) {
+        this.bytes = bytes;
+        return this;
+    }
+
+    LazyLogRecord setIp(int start, int end) {
+        this.ipStart = start;
+        this.ipEnd = end;
+        return this;
+    }
+
+    LazyLogRecord setUser(int start, int end) {
+        this.userStart = start;
+        this.userEnd = end;
+        return this;
+    }
+
+    LazyLogRecord setTimeMillis(long timeMillis) {
+        this.timeMillis = timeMillis;
+        return this;
+    }
+
+    LazyLogRecord setRequest(int start, int end) {
+        this.requestStart = start;
+        this.requestEnd = end;
+        if (bytes != null) {
+            return setRequestBytes(start, end);
+        }
+        this.methodEnd = RequestLine.methodEnd(line, start, end);
+        this.method = HttpMethod.fromName(line, start, methodEnd);
+        this.resourceStart = RequestLine.resourceStart(line, start, end);
+        this.resourceEnd = RequestLine.resourceEnd(line, resourceStart, end);
+        this.pathEnd = RequestLine.pathEnd(line, resourceStart, resourceEnd);
+        this.protocolStart = RequestLine.protocolStart(line, resourceEnd, end);
+        resourceChars = resourceView.wrap(line, resourceStart, resourceEnd);
+        return this;
+    }
+
+    private LazyLogRecord setRequestBytes(int start, int end) {
+        this.methodEnd = RequestLine.methodEnd(bytes, start, end);
+        this.method = HttpMethod.fromName(bytes, start, methodEnd);
+        this.resourceStart = RequestLine.resourceStart(bytes, start, end);
+        this.resourceEnd = RequestLine.resourceEnd(bytes, resourceStart, end);
+        this.pathEnd = RequestLine.pathEnd(bytes, resourceStart, resourceEnd);
+        this.protocolStart = RequestLine.protocolStart(bytes, resourceEnd, end);
+        if (ByteSlice.isAscii(bytes, resourceStart, resourceEnd)) {
+            resourceChars = resourceBytesView.wrap(bytes, resourceStart, resourceEnd);
+        } else {
+            String resource = text(resourceStart, resourceEnd);
+            resourceChars = resourceView.wrap(resource, 0, resource.length());
+        }
+        return this;
+    }
+
+    LazyLogRecord setStatus(int status) {
+        this.status = status;
+        return this;
+    }
+
+    LazyLogRecord setSize(int size) {
+        this.size = size;
+        return this;
+    }
+
+    LazyLogRecord setReferer(int start, int end) {
+        this.refererStart = start;
+        this.refererEnd = end;
+        return this;
+    }
+
+    LazyLogRecord setAgent(int start, int end) {
+        this.agentStart = start;
+        this.agentEnd = end;
+        return this;
+    }
+
+    // Поле строки; из байт декодируется только эта часть
+    private String text(int start, int end) {
+        return bytes == null ? line.substring(start, end)
+            : new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getIp() {
+        return text(ipStart, ipEnd);
+    }
+
+    @Override
+    public String getUser() {
+        return text(userStart, userEnd);
+    }
+
+    @Override
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    @Override
+    public String getRequest() {
+        return text(requestStart, requestEnd);
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getReferer() {
+        return text(refererStart, refererEnd);
+    }
+
+    @Override
+    public String getAgent() {
+        return text(agentStart, agentEnd);
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method != null ? method.name() : text(requestStart, methodEnd);
+    }
+
+    @Override
+    public HttpMethod getHttpMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestResource() {
+        return text(resourceStart, resourceEnd);
+    }
+
+    @Override
+    public CharSequence getRequestResourceChars() {
+        return resourceChars;
+    }
+
+    @Override
+    public String getRequestPath() {
+        return text(resourceStart, pathEnd);
+    }
+
+    @Override
+    public String getRequestQuery() {
+        return pathEnd < resourceEnd ? text(pathEnd + 1, resourceEnd) : "";
+    }
+
+    @Override
+    public String getRequestProtocol() {
+        return text(protocolStart, requestEnd);
+    }
+}
@@ -0,0 +1,241 @@
+package backend.academy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Конвейер для потока строк, который нельзя разделить на части (сжатый файл, URL): чтение идет
+ * в вызывающем потоке, а разбор и сбор статистики - в нескольких рабочих потоках.
+ *
+ * <p>Строки передаются пачками по {@link #BATCH_LINES} через ограниченную очередь: если разбор
+ * не успевает, чтение ждет свободного места, поэтому в памяти не больше {@code 4 * workers} пачек.
+ * Каждый рабочий поток разбирает строки в свой обработчик (например, в свой сборщик статистики),
+ * поэтому разобранные записи между потоками не передаются.
+ *
+ * <p>Время ожидания на обеих сторонах очереди и ее заполнение собираются в {@link Metrics}:
+ * по ним видно, что медленнее на данной машине - чтение или разбор. Во время работы показатели
+ * пишутся в лог раз в {@link #METRICS_LOG_INTERVAL_SECONDS} секунд.
+ */
+final class LinePipeline implements Consumer<String>, AutoCloseable {
+    /**
+     * Количество строк в пачке.
+     */
+    static final int BATCH_LINES = 1024;
+
+    /**
+     * Интервал, с которым показатели работающего конвейера пишутся в лог.
+     */
+    static final long METRICS_LOG_INTERVAL_SECONDS = 10;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinePipeline.class);
+    private static final long METRICS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(METRICS_LOG_INTERVAL_SECONDS);
+    private static final int BATCHES_PER_WORKER = 4;
+    private static final List<String> END = List.of();
+
+    private final BlockingQueue<List<String>> queue;
+    private final ExecutorService executor;
+    private final List<Future<?>> workers = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong workersBusyNanos = new AtomicLong();
+    private final AtomicLong workersIdleNanos = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private List<String> batch = new ArrayList<>(BATCH_LINES);
+    private long lines;
+    private long batches;
+    private long readerBlockedNanos;
+    private long queueDepthSum;
+    private int maxQueueDepth;
+    private long lastMetricsLog = startNanos;
+    private Metrics metrics;
+
+    /**
+     * Создает конвейер и запускает рабочие потоки.
+     *
+     * @param workerCount   Количество рабочих потоков
+     * @param workerFactory Создает обработчик строк для каждого рабочего потока; вызывается в текущем потоке
+     */
+    LinePipeline(int workerCount, Supplier<Consumer<String>> workerFactory) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + workerCount);
+        }
+        this.queue = new ArrayBlockingQueue<>(workerCount * BATCHES_PER_WORKER);
+        this.executor = Executors.newFixedThreadPool(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Consumer<String> worker = workerFactory.get();
+            workers.add(executor.submit(() -> {
+                work(worker);
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * Добавляет строку; заполненная пачка передается рабочим потокам, при полной очереди - с ожиданием.
+     *
+     * @param line Строка
+     */
+    @Override
+    public void accept(String line) {
+        batch.add(line);
+        lines++;
+        if (batch.size() == BATCH_LINES) {
+            send(batch);
+            batch = new ArrayList<>(BATCH_LINES);
+        }
+    }
+
+    /**
+     * Передает оставшиеся строки, дожидается их обработки и останавливает рабочие потоки.
+     * Ошибка из рабочего потока (в том числе {@link Error}) пробрасывается здесь.
+     *
+     * @throws IllegalStateException Если ожидание было прервано; флаг прерывания восстанавливается
+     */
+    @Override
+    public void close() {
+        if (metrics != null) {
+            return;
+        }
+        try {
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+            for (int i = 0; i < workers.size(); i++) {
+                queue.put(END);
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание конвейера прервано", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка в рабочем потоке конвейера", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            metrics = currentMetrics();
+        }
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException runtimeError) {
+            throw runtimeError;
+        }
+        if (error instanceof Error fatalError) {
+            throw fatalError;
+        }
+    }
+
+    /**
+     * Показатели работы конвейера; доступны после {@link #close()}.
+     *
+     * @return Показатели или null, если конвейер еще работает
+     */
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    private Metrics currentMetrics() {
+        return new Metrics(lines, workers.size(), System.nanoTime() - startNanos, readerBlockedNanos,
+            workersBusyNanos.get(), workersIdleNanos.get(), queue.remainingCapacity() + queue.size(),
+            batches == 0 ? 0 : (double) queueDepthSum / batches, maxQueueDepth);
+    }
+
+    private void send(List<String> lineBatch) {
+        int depth = queue.size();
+        queueDepthSum += depth;
+        maxQueueDepth = Math.max(maxQueueDepth, depth);
+        batches++;
+        if (!queue.offer(lineBatch)) {
+            long waitStart = System.nanoTime();
+            try {
+                queue.put(lineBatch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Чтение прервано", e);
+            } finally {
+                readerBlockedNanos += System.nanoTime() - waitStart;
+            }
+        }
+        // Показатели читающей стороны меняются только в этом потоке, поэтому и пишутся отсюда
+        if (System.nanoTime() - lastMetricsLog >= METRICS_LOG_INTERVAL_NANOS) {
+            lastMetricsLog = System.nanoTime();
+            LOGGER.info("Конвейер разбора (в работе): {}", currentMetrics());
+        }
+    }
+
+    // После ошибки, включая Error (например, StackOverflowError на патологической строке), рабочий
+    // поток не завершается и продолжает забирать пачки из очереди, чтобы чтение не ждало бесконечно
+    private void work(Consumer<String> worker) throws InterruptedException {
+        while (true) {
+            List<String> lineBatch = queue.poll();
+            if (lineBatch == null) {
+                long waitStart = System.nanoTime();
+                lineBatch = queue.take();
+                workersIdleNanos.addAndGet(System.nanoTime() - waitStart);
+            }
+            if (lineBatch == END) {
+                return;
+            }
+            if (failure.get() != null) {
+                continue;
+            }
+            long workStart = System.nanoTime();
+            try {
+                lineBatch.forEach(worker);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+            workersBusyNanos.addAndGet(System.nanoTime() - workStart);
+        }
+    }
+
+    /**
+     * Показатели конвейера.
+     *
+     * @param lines             Количество прочитанных строк
+     * @param workers           Количество рабочих потоков
+     * @param elapsedNanos      Общее время работы
+     * @param readerBlockedNanos Время, которое чтение ждало свободного места в очереди
+     * @param workersBusyNanos  Суммарное время разбора во всех рабочих потоках
+     * @param workersIdleNanos  Суммарное время, которое рабочие потоки ждали строк
+     * @param queueCapacity     Емкость очереди в пачках
+     * @param averageQueueDepth Среднее количество пачек в очереди перед добавлением новой
+     * @param maxQueueDepth     Наибольшее количество пачек в очереди перед добавлением новой
+     */
+    @SuppressWarnings("checkstyle:RecordComponentNumber")
+    record Metrics(long lines, int workers, long elapsedNanos, long readerBlockedNanos, long workersBusyNanos,
+                   long workersIdleNanos, int queueCapacity, double averageQueueDepth, int maxQueueDepth) {
+
+        /**
+         * Медленная стадия: если чтение дольше ждет места в очереди, чем рабочие потоки - строк,
+         * не успевает разбор, иначе - чтение.
+         *
+         * @return true, если узкое место - разбор
+         */
+        boolean isParsingBottleneck() {
+            return readerBlockedNanos > workersIdleNanos / workers;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(elapsedNanos, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+            return String.format("%d строк за %.2f с (%.0f строк/с); чтение ждало очередь %d мс; "
+                    + "разбор (%d потоков) занят %d мс, ждал строк %d мс; очередь %.1f из %d пачек в среднем, "
+                    + "максимум %d; узкое место: %s",
+                lines, seconds, lines / seconds, TimeUnit.NANOSECONDS.toMillis(readerBlockedNanos), workers,
+                TimeUnit.NANOSECONDS.toMillis(workersBusyNanos), TimeUnit.NANOSECONDS.toMillis(workersIdleNanos),
+                averageQueueDepth, queueCapacity, maxQueueDepth, isParsingBottleneck() ? "разбор" : "чтение");
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package backend.academy;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.Stream;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -26,8 +34,27 @@ public class LogAnalyzerRunner {
     private static final String ARG_FORMAT = "format";
     private static final String ARG_FILTER_FIELD = "filter-field";
     private static final String ARG_FILTER_VALUE = "filter-value";
+    private static final String ARG_PARSER = "parser";
+    private static final String ARG_THREADS = "threads";
+    private static final String ARG_PERCENTILES = "percentiles";
+    private static final String ARG_TOP_CAPACITY = "top-capacity";
+    private static final String ARG_HISTOGRAM = "histogram";
+    private static final String ARG_FOLLOW = "follow";
+    private static final String ARG_REFRESH_SECONDS = "refresh-seconds";
+    private static final String ARG_REFRESH_LINES = "refresh-lines";
+    private static final String ARG_CHECKPOINT = "checkpoint";
+    private static final String ARG_SNAPSHOT = "snapshot";
+    private static final String ARG_BUILD_INDEX = "build-index";
+    private static final String ARG_VIRTUAL_THREADS = "virtual-threads";
+    private static final String COMMAND_MERGE = "merge";
     private static final String FORMAT_MARKDOWN = "markdown";
     private static final String FORMAT_ADOC = "adoc";
+    private static final String PARSER_REGEX = "regex";
+    private static final String PARSER_SCANNER = "scanner";
+    private static final String PARSER_VECTOR = "vector";
+    private static final String DEFAULT_PERCENTILES = "95";
+    private static final double MAX_PERCENTILE = 100;
+    private static final long DEFAULT_REFRESH_SECONDS = 10;
 
     private static final DateTimeFormatter ISO8601_FORMATTER =
         DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ssX", Locale.ENGLISH);
@@ -35,11 +62,17 @@ public class LogAnalyzerRunner {
     public void run(String[] args) {
         printCurrentDirectory();
 
-        Options options = buildOptions();
+        // Команда merge объединяет снимки, сохраненные отдельными запусками, без чтения логов
+        boolean merge = args.length > 0 && COMMAND_MERGE.equals(args[0]);
+        Options options = merge ? buildMergeOptions() : buildOptions();
         CommandLineParser parser = new DefaultParser();
         HelpFormatter formatter = new HelpFormatter();
 
         try {
+            if (merge) {
+                runMerge(parser.parse(options, Arrays.copyOfRange(args, 1, args.length)));
+                return;
+            }
             CommandLine cmd = parser.parse(options, args);
 
             String path = cmd.getOptionValue(ARG_PATH);
@@ -48,23 +81,57 @@ public class LogAnalyzerRunner {
             String format = cmd.getOptionValue(ARG_FORMAT, FORMAT_MARKDOWN);
             String filterField = cmd.getOptionValue(ARG_FILTER_FIELD);
             String filterValue = cmd.getOptionValue(ARG_FILTER_VALUE);
+            String parserType = cmd.getOptionValue(ARG_PARSER, PARSER_REGEX);
+            int threads = parseThreads(cmd.getOptionValue(ARG_THREADS));
+            List<Double> percentiles = parsePercentiles(cmd.getOptionValue(ARG_PERCENTILES, DEFAULT_PERCENTILES));
+            int topCapacity = parseTopCapacity(cmd.getOptionValue(ARG_TOP_CAPACITY));
+            Duration histogramWidth = parseHistogramWidth(cmd.getOptionValue(ARG_HISTOGRAM));
+            boolean follow = cmd.hasOption(ARG_FOLLOW);
+            long refreshSeconds = parseRefresh(cmd.getOptionValue(ARG_REFRESH_SECONDS), DEFAULT_REFRESH_SECONDS);
+            long refreshLines = parseRefresh(cmd.getOptionValue(ARG_REFRESH_LINES), 0);
+            String checkpoint = cmd.getOptionValue(ARG_CHECKPOINT);
+            String snapshot = cmd.getOptionValue(ARG_SNAPSHOT);
+
+            boolean virtualThreads = cmd.hasOption(ARG_VIRTUAL_THREADS);
 
             validateArguments(path, format, from, to);
+            if (virtualThreads && checkpoint != null) {
+                throw new IllegalArgumentException("--" + ARG_VIRTUAL_THREADS + " нельзя использовать вместе с --"
+                    + ARG_CHECKPOINT);
+            }
+
+            LogFileReader reader = checkpoint == null ? new LogFileReader(threads, virtualThreads)
+                : new LogFileReader(threads, new CheckpointStore(Paths.get(checkpoint)));
+            LogParser logParser = createParser(parserType);
+            StatisticsCollector statsCollector = new StatisticsCollector(topCapacity, histogramWidth);
+            ReportFormatter formatterReport = new ReportFormatter(format, percentiles);
 
-            LogFileReader reader = new LogFileReader();
-            LogParser logParser = new LogParser();
-            StatisticsCollector statsCollector = new StatisticsCollector();
+            if (follow) {
+                validateFollowPath(path);
+                reader.followLogs(path, logParser, statsCollector,
+                    new LogRecordFilter(from, to, filterField, filterValue),
+                    Duration.ofSeconds(refreshSeconds), refreshLines,
+                    () -> LOGGER.info("Отчет обновлен:\n{}",
+                        formatterReport.formatReport(statsCollector, path, from, to)));
+                return;
+            }
 
+            if (cmd.hasOption(ARG_BUILD_INDEX)) {
+                reader.buildTimeIndexes(path);
+            }
             reader.readLogs(path, logParser, statsCollector, from, to, filterField, filterValue);
+            if (snapshot != null) {
+                StatisticsSnapshot.save(statsCollector, Paths.get(snapshot));
+                LOGGER.info("Снимок статистики сохранен: {}", snapshot);
+            }
 
-            ReportFormatter formatterReport = new ReportFormatter(format);
             String report = formatterReport.formatReport(statsCollector, path, from, to);
 
             LOGGER.info("Отчет успешно создан:\n{}", report);
 
         } catch (ParseException e) {
             LOGGER.error("Ошибка парсинга аргументов: {}", e.getMessage());
-            formatter.printHelp("analyzer", options);
+            formatter.printHelp(merge ? "analyzer merge [параметры] <снимки или каталоги>" : "analyzer", options);
             System.exit(1);
         } catch (IllegalArgumentException e) {
             LOGGER.error("Ошибка проверки аргументов: {}", e.getMessage());
@@ -75,10 +142,58 @@ public class LogAnalyzerRunner {
         }
     }
 
-    private void validateArguments(String path, String format, String from, String to) {
+    private void runMerge(CommandLine cmd) throws IOException {
+        String format = cmd.getOptionValue(ARG_FORMAT, FORMAT_MARKDOWN);
+        int threads = parseThreads(cmd.getOptionValue(ARG_THREADS));
+        List<Double> percentiles = parsePercentiles(cmd.getOptionValue(ARG_PERCENTILES, DEFAULT_PERCENTILES));
+        String snapshot = cmd.getOptionValue(ARG_SNAPSHOT);
+        validateFormat(format);
+        List<Path> snapshots = findSnapshots(cmd.getArgList());
+
+        LOGGER.info("Объединение {} снимков в {} потоках", snapshots.size(), threads);
+        StatisticsCollector merged = StatisticsSnapshot.merge(snapshots, threads);
+        if (snapshot != null) {
+            StatisticsSnapshot.save(merged, Paths.get(snapshot));
+            LOGGER.info("Снимок статистики сохранен: {}", snapshot);
+        }
+
+        String source = String.join(", ", cmd.getArgList());
+        String report = new ReportFormatter(format, percentiles).formatReport(merged, source, null, null);
+        LOGGER.info("Отчет успешно создан:\n{}", report);
+    }
+
+    // Каталог означает все файлы в нем
+    private List<Path> findSnapshots(List<String> arguments) throws IOException {
+        if (arguments.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны снимки для объединения");
+        }
+        List<Path> snapshots = new ArrayList<>();
+        for (String argument : arguments) {
+            Path path = Paths.get(argument);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    files.filter(Files::isRegularFile).sorted().forEach(snapshots::add);
+                }
+            } else if (Files.isRegularFile(path)) {
+                snapshots.add(path);
+            } else {
+                throw new IllegalArgumentException("Снимок не найден: " + argument);
+            }
+        }
+        if (snapshots.isEmpty()) {
+            throw new IllegalArgumentException("В указанных каталогах нет снимков: " + arguments);
+        }
+        return snapshots;
+    }
+
+    private void validateFormat(String format) {
         if (!FORMAT_MARKDOWN.equalsIgnoreCase(format) && !FORMAT_ADOC.equalsIgnoreCase(format)) {
             throw new IllegalArgumentException("Недопустимый формат вывода: " + format);
         }
+    }
+
+    private void validateArguments(String path, String format, String from, String to) {
+        validateFormat(format);
         ZonedDateTime fromDate = null;
         ZonedDateTime toDate = null;
 
@@ -96,6 +211,116 @@ public class LogAnalyzerRunner {
         }
     }
 
+    // В режиме отслеживания читается один локальный файл; он может появиться позже
+    private void validateFollowPath(String path) {
+        if (path.startsWith("http://") || path.startsWith("https://") || path.contains("*") || path.contains("?")
+            || Files.isDirectory(Paths.get(path))) {
+            throw new IllegalArgumentException("В режиме отслеживания путь должен указывать на один файл: " + path);
+        }
+    }
+
+    private long parseRefresh(String refresh, long defaultValue) {
+        if (refresh == null) {
+            return defaultValue;
+        }
+        try {
+            long value = Long.parseLong(refresh);
+            if (value < 1) {
+                throw new IllegalArgumentException("Период обновления отчета должен быть положительным: " + refresh);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный период обновления отчета: " + refresh, e);
+        }
+    }
+
+    private int parseThreads(String threads) {
+        if (threads == null) {
+            return 1;
+        }
+        try {
+            int value = Integer.parseInt(threads);
+            if (value < 1) {
+                throw new IllegalArgumentException("Количество потоков должно быть положительным: " + threads);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное количество потоков: " + threads, e);
+        }
+    }
+
+    private int parseTopCapacity(String capacity) {
+        if (capacity == null) {
+            return 0;
+        }
+        try {
+            int value = Integer.parseInt(capacity);
+            if (value < 1) {
+                throw new IllegalArgumentException("Емкость подсчета ресурсов должна быть положительной: " + capacity);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная емкость подсчета ресурсов: " + capacity, e);
+        }
+    }
+
+    // Число и единица: s - секунды, m - минуты, h - часы, d - дни (например, 5m или 1h)
+    private Duration parseHistogramWidth(String width) {
+        if (width == null) {
+            return null;
+        }
+        String trimmed = width.trim();
+        if (trimmed.length() < 2) {
+            throw new IllegalArgumentException("Некорректная ширина интервала гистограммы: " + width);
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(trimmed.substring(0, trimmed.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная ширина интервала гистограммы: " + width, e);
+        }
+        if (amount < 1) {
+            throw new IllegalArgumentException("Ширина интервала гистограммы должна быть положительной: " + width);
+        }
+        return switch (Character.toLowerCase(trimmed.charAt(trimmed.length() - 1))) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            default -> throw new IllegalArgumentException(
+                "Единица ширины интервала гистограммы должна быть s, m, h или d: " + width);
+        };
+    }
+
+    private List<Double> parsePercentiles(String percentiles) {
+        List<Double> result = new ArrayList<>();
+        for (String value : percentiles.split(",")) {
+            try {
+                double percentile = Double.parseDouble(value.trim());
+                if (percentile <= 0 || percentile > MAX_PERCENTILE) {
+                    throw new IllegalArgumentException("Перцентиль должен быть в интервале (0, 100]: " + value);
+                }
+                result.add(percentile);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный перцентиль: " + value, e);
+            }
+        }
+        return result;
+    }
+
+    private LogParser createParser(String parserType) {
+        if (PARSER_REGEX.equalsIgnoreCase(parserType)) {
+            return new LogParser();
+        }
+        if (PARSER_SCANNER.equalsIgnoreCase(parserType)) {
+            return new ScanningLogParser();
+        }
+        if (PARSER_VECTOR.equalsIgnoreCase(parserType)) {
+            return VectorLogParser.create();
+        }
+        throw new IllegalArgumentException("Недопустимый тип парсера: " + parserType);
+    }
+
     private ZonedDateTime validateAndParseDate(String date, String fieldName) {
         try {
             return ZonedDateTime.parse(date, ISO8601_FORMATTER);
@@ -113,7 +338,7 @@ public class LogAnalyzerRunner {
             .longOpt(ARG_PATH)
             .hasArg()
             .required()
-            .desc("Путь к лог-файлам")
+            .desc("Путь к лог-файлам или URL; несколько URL перечисляются через запятую")
             .build());
 
         options.addOption(Option.builder()
@@ -137,7 +362,7 @@ public class LogAnalyzerRunner {
         options.addOption(Option.builder()
             .longOpt(ARG_FILTER_FIELD)
             .hasArg()
-            .desc("Поле для фильтрации (например, agent, method)")
+            .desc("Поле для фильтрации (например, agent, method, path, protocol)")
             .build());
 
         options.addOption(Option.builder()
@@ -146,6 +371,92 @@ public class LogAnalyzerRunner {
             .desc("Значение для фильтрации")
             .build());
 
+        options.addOption(Option.builder()
+            .longOpt(ARG_PARSER)
+            .hasArg()
+            .desc("Реализация парсера (regex, scanner или vector), по умолчанию regex. vector ускоряет только "
+                + "чтение байт (один поток и части файлов); с конвейером, --" + ARG_VIRTUAL_THREADS
+                + ", URL и --" + ARG_FOLLOW + " работает как scanner")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_THREADS)
+            .hasArg()
+            .desc("Количество потоков для параллельной обработки файлов, по умолчанию 1")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_PERCENTILES)
+            .hasArg()
+            .desc("Перцентили размера ответа через запятую (например, 50,90,99,99.9), по умолчанию 95")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_TOP_CAPACITY)
+            .hasArg()
+            .desc("Количество отслеживаемых ресурсов для приблизительного топа в ограниченной памяти; "
+                + "по умолчанию ресурсы считаются точно")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_HISTOGRAM)
+            .hasArg()
+            .desc("Ширина интервала для таблицы запросов по времени: число и единица s, m, h или d "
+                + "(например, 1m, 5m, 1h); по умолчанию таблица не строится")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_FOLLOW)
+            .desc("Отслеживать дописываемый файл и периодически выводить обновленный отчет")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_REFRESH_SECONDS)
+            .hasArg()
+            .desc("Период обновления отчета в секундах в режиме отслеживания, по умолчанию "
+                + DEFAULT_REFRESH_SECONDS)
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_REFRESH_LINES)
+            .hasArg()
+            .desc("Обновлять отчет в режиме отслеживания после указанного количества новых строк")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_VIRTUAL_THREADS)
+            .desc("Читать каждый файл или URL в своем виртуальном потоке, а разбирать строки в --threads "
+                + "потоках; ускоряет чтение множества небольших файлов и удаленных логов")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_BUILD_INDEX)
+            .desc("Построить или дополнить индексы времени рядом с лог-файлами (файлы .tidx), "
+                + "по которым быстро находятся записи из интервала --from/--to при повторных запусках")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_SNAPSHOT)
+            .hasArg()
+            .desc("Файл, в который сохраняется двоичный снимок собранной статистики для команды merge")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt(ARG_CHECKPOINT)
+            .hasArg()
+            .desc("Каталог контрольных точек: повторный запуск читает только строки, дописанные в файлы "
+                + "после прошлого запуска")
+            .build());
+
+        return options;
+    }
+
+    private Options buildMergeOptions() {
+        Options analyzeOptions = buildOptions();
+        Options options = new Options();
+        for (String option : List.of(ARG_FORMAT, ARG_PERCENTILES, ARG_THREADS, ARG_SNAPSHOT)) {
+            options.addOption(analyzeOptions.getOption(option));
+        }
         return options;
     }
 
@@ -1,15 +1,27 @@
 package backend.academy;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.net.URL;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
@@ -19,10 +31,84 @@ public class LogFileReader {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LogFileReader.class);
 
+    // Пауза между проверками отслеживаемого файла, если новых строк нет
+    private static final long FOLLOW_POLL_MILLIS = 200;
+
+    // Насколько строка может отставать по времени от соседних: nginx пишет строку по завершении запроса
+    // со временем его начала. На столько расширяется интервал при поиске части файла по времени
+    private static final long SEEK_TOLERANCE_MILLIS = 60_000;
+
+    // Файлы от этого размера при многопоточной обработке делятся на части
+    private static final long DEFAULT_CHUNK_THRESHOLD = 64L * 1024 * 1024;
+
+    private final int threads;
+    private final long chunkThreshold;
+    private final CheckpointStore checkpointStore;
+    private final boolean virtualThreads;
+
+    public LogFileReader() {
+        this(1);
+    }
+
+    /**
+     * Создает читатель, обрабатывающий файлы в несколько потоков.
+     *
+     * @param threads Количество рабочих потоков (1 - последовательная обработка)
+     */
+    public LogFileReader(int threads) {
+        this(threads, DEFAULT_CHUNK_THRESHOLD);
+    }
+
+    /**
+     * Создает читатель, обрабатывающий файлы в несколько потоков.
+     * Файлы размером не меньше {@code chunkThreshold} байт делятся на части по границам строк,
+     * и части одного файла разбираются в разных потоках.
+     *
+     * @param threads        Количество рабочих потоков (1 - последовательная обработка)
+     * @param chunkThreshold Минимальный размер файла в байтах, начиная с которого он делится на части
+     */
+    public LogFileReader(int threads, long chunkThreshold) {
+        this(threads, chunkThreshold, null, false);
+    }
+
+    /**
+     * Создает читатель, который сохраняет контрольные точки обработки файлов и при повторном
+     * запуске читает только строки, дописанные после прошлого запуска.
+     *
+     * @param threads         Количество рабочих потоков (1 - последовательная обработка)
+     * @param checkpointStore Хранилище контрольных точек
+     */
+    public LogFileReader(int threads, CheckpointStore checkpointStore) {
+        this(threads, DEFAULT_CHUNK_THRESHOLD, checkpointStore, false);
+    }
+
+    /**
+     * Создает читатель, который при {@code virtualThreads} читает каждый файл или URL в своем
+     * виртуальном потоке, а разбирает строки в {@code threads} обычных потоках. Подходит для
+     * каталогов из множества небольших файлов и для удаленных источников, где чтение в основном ждет.
+     *
+     * @param threads        Количество потоков разбора
+     * @param virtualThreads Читать источники одновременно в виртуальных потоках
+     */
+    public LogFileReader(int threads, boolean virtualThreads) {
+        this(threads, DEFAULT_CHUNK_THRESHOLD, null, virtualThreads);
+    }
+
+    private LogFileReader(int threads, long chunkThreshold, CheckpointStore checkpointStore,
+        boolean virtualThreads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + threads);
+        }
+        this.threads = threads;
+        this.chunkThreshold = chunkThreshold;
+        this.checkpointStore = checkpointStore;
+        this.virtualThreads = virtualThreads;
+    }
+
     /**
      * Читает лог-файлы и передает их записи в StatisticsCollector.
      *
-     * @param pathPattern    Шаблон пути к файлам или URL
+     * @param pathPattern    Шаблон пути к файлам или URL (несколько URL - через запятую)
      * @param parser         Экземпляр LogParser для разбора строк
      * @param statsCollector Экземпляр StatisticsCollector для сбора статистики
      * @param fromStr        Начальная дата фильтрации в формате ISO8601 (может быть null)
@@ -31,17 +117,104 @@ public class LogFileReader {
      */
     public void readLogs(String pathPattern, LogParser parser, StatisticsCollector statsCollector,
         String fromStr, String toStr, String filterField, String filterValue) throws Exception {
-        ZonedDateTime fromTime = fromStr != null ? ZonedDateTime.parse(fromStr) : null;
-        ZonedDateTime toTime = toStr != null ? ZonedDateTime.parse(toStr) : null;
-
-        Consumer<LogRecord> filterConsumer = createFilterConsumer(statsCollector, filterField, filterValue);
+        LogRecordFilter filter = new LogRecordFilter(fromStr, toStr, filterField, filterValue);
 
         if (isUrl(pathPattern)) {
-            processUrl(pathPattern, parser, fromTime, toTime, filterConsumer);
-        } else if (isGlobPattern(pathPattern)) {
-            processGlob(pathPattern, parser, fromTime, toTime, filterConsumer);
+            processUrls(pathPattern, parser, filter, statsCollector);
         } else {
-            processPath(pathPattern, parser, fromTime, toTime, filterConsumer);
+            List<Path> files = isGlobPattern(pathPattern) ? findGlob(pathPattern) : findPath(pathPattern);
+            if (checkpointStore != null) {
+                String settings = String.join("\n", String.valueOf(fromStr), String.valueOf(toStr),
+                    String.valueOf(filterField), String.valueOf(filterValue));
+                processFilesFromCheckpoints(files, parser, filter, statsCollector, settings);
+            } else {
+                processFiles(files, parser, filter, statsCollector);
+            }
+        }
+    }
+
+    /**
+     * Строит индексы времени несжатых лог-файлов (см. {@link TimeIndex}) или дополняет уже построенные
+     * дописанными строками. Индекс сохраняется рядом с файлом, и при чтении с фильтром по времени
+     * часть файла находится по индексу, без поиска по самому файлу.
+     *
+     * @param pathPattern Шаблон пути к файлам
+     * @throws Exception Если построение было прервано
+     */
+    public void buildTimeIndexes(String pathPattern) throws Exception {
+        if (isUrl(pathPattern)) {
+            LOGGER.warn("Индекс времени строится только для локальных файлов: {}", pathPattern);
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        for (Path file : isGlobPattern(pathPattern) ? findGlob(pathPattern) : findPath(pathPattern)) {
+            if (Compression.detect(file) == Compression.NONE) {
+                files.add(file);
+            }
+        }
+        List<Future<?>> results = new ArrayList<>(files.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())))) {
+            for (Path file : files) {
+                results.add(executor.submit(() -> buildTimeIndex(file)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+    }
+
+    private void buildTimeIndex(Path file) {
+        try {
+            TimeIndex index = TimeIndex.build(file);
+            LOGGER.info("Индекс времени {}: {} строк в {} блоках", TimeIndex.sidecar(file),
+                index.getLineCount(), index.getBlockCount());
+        } catch (Exception e) {
+            LOGGER.error("Ошибка при построении индекса файла '{}': {}", file, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Отслеживает дописываемый лог-файл и передает новые записи в StatisticsCollector, пока поток
+     * не будет прерван. Сначала читается уже записанная часть файла, затем новые строки по мере появления;
+     * ротация файла переживается (см. {@link LogFollower}).
+     *
+     * <p>Статистика обновляется по каждой записи, поэтому для обновления отчета ничего
+     * не перечитывается. {@code onRefresh} вызывается в этом же потоке, если с прошлого вызова
+     * появились новые строки и прошло {@code refreshInterval} или накопилось {@code refreshLines} строк,
+     * а также один раз при остановке.
+     *
+     * @param path            Путь к лог-файлу
+     * @param parser          Экземпляр LogParser для разбора строк
+     * @param statsCollector  Экземпляр StatisticsCollector для сбора статистики
+     * @param filter          Фильтр записей
+     * @param refreshInterval Интервал обновления отчета
+     * @param refreshLines    Количество строк, после которого отчет обновляется раньше интервала
+     *                        (0 - только по времени)
+     * @param onRefresh       Обновление отчета
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public void followLogs(String path, LogParser parser, StatisticsCollector statsCollector, LogRecordFilter filter,
+        Duration refreshInterval, long refreshLines, Runnable onRefresh) throws IOException {
+        Path file = Paths.get(path).toAbsolutePath().normalize();
+        LOGGER.info("Отслеживание файла: {}", file);
+        logStringLines(parser);
+        RefreshingLineProcessor lineProcessor = new RefreshingLineProcessor(
+            new LineProcessor(parser, filter, statsCollector::collect), refreshInterval, refreshLines, onRefresh);
+        try (LogFollower follower = new LogFollower(file)) {
+            while (!Thread.currentThread().isInterrupted()) {
+                int lines = follower.poll(lineProcessor);
+                lineProcessor.refreshIfDue();
+                if (lines == 0) {
+                    Thread.sleep(FOLLOW_POLL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedByInterruptException e) {
+            // Прерывание во время чтения закрывает файл; флаг прерывания уже установлен
+            LOGGER.debug("Отслеживание файла {} остановлено", file);
+        } finally {
+            lineProcessor.refreshIfChanged();
         }
     }
 
@@ -53,43 +226,74 @@ public class LogFileReader {
         return pathPattern.contains("*") || pathPattern.contains("?");
     }
 
-    private void processUrl(String url, LogParser parser, ZonedDateTime fromTime, ZonedDateTime toTime,
-        Consumer<LogRecord> filterConsumer) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new URL(url).openStream()))) {
-            LOGGER.info("Чтение логов из URL: {}", url);
-            processReader(reader, parser, fromTime, toTime, filterConsumer);
-        } catch (Exception e) {
-            LOGGER.error("Ошибка при чтении URL '{}': {}", url, e.getMessage(), e);
+    // Несколько URL перечисляются через запятую; большие логи загружаются по частям в несколько потоков
+    private void processUrls(String urlList, LogParser parser, LogRecordFilter filter,
+        StatisticsCollector statsCollector) {
+        List<Consumer<Consumer<String>>> sources = new ArrayList<>();
+        for (String url : urlList.split(",")) {
+            HttpLogSource source = new HttpLogSource(url.trim());
+            for (HttpLogSource.Segment segment : source.split(threads)) {
+                sources.add(lines -> processUrl(source, segment, lines));
+            }
+        }
+        if (virtualThreads || sources.size() > 1) {
+            processSourcesConcurrently(sources, parser, filter, statsCollector);
+        } else if (threads == 1) {
+            logStringLines(parser);
+            sources.getFirst().accept(new LineProcessor(parser, filter, statsCollector::collect));
+        } else {
+            processPipelined(parser, filter, statsCollector, sources.getFirst());
+        }
+    }
+
+    // Векторный поиск разделителей работает только по байтам строки; в режимах, где строки
+    // передаются как String (конвейер, виртуальные потоки, URL, отслеживание), парсер vector равен scanner
+    private static void logStringLines(LogParser parser) {
+        if (parser instanceof VectorLogParser) {
+            LOGGER.info("В этом режиме строки разбираются из String, парсер vector работает как scanner");
+        }
+    }
+
+    // Ошибка чтения части URL прерывает анализ: иначе отчет молча строился бы по части лога
+    private void processUrl(HttpLogSource source, HttpLogSource.Segment segment, Consumer<String> lineProcessor) {
+        if (segment == HttpLogSource.Segment.WHOLE) {
+            LOGGER.info("Чтение логов из URL: {}", source);
+        } else {
+            LOGGER.info("Чтение логов из URL: {} (байты {}-{})", source, segment.start(), segment.end());
+        }
+        try {
+            source.forEachLine(segment, lineProcessor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при чтении URL '" + source + "': " + e.getMessage(), e);
         }
     }
 
-    private void processGlob(String globPattern, LogParser parser, ZonedDateTime fromTime, ZonedDateTime toTime,
-        Consumer<LogRecord> filterConsumer) {
+    private List<Path> findGlob(String globPattern) {
         LOGGER.info("Обработка GLOB-шаблона: {}", globPattern);
         PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + globPattern);
         Path basePath = Paths.get(".").toAbsolutePath().normalize();
 
         try (Stream<Path> paths = Files.walk(basePath)) {
-            paths.filter(Files::isRegularFile)
+            return paths.filter(Files::isRegularFile)
                 .filter(matcher::matches)
-                .forEach(path -> processFile(path, parser, fromTime, toTime, filterConsumer));
+                .filter(file -> !TimeIndex.isSidecar(file))
+                .toList();
         } catch (Exception e) {
             LOGGER.error("Ошибка при обработке GLOB-шаблона '{}': {}", globPattern, e.getMessage(), e);
+            return List.of();
         }
     }
 
-    private void processPath(String pathPattern, LogParser parser, ZonedDateTime fromTime, ZonedDateTime toTime,
-        Consumer<LogRecord> filterConsumer) {
+    private List<Path> findPath(String pathPattern) {
         Path path = Paths.get(pathPattern).toAbsolutePath().normalize();
         LOGGER.info("Обрабатывается путь: {}", path);
 
         if (Files.exists(path)) {
             if (Files.isRegularFile(path)) {
-                processFile(path, parser, fromTime, toTime, filterConsumer);
+                return List.of(path);
             } else if (Files.isDirectory(path)) {
                 try (Stream<Path> files = Files.list(path)) {
-                    files.filter(Files::isRegularFile)
-                        .forEach(file -> processFile(file, parser, fromTime, toTime, filterConsumer));
+                    return files.filter(Files::isRegularFile).filter(file -> !TimeIndex.isSidecar(file)).toList();
                 } catch (Exception e) {
                     LOGGER.error("Ошибка при чтении директории '{}': {}", path, e.getMessage(), e);
                 }
@@ -99,74 +303,382 @@ public class LogFileReader {
         } else {
             LOGGER.error("Путь не найден: {}", path);
         }
+        return List.of();
     }
 
-    private void processFile(Path path, LogParser parser, ZonedDateTime fromTime, ZonedDateTime toTime,
-        Consumer<LogRecord> filterConsumer) {
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            processReader(reader, parser, fromTime, toTime, filterConsumer);
+    private void processFiles(List<Path> files, LogParser parser, LogRecordFilter filter,
+        StatisticsCollector statsCollector) throws Exception {
+        // При фильтре по времени из несжатых файлов читается только часть с подходящими записями
+        boolean seek = filter.hasTimeRange();
+        if (virtualThreads) {
+            Semaphore decompressors = new Semaphore(threads);
+            List<Consumer<Consumer<String>>> sources = seek
+                ? splitFiles(files, filter).stream().<Consumer<Consumer<String>>>map(
+                    chunk -> lines -> processConcurrently(chunk, decompressors, lines)).toList()
+                : files.stream().<Consumer<Consumer<String>>>map(
+                    file -> lines -> processConcurrently(file, decompressors, lines)).toList();
+            processSourcesConcurrently(sources, parser, filter, statsCollector);
+            return;
+        }
+        List<FileSource> chunks = threads == 1 && !seek ? List.of() : splitFiles(files, filter);
+        if (threads == 1 || chunks.size() < 2) {
+            Consumer<Consumer<String>> source = lineProcessor -> {
+                if (seek) {
+                    chunks.forEach(chunk -> processChunk(chunk, threads, lineProcessor));
+                } else {
+                    files.forEach(file -> processFile(file, threads, lineProcessor));
+                }
+            };
+            if (threads == 1) {
+                source.accept(new LineProcessor(parser, filter, statsCollector::collect));
+            } else {
+                processPipelined(parser, filter, statsCollector, source);
+            }
+            return;
+        }
+
+        // Каждый рабочий поток собирает статистику в свой сборщик, результаты объединяются в конце.
+        // Файлы уже обрабатываются параллельно, поэтому сжатый файл распаковывается в доле потоков
+        int workers = Math.min(threads, chunks.size());
+        int decompressThreads = Math.max(1, threads / workers);
+        LOGGER.info("Параллельная обработка {} файлов ({} частей) в {} потоках", files.size(), chunks.size(), workers);
+        AtomicInteger nextChunk = new AtomicInteger();
+        List<Future<StatisticsCollector>> shards = new ArrayList<>(workers);
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            for (int i = 0; i < workers; i++) {
+                shards.add(executor.submit(() -> {
+                    StatisticsCollector shard = statsCollector.createShard();
+                    LineProcessor lineProcessor = new LineProcessor(parser, filter, shard::collect);
+                    for (int index = nextChunk.getAndIncrement(); index < chunks.size();
+                        index = nextChunk.getAndIncrement()) {
+                        processChunk(chunks.get(index), decompressThreads, lineProcessor);
+                    }
+                    return shard;
+                }));
+            }
+            for (Future<StatisticsCollector> shard : shards) {
+                statsCollector.merge(shard.get());
+            }
+        }
+    }
+
+    // Поток, который нельзя разделить на части (сжатый файл, URL), читается в текущем потоке,
+    // а разбирается конвейером: каждый рабочий поток собирает статистику в свой сборщик
+    private void processPipelined(LogParser parser, LogRecordFilter filter, StatisticsCollector statsCollector,
+        Consumer<Consumer<String>> source) {
+        logStringLines(parser);
+        List<StatisticsCollector> shards = new ArrayList<>(threads);
+        LinePipeline pipeline = new LinePipeline(threads, () -> {
+            StatisticsCollector shard = statsCollector.createShard();
+            shards.add(shard);
+            return new LineProcessor(parser, filter, shard::collect);
+        });
+        try (pipeline) {
+            source.accept(pipeline);
+        }
+        shards.forEach(statsCollector::merge);
+        LOGGER.info("Конвейер разбора: {}", pipeline.getMetrics());
+    }
+
+    // Каждый источник читается в своем виртуальном потоке, а каждый поток разбора собирает статистику
+    // в свой сборщик: сборщиков не больше, чем потоков, сколько бы ни было источников
+    private void processSourcesConcurrently(List<Consumer<Consumer<String>>> sources, LogParser parser,
+        LogRecordFilter filter, StatisticsCollector statsCollector) {
+        LOGGER.info("Чтение {} источников в виртуальных потоках, разбор в {} потоках", sources.size(), threads);
+        logStringLines(parser);
+        List<StatisticsCollector> shards = Collections.synchronizedList(new ArrayList<>(threads));
+        try (SourceFanOut fanOut = new SourceFanOut(threads, () -> {
+            StatisticsCollector shard = statsCollector.createShard();
+            shards.add(shard);
+            return new LineProcessor(parser, filter, shard::collect);
+        })) {
+            sources.forEach(fanOut::submit);
+        }
+        shards.forEach(statsCollector::merge);
+    }
+
+    private void processConcurrently(Path file, Semaphore decompressors, Consumer<String> lineProcessor) {
+        FileSource source;
+        try {
+            source = new FileSource(new FileChunk(file, 0, Files.size(file)), Compression.detect(file));
+        } catch (IOException e) {
+            LOGGER.error("Ошибка при чтении файла '{}': {}", file, e.getMessage(), e);
+            return;
+        }
+        processConcurrently(source, decompressors, lineProcessor);
+    }
+
+    // Распаковка занимает процессор, поэтому при одновременном чтении сжатый файл распаковывается
+    // в одном потоке, а одновременно распаковывается не больше threads файлов
+    private void processConcurrently(FileSource source, Semaphore decompressors, Consumer<String> lineProcessor) {
+        if (source.compression() == Compression.NONE) {
+            processChunk(source, 1, lineProcessor);
+            return;
+        }
+        try {
+            decompressors.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Чтение прервано", e);
+        }
+        try {
+            processChunk(source, 1, lineProcessor);
+        } finally {
+            decompressors.release();
+        }
+    }
+
+    // Каждый файл обрабатывается в свой сборщик, который сохраняется в контрольную точку;
+    // при нескольких потоках файлы обрабатываются параллельно
+    private void processFilesFromCheckpoints(List<Path> files, LogParser parser, LogRecordFilter filter,
+        StatisticsCollector statsCollector, String settings) throws Exception {
+        if (threads == 1 || files.size() < 2) {
+            for (Path file : files) {
+                statsCollector.merge(
+                    processFileFromCheckpoint(file, parser, filter, statsCollector, settings, threads));
+            }
+            return;
+        }
+        int workers = Math.min(threads, files.size());
+        int decompressThreads = Math.max(1, threads / workers);
+        List<Future<StatisticsCollector>> results = new ArrayList<>(files.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            for (Path file : files) {
+                results.add(executor.submit(() -> processFileFromCheckpoint(
+                    file, parser, filter, statsCollector, settings, decompressThreads)));
+            }
+            for (Future<StatisticsCollector> result : results) {
+                statsCollector.merge(result.get());
+            }
+        }
+    }
+
+    // Несжатый файл читается с сохраненного смещения до последней завершенной строки;
+    // сжатый (ротированный) файл не дописывается, поэтому либо пропускается целиком, либо читается заново
+    private StatisticsCollector processFileFromCheckpoint(Path file, LogParser parser, LogRecordFilter filter,
+        StatisticsCollector template, String settings, int decompressThreads) {
+        CheckpointStore.Checkpoint checkpoint = checkpointStore.find(file, settings);
+        if (checkpoint != null && !template.isCompatible(checkpoint.statistics())) {
+            checkpoint = null;
+        }
+        StatisticsCollector fileStats = checkpoint != null ? checkpoint.statistics() : template.createShard();
+        long offset = checkpoint != null ? checkpoint.offset() : 0;
+        try {
+            long size = Files.size(file);
+            long end;
+            Compression compression = Compression.detect(file);
+            if (compression != Compression.NONE) {
+                end = size;
+                if (offset != size) {
+                    fileStats = template.createShard();
+                    readFile(file, compression, decompressThreads,
+                        new LineProcessor(parser, filter, fileStats::collect));
+                }
+            } else {
+                end = FileChunk.completeLinesEnd(file, offset, size);
+                if (end > offset) {
+                    new FileChunk(file, offset, end)
+                        .forEachRawLine(new LineProcessor(parser, filter, fileStats::collect));
+                }
+            }
+            if (checkpoint == null || end != offset) {
+                checkpointStore.save(file, settings, new CheckpointStore.Checkpoint(end, fileStats));
+            }
+            LOGGER.info("Файл {}: обработаны байты {}-{}", file, offset, end);
         } catch (Exception e) {
-            LOGGER.error("Ошибка при чтении файла '{}': {}", path, e.getMessage(), e);
+            LOGGER.error("Ошибка при чтении файла '{}': {}", file, e.getMessage(), e);
         }
+        return fileStats;
     }
 
-    private Consumer<LogRecord> createFilterConsumer(StatisticsCollector statsCollector,
-        String filterField, String filterValue) {
-        return logEntry -> {
-            boolean matches = true;
-            if (filterField != null && filterValue != null) {
-                String fieldValue = getFieldValue(logEntry, filterField);
-                if (fieldValue == null) {
-                    matches = false;
+    // Несжатые файлы больше порога делятся на части по границам строк, остальные обрабатываются целиком:
+    // в сжатом файле границы строк по смещениям не найти. При фильтре по времени несжатый файл
+    // сначала сужается до части с записями из интервала, а файл без таких записей пропускается
+    private List<FileSource> splitFiles(List<Path> files, LogRecordFilter filter) {
+        List<FileSource> chunks = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                Compression compression = Compression.detect(file);
+                boolean compressed = compression != Compression.NONE;
+                FileChunk range = new FileChunk(file, 0, Files.size(file));
+                if (!compressed && filter.hasTimeRange()) {
+                    range = findTimeRange(file, filter);
+                    if (range == null) {
+                        LOGGER.info("Файл {} пропущен: нет записей из интервала времени", file);
+                        continue;
+                    }
+                    LOGGER.info("Файл {}: записи из интервала времени в байтах {}-{}",
+                        file, range.start(), range.end());
+                }
+                if (!compressed && range.end() - range.start() >= chunkThreshold) {
+                    for (FileChunk chunk : FileChunk.split(file, range.start(), range.end(), threads)) {
+                        chunks.add(new FileSource(chunk, compression));
+                    }
                 } else {
-                    String regex = filterValue.replace("*", ".*");
-                    matches = fieldValue.matches(regex);
+                    chunks.add(new FileSource(range, compression));
                 }
+            } catch (Exception e) {
+                LOGGER.error("Ошибка при чтении файла '{}': {}", file, e.getMessage(), e);
             }
-            if (matches) {
-                statsCollector.collect(logEntry);
+        }
+        return chunks;
+    }
+
+    // По индексу времени, если он построен, иначе двоичным поиском по самому файлу
+    private FileChunk findTimeRange(Path file, LogRecordFilter filter) throws IOException {
+        TimeIndex index = TimeIndex.open(file);
+        if (index != null) {
+            return index.find(file, filter.getFromTime(), filter.getToTime());
+        }
+        return TimeRangeSeeker.find(file, filter.getFromTime(), filter.getToTime(), SEEK_TOLERANCE_MILLIS);
+    }
+
+    private void processChunk(FileSource source, int decompressThreads, Consumer<String> lineProcessor) {
+        FileChunk chunk = source.chunk();
+        try {
+            if (source.compression() != Compression.NONE) {
+                readFile(chunk.path(), source.compression(), decompressThreads, lineProcessor);
+                return;
+            }
+            if (lineProcessor instanceof ByteLineSplitter.LineConsumer rawLineProcessor) {
+                chunk.forEachRawLine(rawLineProcessor);
+            } else {
+                chunk.forEachLine(lineProcessor);
             }
-        };
+        } catch (Exception e) {
+            LOGGER.error("Ошибка при чтении файла '{}' (байты {}-{}): {}",
+                chunk.path(), chunk.start(), chunk.end(), e.getMessage(), e);
+        }
     }
 
-    private String getFieldValue(LogRecord logEntry, String field) {
-        return switch (field.toLowerCase()) {
-            case "agent" -> logEntry.getAgent();
-            case "method" -> logEntry.getRequestMethod();
-            case "resource" -> logEntry.getRequestResource();
-            case "status" -> String.valueOf(logEntry.getStatus());
-            case "ip" -> logEntry.getIp();
-            case "user" -> logEntry.getUser();
-            default -> {
-                LOGGER.warn("Неизвестное поле для фильтрации: {}", field);
-                yield null;
+    private void processFile(Path path, int decompressThreads, Consumer<String> lineProcessor) {
+        try {
+            readFile(path, Compression.detect(path), decompressThreads, lineProcessor);
+        } catch (Exception e) {
+            LOGGER.error("Ошибка при чтении файла '{}': {}", path, e.getMessage(), e);
+        }
+    }
+
+    // Сжатые файлы (gzip, zstd) распаковываются на лету. Обработчик, который разбирает строки
+    // из байт, получает их без декодирования; остальным строки передаются как String
+    private void readFile(Path path, Compression compression, int decompressThreads, Consumer<String> lineProcessor)
+        throws IOException {
+        try (InputStream input = Compression.open(path, compression, decompressThreads)) {
+            if (lineProcessor instanceof ByteLineSplitter.LineConsumer rawLineProcessor) {
+                ByteLineSplitter.forEachLine(input::read, rawLineProcessor);
+            } else {
+                processReader(new InputStreamReader(input, StandardCharsets.UTF_8), lineProcessor);
             }
-        };
+        }
     }
 
     /**
-     * Обрабатывает поток логов, парсит строки и передает данные в StatisticsCollector
-     * или применяет пользовательский фильтр.
+     * Обрабатывает поток логов, парсит строки и передает записи, прошедшие фильтр, обработчику.
      *
-     * @param reader         Поток для чтения строк (например, файл или URL)
-     * @param parser         Экземпляр LogParser для разбора строк лога
-     * @param fromTime       Начальная дата фильтрации (может быть null для отсутствия фильтрации)
-     * @param toTime         Конечная дата фильтрации (может быть null для отсутствия фильтрации)
-     * @param filterConsumer Дополнительный обработчик, который принимает записи LogRecord, прошедшие фильтрацию
+     * @param reader        Поток для чтения строк (например, файл или URL)
+     * @param lineProcessor Обработчик строк потока
      */
-    private void processReader(Reader reader, LogParser parser, ZonedDateTime fromTime, ZonedDateTime toTime,
-        Consumer<LogRecord> filterConsumer) {
-        new BufferedReader(reader).lines().forEach(line -> {
+    private void processReader(Reader reader, Consumer<String> lineProcessor) {
+        new BufferedReader(reader).lines().forEach(lineProcessor);
+    }
+
+    /**
+     * Часть файла для чтения вместе с его сжатием, определенным один раз при делении файлов на части.
+     * Сжатый файл всегда читается целиком.
+     *
+     * @param chunk       Часть файла
+     * @param compression Сжатие файла
+     */
+    private record FileSource(FileChunk chunk, Compression compression) {
+    }
+
+    /**
+     * Разбор строк одного потока: фильтр применяется при разборе, а все строки разбираются
+     * в одну и ту же запись, поэтому обработчик записей не должен сохранять ссылки на них.
+     * Строки принимаются и байтами UTF-8: тогда парсер разбирает их без декодирования.
+     */
+    private static final class LineProcessor implements Consumer<String>, ByteLineSplitter.LineConsumer {
+        private final LogParser parser;
+        private final LogRecordFilter filter;
+        private final Consumer<LogRecord> consumer;
+        private final LazyLogRecord reusableRecord = new LazyLogRecord();
+
+        private LineProcessor(LogParser parser, LogRecordFilter filter, Consumer<LogRecord> consumer) {
+            this.parser = parser;
+            this.filter = filter;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(String line) {
             try {
-                LogRecord logEntry = parser.parse(line);
-                // Фильтрация по времени
-                if ((fromTime == null || !logEntry.getTime().isBefore(fromTime))
-                    && (toTime == null || !logEntry.getTime().isAfter(toTime))) {
-                    filterConsumer.accept(logEntry);
+                LogRecord logEntry = parser.parse(line, filter, reusableRecord);
+                if (logEntry != null) {
+                    consumer.accept(logEntry);
                 }
             } catch (Exception e) {
                 LOGGER.error("Ошибка при разборе строки '{}': {}", line, e.getMessage(), e);
             }
-        });
+        }
+
+        @Override
+        public void accept(byte[] buffer, int start, int end) {
+            try {
+                LogRecord logEntry = parser.parse(buffer, start, end, filter, reusableRecord);
+                if (logEntry != null) {
+                    consumer.accept(logEntry);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Ошибка при разборе строки '{}': {}",
+                    new String(buffer, start, end - start, StandardCharsets.UTF_8), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Разбор строк отслеживаемого файла с обновлением отчета по количеству строк или по времени.
+     */
+    private static final class RefreshingLineProcessor implements Consumer<String> {
+        private final LineProcessor lineProcessor;
+        private final long refreshIntervalNanos;
+        private final long refreshLines;
+        private final Runnable onRefresh;
+        private long linesSinceRefresh;
+        private long lastRefresh = System.nanoTime();
+
+        private RefreshingLineProcessor(LineProcessor lineProcessor, Duration refreshInterval, long refreshLines,
+            Runnable onRefresh) {
+            this.lineProcessor = lineProcessor;
+            this.refreshIntervalNanos = refreshInterval.toNanos();
+            this.refreshLines = refreshLines;
+            this.onRefresh = onRefresh;
+        }
+
+        @Override
+        public void accept(String line) {
+            lineProcessor.accept(line);
+            linesSinceRefresh++;
+            if (refreshLines > 0 && linesSinceRefresh >= refreshLines) {
+                refresh();
+            }
+        }
+
+        private void refreshIfDue() {
+            if (System.nanoTime() - lastRefresh >= refreshIntervalNanos) {
+                refreshIfChanged();
+            }
+        }
+
+        private void refreshIfChanged() {
+            if (linesSinceRefresh > 0) {
+                refresh();
+            }
+        }
+
+        private void refresh() {
+            onRefresh.run();
+            linesSinceRefresh = 0;
+            lastRefresh = System.nanoTime();
+        }
     }
 }
@@ -0,0 +1,159 @@
+package backend.academy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Чтение дописываемого лог-файла, как {@code tail -F}.
+ *
+ * <p>Каждый вызов {@link #poll(Consumer)} читает строки, дописанные с прошлого вызова.
+ * Незавершенная последняя строка ждет своего {@code \n}. Ротация переживается в обоих вариантах logrotate:
+ * <ul>
+ *     <li>переименование - если по пути появился другой файл, старый дочитывается до конца,
+ *     а новый читается с начала;</li>
+ *     <li>усечение ({@code copytruncate}) - если файл стал короче прочитанного, он читается с начала.</li>
+ * </ul>
+ * Другой файл распознается по {@link BasicFileAttributes#fileKey()} (inode); если файловая система
+ * его не сообщает, распознается только усечение.
+ */
+public class LogFollower implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogFollower.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_LINE_CAPACITY = 1024;
+
+    private final Path path;
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private byte[] pending = new byte[INITIAL_LINE_CAPACITY];
+    private int pendingLength;
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+
+    /**
+     * Создает читатель файла. Файл открывается при первом вызове {@link #poll(Consumer)}
+     * и может еще не существовать.
+     *
+     * @param path Путь к лог-файлу
+     */
+    public LogFollower(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Передает обработчику строки, дописанные с прошлого вызова.
+     *
+     * @param lineConsumer Обработчик строк
+     * @return Количество переданных строк
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public int poll(Consumer<String> lineConsumer) throws IOException {
+        if (channel == null && !open()) {
+            return 0;
+        }
+        if (channel.size() < position) {
+            LOGGER.info("Файл {} усечен, чтение с начала", path);
+            position = 0;
+            pendingLength = 0;
+        }
+        int lines = drain(lineConsumer);
+        if (isReplaced()) {
+            LOGGER.info("Файл {} заменен при ротации, чтение нового файла", path);
+            lines += drain(lineConsumer);
+            if (pendingLength > 0) {
+                emit(lineConsumer);
+                lines++;
+            }
+            channel.close();
+            channel = null;
+            if (open()) {
+                lines += drain(lineConsumer);
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private boolean open() throws IOException {
+        try {
+            fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        position = 0;
+        pendingLength = 0;
+        return true;
+    }
+
+    // Файл переименован, а по пути уже создан новый; пока нового нет, дочитывается старый
+    private boolean isReplaced() throws IOException {
+        try {
+            Object currentKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            return currentKey != null && !Objects.equals(currentKey, fileKey);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private int drain(Consumer<String> lineConsumer) throws IOException {
+        int lines = 0;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return lines;
+            }
+            position += read;
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    append(bytes, lineStart, i);
+                    emit(lineConsumer);
+                    lines++;
+                    lineStart = i + 1;
+                }
+            }
+            append(bytes, lineStart, read);
+        }
+    }
+
+    private void append(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (pendingLength + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+        }
+        System.arraycopy(bytes, from, pending, pendingLength, length);
+        pendingLength += length;
+    }
+
+    private void emit(Consumer<String> lineConsumer) {
+        int length = pendingLength;
+        if (length > 0 && pending[length - 1] == '\r') {
+            length--;
+        }
+        pendingLength = 0;
+        lineConsumer.accept(new String(pending, 0, length, StandardCharsets.UTF_8));
+    }
+}
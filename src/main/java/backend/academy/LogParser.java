@@ -1,6 +1,6 @@
 package backend.academy;
 
-import java.time.ZonedDateTime;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.regex.Matcher;
@@ -12,10 +12,14 @@ public class LogParser {
             + "\"(?<request>[^\"]+)\" (?<status>\\d{3}) (?<size>\\d+) "
             + "\"(?<referer>[^\"]*)\" \"(?<agent>[^\"]*)\"";
 
-    private static final Pattern PATTERN = Pattern.compile(LOG_PATTERN);
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z",
+    static final String INVALID_FORMAT_MESSAGE = "Неверный формат лога: ";
+    static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z",
         Locale.ENGLISH);
 
+    private static final Pattern PATTERN = Pattern.compile(LOG_PATTERN);
+
+    private final NginxTimestampDecoder timeDecoder = new NginxTimestampDecoder();
+
     /**
      * Парсит строку лога в объект LogRecord.
      *
@@ -24,20 +28,109 @@ public class LogParser {
      * @throws Exception Если строка не соответствует ожидаемому формату
      */
     public LogRecord parse(String logLine) throws Exception {
+        return parse(logLine, LogRecordFilter.ACCEPT_ALL);
+    }
+
+    /**
+     * Парсит строку лога и применяет фильтр до создания записи: для отброшенной строки
+     * объект LogRecord и строки его полей не создаются.
+     *
+     * @param logLine Строка лога
+     * @param filter  Фильтр записей
+     * @return Объект LogRecord или null, если запись не прошла фильтр
+     * @throws Exception Если строка не соответствует ожидаемому формату
+     */
+    public LogRecord parse(String logLine, LogRecordFilter filter) throws Exception {
         Matcher matcher = PATTERN.matcher(logLine);
         if (!matcher.find()) {
-            throw new Exception("Неверный формат лога: " + logLine);
+            throw new Exception(INVALID_FORMAT_MESSAGE + logLine);
+        }
+
+        long timeMillis = decodeTime(logLine, matcher.start("time"), matcher.end("time"));
+        int status = Integer.parseInt(matcher.group("status"));
+        if (!filter.testTime(timeMillis) || !testField(filter, logLine, matcher, status)) {
+            return null;
         }
 
         return new LogRecord.Builder()
             .setIp(matcher.group("ip"))
             .setUser(matcher.group("user"))
-            .setTime(ZonedDateTime.parse(matcher.group("time"), TIME_FORMATTER))
+            .setTimeMillis(timeMillis)
             .setRequest(matcher.group("request"))
-            .setStatus(Integer.parseInt(matcher.group("status")))
+            .setStatus(status)
             .setSize(Integer.parseInt(matcher.group("size")))
             .setReferer(matcher.group("referer"))
             .setAgent(matcher.group("agent"))
             .build();
     }
+
+    /**
+     * Парсит строку лога, по возможности заполняя переданную запись вместо создания новой.
+     * Возвращенная запись может совпадать с {@code reuse} и тогда действительна только
+     * до следующего разбора в нее. Парсер на регулярном выражении всегда создает новую запись.
+     *
+     * @param logLine Строка лога
+     * @param filter  Фильтр записей
+     * @param reuse   Запись, которую можно заполнить результатом разбора
+     * @return Объект LogRecord или null, если запись не прошла фильтр
+     * @throws Exception Если строка не соответствует ожидаемому формату
+     */
+    public LogRecord parse(String logLine, LogRecordFilter filter, LazyLogRecord reuse) throws Exception {
+        return parse(logLine, filter);
+    }
+
+    /**
+     * Парсит строку лога, заданную частью массива байт в UTF-8. Парсер на регулярном выражении
+     * декодирует строку целиком; {@link ScanningLogParser} разбирает байты без декодирования.
+     *
+     * @param line   Массив байт, содержащий строку
+     * @param start  Смещение начала строки (включительно)
+     * @param end    Смещение конца строки без перевода строки (не включительно)
+     * @param filter Фильтр записей
+     * @param reuse  Запись, которую можно заполнить результатом разбора
+     * @return Объект LogRecord или null, если запись не прошла фильтр
+     * @throws Exception Если строка не соответствует ожидаемому формату
+     */
+    public LogRecord parse(byte[] line, int start, int end, LogRecordFilter filter, LazyLogRecord reuse)
+        throws Exception {
+        return parse(new String(line, start, end - start, StandardCharsets.UTF_8), filter, reuse);
+    }
+
+    private static boolean testField(LogRecordFilter filter, String logLine, Matcher matcher, int status) {
+        if (filter.getField() == null) {
+            return true;
+        }
+        return switch (filter.getField()) {
+            case AGENT -> filter.testValue(logLine, matcher.start("agent"), matcher.end("agent"));
+            case METHOD, RESOURCE, PATH, QUERY, PROTOCOL ->
+                filter.testRequest(logLine, matcher.start("request"), matcher.end("request"));
+            case STATUS -> filter.testStatus(status);
+            case IP -> filter.testValue(logLine, matcher.start("ip"), matcher.end("ip"));
+            case USER -> filter.testValue(logLine, matcher.start("user"), matcher.end("user"));
+        };
+    }
+
+    /**
+     * Декодирует метку времени nginx в миллисекунды эпохи.
+     *
+     * @param text  Строка, содержащая метку времени
+     * @param start Индекс начала метки (включительно)
+     * @param end   Индекс конца метки (не включительно)
+     * @return Время в миллисекундах от начала эпохи
+     */
+    protected long decodeTime(String text, int start, int end) {
+        return timeDecoder.decode(text, start, end);
+    }
+
+    /**
+     * Декодирует метку времени nginx, расположенную в части массива байт.
+     *
+     * @param bytes Массив байт, содержащий метку времени
+     * @param start Смещение начала метки (включительно)
+     * @param end   Смещение конца метки (не включительно)
+     * @return Время в миллисекундах от начала эпохи
+     */
+    protected long decodeTime(byte[] bytes, int start, int end) {
+        return timeDecoder.decode(bytes, start, end);
+    }
 }
@@ -1,26 +1,60 @@
 package backend.academy;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
+/**
+ * Запись лога. Строка запроса разбирается один раз при создании записи: метод определяется
+ * как {@link HttpMethod}, а ресурс, путь, параметры и протокол хранятся как смещения
+ * в строке запроса, и подстроки создаются только при обращении к ним.
+ *
+ * <p>Записи, собранные через {@link Builder}, неизменяемы. Представление строки лога,
+ * которое можно переиспользовать для следующих строк, - {@link LazyLogRecord}.
+ */
 public class LogRecord {
     private final String ip;
     private final String user;
-    private final ZonedDateTime time;
+    private final long timeMillis;
     private final String request;
     private final int status;
     private final int size;
     private final String referer;
     private final String agent;
 
+    // Разбор строки запроса: стандартный метод и смещения частей в request
+    private final HttpMethod method;
+    private final int methodEnd;
+    private final int resourceStart;
+    private final int resourceEnd;
+    private final int pathEnd;
+    private final int protocolStart;
+    private String resource;
+
+    /**
+     * Создает пустую запись для наследников, которые хранят поля по-своему.
+     */
+    protected LogRecord() {
+        this(new Builder());
+    }
+
     private LogRecord(Builder builder) {
         this.ip = builder.ip;
         this.user = builder.user;
-        this.time = builder.time;
-        this.request = builder.request;
+        this.timeMillis = builder.timeMillis;
+        this.request = builder.request != null ? builder.request : "";
         this.status = builder.status;
         this.size = builder.size;
         this.referer = builder.referer;
         this.agent = builder.agent;
+
+        int end = request.length();
+        this.methodEnd = RequestLine.methodEnd(request, 0, end);
+        this.method = HttpMethod.fromName(request, 0, methodEnd);
+        this.resourceStart = RequestLine.resourceStart(request, 0, end);
+        this.resourceEnd = RequestLine.resourceEnd(request, resourceStart, end);
+        this.pathEnd = RequestLine.pathEnd(request, resourceStart, resourceEnd);
+        this.protocolStart = RequestLine.protocolStart(request, resourceEnd, end);
     }
 
     public String getIp() {
@@ -31,8 +65,17 @@ public class LogRecord {
         return user;
     }
 
+    /**
+     * Время запроса в UTC. Для фильтрации и агрегации используйте {@link #getTimeMillis()}.
+     *
+     * @return Время запроса
+     */
     public ZonedDateTime getTime() {
-        return time;
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(getTimeMillis()), ZoneOffset.UTC);
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
     }
 
     public String getRequest() {
@@ -55,20 +98,78 @@ public class LogRecord {
         return agent;
     }
 
+    /**
+     * Метод запроса. Для стандартных методов возвращается имя константы {@link HttpMethod} без копирования.
+     *
+     * @return Метод запроса или пустая строка
+     */
     public String getRequestMethod() {
-        String[] parts = request.split(" ");
-        return parts.length > 0 ? parts[0] : "";
+        return method != null ? method.name() : request.substring(0, methodEnd);
     }
 
+    /**
+     * Стандартный метод запроса.
+     *
+     * @return Метод или null, если метод не относится к стандартным
+     */
+    public HttpMethod getHttpMethod() {
+        return method;
+    }
+
+    /**
+     * Ресурс запроса вместе с параметрами. Подстрока создается при первом обращении.
+     *
+     * @return Ресурс запроса или пустая строка
+     */
     public String getRequestResource() {
-        String[] parts = request.split(" ");
-        return parts.length > 1 ? parts[1] : "";
+        if (resource == null) {
+            resource = request.substring(resourceStart, resourceEnd);
+        }
+        return resource;
+    }
+
+    /**
+     * Ресурс запроса без обязательного создания строки. Для записи-представления
+     * последовательность действительна только до следующего разбора в ту же запись,
+     * поэтому для хранения ее нужно скопировать через {@link CharSequence#toString()}.
+     *
+     * @return Ресурс запроса
+     */
+    public CharSequence getRequestResourceChars() {
+        return getRequestResource();
+    }
+
+    /**
+     * Путь ресурса без строки параметров.
+     *
+     * @return Путь или пустая строка
+     */
+    public String getRequestPath() {
+        return pathEnd == resourceEnd ? getRequestResource() : request.substring(resourceStart, pathEnd);
+    }
+
+    /**
+     * Строка параметров ресурса после {@code ?}.
+     *
+     * @return Параметры или пустая строка, если их нет
+     */
+    public String getRequestQuery() {
+        return pathEnd < resourceEnd ? request.substring(pathEnd + 1, resourceEnd) : "";
+    }
+
+    /**
+     * Протокол запроса, например {@code HTTP/1.1}.
+     *
+     * @return Протокол или пустая строка, если его нет
+     */
+    public String getRequestProtocol() {
+        return request.substring(protocolStart);
     }
 
     public static class Builder {
         private String ip;
         private String user;
-        private ZonedDateTime time;
+        private long timeMillis;
         private String request;
         private int status;
         private int size;
@@ -86,7 +187,12 @@ public class LogRecord {
         }
 
         public Builder setTime(ZonedDateTime time) {
-            this.time = time;
+            this.timeMillis = time.toInstant().toEpochMilli();
+            return this;
+        }
+
+        public Builder setTimeMillis(long timeMillis) {
+            this.timeMillis = timeMillis;
             return this;
         }
 
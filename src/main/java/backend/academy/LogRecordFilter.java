@@ -0,0 +1,299 @@
+package backend.academy;
+
+import java.time.ZonedDateTime;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Фильтр записей лога по интервалу времени и значению поля.
+ *
+ * <p>Шаблон значения разбирается один раз при создании фильтра. Шаблоны без {@code *}, а также
+ * вида {@code abc*}, {@code *abc} и {@code *abc*} проверяются сравнением строк; регулярное
+ * выражение компилируется, только если шаблон содержит {@code *} в середине или спецсимволы
+ * регулярных выражений. Значение проверяется прямо в строке лога по границам поля, поэтому
+ * парсер может отбросить строку до создания {@link LogRecord}
+ * (см. {@link LogParser#parse(String, LogRecordFilter)}).
+ */
+public class LogRecordFilter implements Predicate<LogRecord> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogRecordFilter.class);
+
+    /**
+     * Фильтр, пропускающий все записи.
+     */
+    public static final LogRecordFilter ACCEPT_ALL = new LogRecordFilter(null, null, null, null);
+
+    private static final String WILDCARD = "*";
+    private static final String REGEX_SPECIAL_CHARS = "\\.[]{}()+?^$|";
+    // Коды ответа в логе трехзначные, результат проверки для них вычисляется заранее
+    private static final int STATUS_CODE_LIMIT = 1000;
+
+    private final long fromTime;
+    private final long toTime;
+    private final Field field;
+    private final boolean rejectAll;
+    private final ValueMatcher valueMatcher;
+    private final boolean[] acceptedStatuses;
+
+    /**
+     * Создает фильтр. Любой из параметров может быть null, тогда соответствующая проверка не выполняется.
+     *
+     * @param fromStr     Начальная дата в формате ISO8601
+     * @param toStr       Конечная дата в формате ISO8601
+     * @param filterField Поле для фильтрации (agent, method, resource, path, query, protocol, status, ip,
+     *                    user)
+     * @param filterValue Значение поля; {@code *} соответствует любой последовательности символов
+     */
+    public LogRecordFilter(String fromStr, String toStr, String filterField, String filterValue) {
+        this.fromTime = parseBoundary(fromStr, Long.MIN_VALUE);
+        this.toTime = parseBoundary(toStr, Long.MAX_VALUE);
+        boolean hasFieldFilter = filterField != null && filterValue != null;
+        this.field = hasFieldFilter ? Field.fromName(filterField) : null;
+        // Записи с неизвестным полем не проходят фильтр, как и раньше
+        this.rejectAll = hasFieldFilter && field == null;
+        if (rejectAll) {
+            LOGGER.warn("Неизвестное поле для фильтрации: {}", filterField);
+        }
+        this.valueMatcher = field != null ? ValueMatcher.compile(filterValue) : null;
+        this.acceptedStatuses = field == Field.STATUS ? precomputeStatuses(valueMatcher) : null;
+    }
+
+    @Override
+    public boolean test(LogRecord logEntry) {
+        if (!testTime(logEntry.getTimeMillis())) {
+            return false;
+        }
+        if (field == null) {
+            return true;
+        }
+        if (field == Field.STATUS) {
+            return testStatus(logEntry.getStatus());
+        }
+        String fieldValue = getFieldValue(logEntry, field);
+        return fieldValue != null && valueMatcher.matches(fieldValue, 0, fieldValue.length());
+    }
+
+    /**
+     * Проверяет время записи.
+     *
+     * @param timeMillis Время в миллисекундах от начала эпохи
+     * @return true, если время входит в интервал фильтра (границы включительно)
+     */
+    public boolean testTime(long timeMillis) {
+        return !rejectAll && timeMillis >= fromTime && timeMillis <= toTime;
+    }
+
+    /**
+     * Показывает, ограничен ли интервал времени хотя бы с одной стороны.
+     *
+     * @return true, если задано начало или конец интервала
+     */
+    public boolean hasTimeRange() {
+        return fromTime != Long.MIN_VALUE || toTime != Long.MAX_VALUE;
+    }
+
+    /**
+     * Начало интервала времени.
+     *
+     * @return Время в миллисекундах от начала эпохи или {@link Long#MIN_VALUE}, если начало не задано
+     */
+    public long getFromTime() {
+        return fromTime;
+    }
+
+    /**
+     * Конец интервала времени.
+     *
+     * @return Время в миллисекундах от начала эпохи или {@link Long#MAX_VALUE}, если конец не задан
+     */
+    public long getToTime() {
+        return toTime;
+    }
+
+    /**
+     * Поле, по значению которого фильтруются записи.
+     *
+     * @return Поле или null, если фильтр по полю не задан
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Проверяет значение поля, расположенное в части строки.
+     *
+     * @param text  Строка, содержащая значение
+     * @param start Индекс начала значения (включительно)
+     * @param end   Индекс конца значения (не включительно)
+     * @return true, если значение соответствует шаблону или фильтр по полю не задан
+     */
+    public boolean testValue(String text, int start, int end) {
+        return valueMatcher == null || valueMatcher.matches(text, start, end);
+    }
+
+    /**
+     * Проверяет код ответа без перевода его в строку.
+     *
+     * @param status Код ответа
+     * @return true, если код соответствует шаблону или фильтр по полю не задан
+     */
+    public boolean testStatus(int status) {
+        if (valueMatcher == null) {
+            return true;
+        }
+        if (status >= 0 && status < STATUS_CODE_LIMIT) {
+            return acceptedStatuses[status];
+        }
+        String value = String.valueOf(status);
+        return valueMatcher.matches(value, 0, value.length());
+    }
+
+    /**
+     * Проверяет часть строки запроса (метод, ресурс, путь, параметры или протокол),
+     * расположенной в части строки. Части выделяются так же, как в {@link LogRecord}.
+     *
+     * @param text  Строка, содержащая запрос
+     * @param start Индекс начала запроса (включительно)
+     * @param end   Индекс конца запроса (не включительно)
+     * @return true, если выбранная часть запроса соответствует шаблону или фильтр по запросу не задан
+     */
+    public boolean testRequest(String text, int start, int end) {
+        if (field == null || !field.isRequestPart()) {
+            return true;
+        }
+        int resourceStart = RequestLine.resourceStart(text, start, end);
+        int resourceEnd = RequestLine.resourceEnd(text, resourceStart, end);
+        int pathEnd = RequestLine.pathEnd(text, resourceStart, resourceEnd);
+        return switch (field) {
+            case METHOD -> valueMatcher.matches(text, start, RequestLine.methodEnd(text, start, end));
+            case PATH -> valueMatcher.matches(text, resourceStart, pathEnd);
+            case QUERY -> valueMatcher.matches(text, Math.min(pathEnd + 1, resourceEnd), resourceEnd);
+            case PROTOCOL -> valueMatcher.matches(text, RequestLine.protocolStart(text, resourceEnd, end), end);
+            default -> valueMatcher.matches(text, resourceStart, resourceEnd);
+        };
+    }
+
+    private static long parseBoundary(String date, long defaultValue) {
+        return date != null ? ZonedDateTime.parse(date).toInstant().toEpochMilli() : defaultValue;
+    }
+
+    private static boolean[] precomputeStatuses(ValueMatcher matcher) {
+        boolean[] accepted = new boolean[STATUS_CODE_LIMIT];
+        for (int status = 0; status < STATUS_CODE_LIMIT; status++) {
+            String value = String.valueOf(status);
+            accepted[status] = matcher.matches(value, 0, value.length());
+        }
+        return accepted;
+    }
+
+    private static String getFieldValue(LogRecord logEntry, Field field) {
+        return switch (field) {
+            case AGENT -> logEntry.getAgent();
+            case METHOD -> logEntry.getRequestMethod();
+            case RESOURCE -> logEntry.getRequestResource();
+            case PATH -> logEntry.getRequestPath();
+            case QUERY -> logEntry.getRequestQuery();
+            case PROTOCOL -> logEntry.getRequestProtocol();
+            case STATUS -> String.valueOf(logEntry.getStatus());
+            case IP -> logEntry.getIp();
+            case USER -> logEntry.getUser();
+        };
+    }
+
+    /**
+     * Поля записи, по которым возможна фильтрация.
+     */
+    public enum Field {
+        AGENT, METHOD, RESOURCE, PATH, QUERY, PROTOCOL, STATUS, IP, USER;
+
+        /**
+         * Находит поле по имени без учета регистра.
+         *
+         * @param name Имя поля из аргументов командной строки
+         * @return Поле или null, если такого поля нет
+         */
+        public static Field fromName(String name) {
+            String upperCaseName = name.toUpperCase(Locale.ROOT);
+            for (Field value : values()) {
+                if (value.name().equals(upperCaseName)) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Показывает, относится ли поле к строке запроса.
+         *
+         * @return true для метода, ресурса, пути, параметров и протокола
+         */
+        public boolean isRequestPart() {
+            return switch (this) {
+                case METHOD, RESOURCE, PATH, QUERY, PROTOCOL -> true;
+                default -> false;
+            };
+        }
+    }
+
+    /**
+     * Проверка значения поля, скомпилированная из шаблона.
+     */
+    private interface ValueMatcher {
+        boolean matches(String text, int start, int end);
+
+        static ValueMatcher compile(String glob) {
+            if (containsRegexSpecialChars(glob)) {
+                return compilePattern(glob);
+            }
+            int first = 0;
+            int last = glob.length();
+            while (first < last && glob.startsWith(WILDCARD, first)) {
+                first++;
+            }
+            while (last > first && glob.startsWith(WILDCARD, last - 1)) {
+                last--;
+            }
+            String literal = glob.substring(first, last);
+            if (literal.contains(WILDCARD)) {
+                return compilePattern(glob);
+            }
+            boolean anyPrefix = first > 0;
+            boolean anySuffix = last < glob.length();
+            if (anyPrefix && literal.isEmpty()) {
+                return (text, start, end) -> true;
+            }
+            if (anyPrefix && anySuffix) {
+                return (text, start, end) -> {
+                    int index = text.indexOf(literal, start);
+                    return index >= 0 && index + literal.length() <= end;
+                };
+            }
+            if (anyPrefix) {
+                return (text, start, end) -> end - start >= literal.length()
+                    && text.startsWith(literal, end - literal.length());
+            }
+            if (anySuffix) {
+                return (text, start, end) -> end - start >= literal.length() && text.startsWith(literal, start);
+            }
+            return (text, start, end) -> end - start == literal.length() && text.startsWith(literal, start);
+        }
+
+        private static boolean containsRegexSpecialChars(String glob) {
+            for (int i = 0; i < glob.length(); i++) {
+                if (REGEX_SPECIAL_CHARS.indexOf(glob.charAt(i)) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Остальные символы шаблона по-прежнему трактуются как регулярное выражение
+        private static ValueMatcher compilePattern(String glob) {
+            Pattern pattern = Pattern.compile(glob.replace(WILDCARD, ".*"));
+            return (text, start, end) -> pattern.matcher(text).region(start, end).matches();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+
+/**
+ * Декодер времени nginx ({@code dd/MMM/yyyy:HH:mm:ss Z}) сразу в миллисекунды эпохи.
+ *
+ * <p>Метка времени в логе nginx имеет фиксированную ширину, а соседние строки почти всегда
+ * относятся к одной минуте. Поэтому декодер запоминает последний разобранный префикс
+ * {@code dd/MMM/yyyy:HH:mm} вместе со смещением зоны и для следующих строк той же минуты
+ * разбирает только секунды. Строки нестандартного вида разбираются через
+ * {@link LogParser#TIME_FORMATTER}, так что результат всегда совпадает с {@link ZonedDateTime#parse}.
+ *
+ * <p>Кэш хранится в неизменяемом объекте и заменяется целиком, поэтому один экземпляр
+ * можно безопасно использовать из нескольких потоков.
+ */
+public class NginxTimestampDecoder {
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    // Позиции полей в строке "17/May/2015:08:05:52 +0000"
+    private static final int TIMESTAMP_LENGTH = 26;
+    private static final int MONTH_POS = 3;
+    private static final int YEAR_POS = 7;
+    private static final int HOUR_POS = 12;
+    private static final int MINUTE_POS = 15;
+    private static final int SECOND_POS = 18;
+    private static final int ZONE_POS = 20;
+    private static final int ZONE_HOURS_POS = 21;
+    private static final int ZONE_MINUTES_POS = 23;
+    private static final int MINUTE_PREFIX_LENGTH = 17;
+    private static final int ZONE_LENGTH = 5;
+    private static final int YEAR_DIGITS = 4;
+
+    private static final int MAX_HOUR = 23;
+    private static final int MAX_MINUTE = 59;
+    private static final int MAX_SECOND = 59;
+    private static final int MAX_ZONE_MINUTES = 18 * 60;
+    private static final int DECIMAL_BASE = 10;
+    private static final long MILLIS_IN_SECOND = 1000L;
+    private static final long SECONDS_IN_MINUTE = 60L;
+    private static final long SECONDS_IN_HOUR = 3600L;
+    private static final long SECONDS_IN_DAY = 86_400L;
+
+    private MinuteCache cache = new MinuteCache("", "", 0L);
+
+    /**
+     * Декодирует метку времени целиком.
+     *
+     * @param text Метка времени в формате {@code dd/MMM/yyyy:HH:mm:ss Z}
+     * @return Время в миллисекундах от начала эпохи
+     * @throws java.time.format.DateTimeParseException Если строка не является корректной меткой времени
+     */
+    public long decode(String text) {
+        return decode(text, 0, text.length());
+    }
+
+    /**
+     * Декодирует метку времени, расположенную в части строки.
+     *
+     * @param text  Строка, содержащая метку времени
+     * @param start Индекс начала метки (включительно)
+     * @param end   Индекс конца метки (не включительно)
+     * @return Время в миллисекундах от начала эпохи
+     * @throws java.time.format.DateTimeParseException Если подстрока не является корректной меткой времени
+     */
+    public long decode(String text, int start, int end) {
+        if (end - start != TIMESTAMP_LENGTH) {
+            return decodeSlow(text, start, end);
+        }
+        int seconds = twoDigits(text, start + SECOND_POS);
+        if (!inRange(seconds, MAX_SECOND) || text.charAt(start + SECOND_POS - 1) != ':'
+            || text.charAt(start + ZONE_POS - 1) != ' ') {
+            return decodeSlow(text, start, end);
+        }
+
+        MinuteCache current = cache;
+        if (!current.matches(text, start)) {
+            long minuteMillis = decodeMinute(text, start);
+            if (minuteMillis == Long.MIN_VALUE) {
+                return decodeSlow(text, start, end);
+            }
+            current = new MinuteCache(text.substring(start, start + MINUTE_PREFIX_LENGTH),
+                text.substring(start + ZONE_POS, start + ZONE_POS + ZONE_LENGTH), minuteMillis);
+            cache = current;
+        }
+        return current.minuteMillis + seconds * MILLIS_IN_SECOND;
+    }
+
+    /**
+     * Декодирует метку времени, расположенную в части массива байт. Секунды той же минуты,
+     * что и в прошлый раз, разбираются прямо в байтах; иначе метка переводится в строку.
+     *
+     * @param bytes Массив байт в ASCII или UTF-8
+     * @param start Смещение начала метки (включительно)
+     * @param end   Смещение конца метки (не включительно)
+     * @return Время в миллисекундах от начала эпохи
+     * @throws java.time.format.DateTimeParseException Если байты не являются корректной меткой времени
+     */
+    public long decode(byte[] bytes, int start, int end) {
+        if (end - start == TIMESTAMP_LENGTH) {
+            int seconds = twoDigits(bytes, start + SECOND_POS);
+            MinuteCache current = cache;
+            if (inRange(seconds, MAX_SECOND) && bytes[start + SECOND_POS - 1] == ':'
+                && bytes[start + ZONE_POS - 1] == ' ' && current.matches(bytes, start)) {
+                return current.minuteMillis + seconds * MILLIS_IN_SECOND;
+            }
+        }
+        return decode(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    // Разбор "dd/MMM/yyyy:HH:mm" и зоны; Long.MIN_VALUE, если строка не в стандартном виде
+    private static long decodeMinute(String text, int start) {
+        int day = twoDigits(text, start);
+        int month = month(text, start + MONTH_POS);
+        int year = digits(text, start + YEAR_POS, YEAR_DIGITS);
+        int hour = twoDigits(text, start + HOUR_POS);
+        int minute = twoDigits(text, start + MINUTE_POS);
+        int zoneHours = twoDigits(text, start + ZONE_HOURS_POS);
+        int zoneMinutes = twoDigits(text, start + ZONE_MINUTES_POS);
+        char sign = text.charAt(start + ZONE_POS);
+
+        if (!hasSeparators(text, start) || !isValidDate(year, month, day) || !isValidTime(hour, minute)
+            || !isValidZone(sign, zoneHours, zoneMinutes)) {
+            return Long.MIN_VALUE;
+        }
+
+        long offsetSeconds = zoneHours * SECONDS_IN_HOUR + zoneMinutes * SECONDS_IN_MINUTE;
+        if (sign == '-') {
+            offsetSeconds = -offsetSeconds;
+        }
+        long epochSeconds = LocalDate.of(year, month, day).toEpochDay() * SECONDS_IN_DAY
+            + hour * SECONDS_IN_HOUR + minute * SECONDS_IN_MINUTE - offsetSeconds;
+        return epochSeconds * MILLIS_IN_SECOND;
+    }
+
+    private static boolean hasSeparators(String text, int start) {
+        return text.charAt(start + MONTH_POS - 1) == '/'
+            && text.charAt(start + YEAR_POS - 1) == '/'
+            && text.charAt(start + HOUR_POS - 1) == ':'
+            && text.charAt(start + MINUTE_POS - 1) == ':';
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        return year >= 1 && month >= 1 && day >= 1 && day <= LocalDate.of(year, month, 1).lengthOfMonth();
+    }
+
+    private static boolean isValidTime(int hour, int minute) {
+        return inRange(hour, MAX_HOUR) && inRange(minute, MAX_MINUTE);
+    }
+
+    private static boolean isValidZone(char sign, int zoneHours, int zoneMinutes) {
+        return (sign == '+' || sign == '-') && inRange(zoneMinutes, MAX_MINUTE)
+            && inRange(zoneHours * (MAX_MINUTE + 1) + zoneMinutes, MAX_ZONE_MINUTES);
+    }
+
+    private static boolean inRange(int value, int max) {
+        return value >= 0 && value <= max;
+    }
+
+    private static int month(String text, int pos) {
+        for (int i = 0; i < MONTHS.length; i++) {
+            if (text.startsWith(MONTHS[i], pos)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int twoDigits(String text, int pos) {
+        return digits(text, pos, 2);
+    }
+
+    private static int digits(String text, int pos, int count) {
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * DECIMAL_BASE + (c - '0');
+        }
+        return value;
+    }
+
+    private static int twoDigits(byte[] bytes, int pos) {
+        int high = bytes[pos] - '0';
+        int low = bytes[pos + 1] - '0';
+        return high < 0 || high > DECIMAL_BASE - 1 || low < 0 || low > DECIMAL_BASE - 1 ? -1
+            : high * DECIMAL_BASE + low;
+    }
+
+    private static long decodeSlow(String text, int start, int end) {
+        return ZonedDateTime.parse(text.subSequence(start, end), LogParser.TIME_FORMATTER)
+            .toInstant()
+            .toEpochMilli();
+    }
+
+    /**
+     * Последняя разобранная минута: префикс метки, зона и соответствующее время.
+     */
+    private static final class MinuteCache {
+        private final String prefix;
+        private final String zone;
+        private final long minuteMillis;
+
+        private MinuteCache(String prefix, String zone, long minuteMillis) {
+            this.prefix = prefix;
+            this.zone = zone;
+            this.minuteMillis = minuteMillis;
+        }
+
+        private boolean matches(String text, int start) {
+            return !prefix.isEmpty()
+                && text.startsWith(prefix, start)
+                && text.startsWith(zone, start + ZONE_POS);
+        }
+
+        private boolean matches(byte[] bytes, int start) {
+            return !prefix.isEmpty() && matches(prefix, bytes, start) && matches(zone, bytes, start + ZONE_POS);
+        }
+
+        private static boolean matches(String text, byte[] bytes, int start) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) != bytes[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package backend.academy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Распаковка gzip-файла, состоящего из нескольких независимых частей (members), в несколько потоков.
+ *
+ * <p>Границы частей обычного gzip-файла известны только после распаковки предыдущей части.
+ * Но если каждая часть несет в заголовке свой размер (поле {@code BC} формата BGZF, как у bgzip),
+ * файл делится на части заранее. Части распаковываются параллельно, а данные отдаются
+ * в исходном порядке, поэтому строки, разрезанные границей части, склеиваются как обычно.
+ * Одновременно распаковывается не больше {@code 2 * threads} частей.
+ */
+public class ParallelGzipInputStream extends InputStream {
+    private static final int HEADER_LENGTH = 12;
+    private static final int FLAGS_OFFSET = 3;
+    private static final int EXTRA_LENGTH_OFFSET = 10;
+    private static final int FLAG_EXTRA = 4;
+    private static final int SUBFIELD_HEADER_LENGTH = 4;
+    private static final byte GZIP_ID1 = 0x1f;
+    private static final byte GZIP_ID2 = (byte) 0x8b;
+    private static final byte DEFLATE = 8;
+    private static final byte BLOCK_SIZE_ID1 = 'B';
+    private static final byte BLOCK_SIZE_ID2 = 'C';
+    private static final int UNSIGNED_SHORT_MASK = 0xFFFF;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final Path path;
+    private final List<Member> members;
+    private final ExecutorService executor;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final int window;
+    private int nextMember;
+    private byte[] current = new byte[0];
+    private int position;
+
+    /**
+     * Создает поток и запускает распаковку первых частей.
+     *
+     * @param path    Путь к gzip-файлу
+     * @param members Части файла, найденные {@link #split(Path)}
+     * @param threads Количество потоков распаковки
+     */
+    public ParallelGzipInputStream(Path path, List<Member> members, int threads) {
+        this.path = path;
+        this.members = List.copyOf(members);
+        this.window = 2 * threads;
+        this.executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().daemon().factory());
+        while (pending.size() < window && nextMember < this.members.size()) {
+            submitNext();
+        }
+    }
+
+    /**
+     * Делит gzip-файл на части по размерам из заголовков.
+     *
+     * @param path Путь к gzip-файлу
+     * @return Части файла по порядку или пустой список, если хотя бы у одной части размер не указан
+     * @throws IOException Если файл не удалось прочитать
+     */
+    public static List<Member> split(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Member> result = new ArrayList<>();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            long offset = 0;
+            while (offset < size) {
+                header.clear();
+                if (channel.read(header, offset) < HEADER_LENGTH || !hasExtraField(header)) {
+                    return List.of();
+                }
+                int extraLength = header.getShort(EXTRA_LENGTH_OFFSET) & UNSIGNED_SHORT_MASK;
+                ByteBuffer extra = ByteBuffer.allocate(extraLength).order(ByteOrder.LITTLE_ENDIAN);
+                if (channel.read(extra, offset + HEADER_LENGTH) < extraLength) {
+                    return List.of();
+                }
+                int memberSize = blockSize(extra);
+                if (memberSize <= 0 || offset + memberSize > size) {
+                    return List.of();
+                }
+                result.add(new Member(offset, memberSize));
+                offset += memberSize;
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & BYTE_MASK;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        pending.clear();
+    }
+
+    private boolean fill() throws IOException {
+        while (position == current.length) {
+            Future<byte[]> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            if (nextMember < members.size()) {
+                submitNext();
+            }
+            try {
+                current = next.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Распаковка прервана");
+            } catch (ExecutionException e) {
+                throw new IOException("Ошибка распаковки файла " + path, e.getCause());
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    private void submitNext() {
+        Member member = members.get(nextMember++);
+        pending.add(executor.submit(() -> inflate(member)));
+    }
+
+    private byte[] inflate(Member member) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(member.length());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (compressed.hasRemaining()
+                && channel.read(compressed, member.offset() + compressed.position()) > 0) {
+                // Дочитываем часть целиком
+            }
+        }
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed.array()))) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static boolean hasExtraField(ByteBuffer header) {
+        return header.get(0) == GZIP_ID1 && header.get(1) == GZIP_ID2 && header.get(2) == DEFLATE
+            && (header.get(FLAGS_OFFSET) & FLAG_EXTRA) != 0;
+    }
+
+    // Размер части из подполя BC: хранится как размер минус один; 0, если подполя нет
+    private static int blockSize(ByteBuffer extra) {
+        int position = 0;
+        while (position + SUBFIELD_HEADER_LENGTH <= extra.limit()) {
+            int length = extra.getShort(position + 2) & UNSIGNED_SHORT_MASK;
+            if (extra.get(position) == BLOCK_SIZE_ID1 && extra.get(position + 1) == BLOCK_SIZE_ID2
+                && length == 2 && position + SUBFIELD_HEADER_LENGTH + 2 <= extra.limit()) {
+                return (extra.getShort(position + SUBFIELD_HEADER_LENGTH) & UNSIGNED_SHORT_MASK) + 1;
+            }
+            position += SUBFIELD_HEADER_LENGTH + length;
+        }
+        return 0;
+    }
+
+    /**
+     * Независимо распаковываемая часть gzip-файла.
+     *
+     * @param offset Смещение начала части в файле
+     * @param length Размер части в байтах
+     */
+    public record Member(long offset, int length) {
+    }
+}
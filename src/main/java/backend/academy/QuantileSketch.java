@@ -0,0 +1,146 @@
+package backend.academy;
+
+import java.io.IOException;
+
+/**
+ * Потоковая оценка квантилей неотрицательных целых значений с фиксированным объемом памяти
+ * (логарифмические корзины, как в DDSketch).
+ *
+ * <p>Значение {@code v > 0} попадает в корзину {@code i = ceil(log(v) / log(gamma))},
+ * где {@code gamma = (1 + a) / (1 - a)}, а {@code a} - относительная точность. Для каждой
+ * корзины хранится только счетчик, поэтому память не зависит от количества значений:
+ * весь диапазон {@code int} при точности 1% занимает около тысячи счетчиков.
+ *
+ * <p>Гарантия точности: для любого квантиля {@code q} возвращаемое значение {@code x}
+ * отличается от точного значения {@code x_q} того же ранга не более чем на {@code a * x_q}.
+ * Два экземпляра с одинаковой точностью объединяются без потери точности.
+ */
+public class QuantileSketch {
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private final long[] counts;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Создает пустую оценку квантилей.
+     *
+     * @param relativeAccuracy Допустимая относительная погрешность, например 0.01 для 1%
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Относительная точность должна быть в интервале (0, 1): "
+                + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+        this.counts = new long[bucketIndex(Integer.MAX_VALUE) + 1];
+    }
+
+    /**
+     * Добавляет значение.
+     *
+     * @param value Неотрицательное значение
+     */
+    public void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение не может быть отрицательным: " + value);
+        }
+        if (value == 0) {
+            zeroCount++;
+        } else {
+            counts[bucketIndex(value)]++;
+        }
+        count++;
+    }
+
+    /**
+     * Добавляет к текущей оценке значения другой оценки с той же точностью.
+     *
+     * @param other Оценка, значения которой добавляются к текущей
+     */
+    public void merge(QuantileSketch other) {
+        if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+            throw new IllegalArgumentException("Нельзя объединить оценки с разной точностью: "
+                + relativeAccuracy + " и " + other.relativeAccuracy);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Возвращает оценку квантиля. Ранг выбирается так же, как в точном расчете:
+     * {@code ceil(q * n) - 1} в отсортированном наборе значений.
+     *
+     * @param quantile Квантиль в интервале (0, 1]
+     * @return Оценка значения или 0, если значений нет
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(0, (long) Math.ceil(quantile * count) - 1);
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        int index = 0;
+        while (index < counts.length - 1) {
+            seen += counts[index];
+            if (rank < seen) {
+                break;
+            }
+            index++;
+        }
+        return bucketValue(index);
+    }
+
+    /**
+     * Записывает точность и счетчики оценки.
+     *
+     * @param out Запись снимка
+     */
+    void writeTo(SnapshotWriter out) {
+        out.writeDouble(relativeAccuracy);
+        out.writeVarLong(zeroCount);
+        out.writeVarLong(count);
+        out.writeCounts(counts);
+    }
+
+    /**
+     * Заменяет счетчики пустой оценки прочитанными из снимка оценки с той же точностью.
+     *
+     * @param in Чтение снимка
+     * @throws IOException Если данные повреждены или точность отличается
+     */
+    void readFrom(SnapshotReader in) throws IOException {
+        double accuracy = in.readDouble();
+        if (Double.compare(accuracy, relativeAccuracy) != 0) {
+            throw new IOException("Точность оценки в снимке " + accuracy + " вместо " + relativeAccuracy);
+        }
+        zeroCount = in.readVarLong();
+        count = in.readVarLong();
+        in.readCounts(counts);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    private int bucketIndex(int value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    // Точка корзины с наименьшей относительной погрешностью: 2 * gamma^i / (gamma + 1)
+    private double bucketValue(int index) {
+        double gamma = Math.exp(logGamma);
+        return 2 * Math.exp(index * logGamma) / (gamma + 1);
+    }
+}
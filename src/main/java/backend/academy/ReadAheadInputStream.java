@@ -0,0 +1,116 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Поток, который читает исходный поток заранее в отдельном потоке выполнения.
+ *
+ * <p>Фоновый поток читает блоки и складывает их в ограниченную очередь, а читатель забирает
+ * их оттуда. Так распаковка сжатого файла идет одновременно с разбором уже распакованных строк,
+ * а в памяти находится не больше {@code depth} блоков. Ошибка чтения передается читателю.
+ */
+public class ReadAheadInputStream extends InputStream {
+    // Пустой блок в очереди означает конец исходного потока или ошибку чтения
+    private static final byte[] END = new byte[0];
+    private static final int BYTE_MASK = 0xFF;
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> blocks;
+    private final Thread reader;
+    private volatile IOException failure;
+    private byte[] current = new byte[0];
+    private int position;
+    private boolean finished;
+
+    /**
+     * Создает поток и запускает фоновое чтение.
+     *
+     * @param source     Исходный поток; закрывается вместе с этим потоком
+     * @param blockSize  Размер блока чтения в байтах
+     * @param depth      Максимальное количество прочитанных, но не забранных блоков
+     * @param threadName Имя фонового потока
+     */
+    public ReadAheadInputStream(InputStream source, int blockSize, int depth, String threadName) {
+        this.source = source;
+        this.blocks = new ArrayBlockingQueue<>(depth);
+        this.reader = Thread.ofPlatform().name(threadName).daemon().start(() -> readAhead(blockSize));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & BYTE_MASK;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.interrupt();
+        source.close();
+    }
+
+    // Забирает следующий блок, если текущий прочитан; false в конце потока
+    private boolean fill() throws IOException {
+        while (position == current.length) {
+            if (finished) {
+                return false;
+            }
+            try {
+                current = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Чтение прервано");
+            }
+            position = 0;
+            if (current == END) {
+                finished = true;
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void readAhead(int blockSize) {
+        try {
+            while (true) {
+                byte[] block = source.readNBytes(blockSize);
+                if (block.length == 0) {
+                    break;
+                }
+                blocks.put(block);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            // Поток закрыт читателем, дочитывать не нужно
+            return;
+        }
+        try {
+            blocks.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,22 +1,32 @@
 package backend.academy;
 
+import java.math.BigDecimal;
 import java.text.DecimalFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 import java.util.function.BiConsumer;
 
 public class ReportFormatter {
     private final String format;
+    private final List<Double> percentiles;
 
     // Константы для форматирования
     private static final DecimalFormat NUMBER_FORMAT = new DecimalFormat("#,###");
     private static final DateTimeFormatter OUTPUT_DATE_FORMATTER =
         DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm:ss", Locale.ENGLISH);
+    private static final DateTimeFormatter BUCKET_MINUTE_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter BUCKET_SECOND_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
 
     private static final String COLUMN_SEPARATOR = " | ";
     private static final String ROW_START = "| ";
     // Константы для таблиц Markdown
     private static final String MARKDOWN_TABLE_HEADER = "|:------------------------|--------------------------:|\n";
+    private static final String MARKDOWN_EXTRA_COLUMN = "----------:|";
     private static final String MARKDOWN_ROW_END = " |\n";
     private static final String MARKDOWN_FORMAT = "markdown";
 
@@ -28,12 +38,29 @@ public class ReportFormatter {
 
     // Magic numbers
     private static final int TOP_RESOURCES_LIMIT = 10;
+    private static final List<Double> DEFAULT_PERCENTILES = List.of(95.0);
     private static final int BYTES_IN_KILOBYTE = 1024;
     private static final int BYTES_IN_MEGABYTE = BYTES_IN_KILOBYTE * BYTES_IN_KILOBYTE;
     private static final int BYTES_IN_GIGABYTE = BYTES_IN_KILOBYTE * BYTES_IN_MEGABYTE;
+    private static final long MILLIS_IN_SECOND = 1000;
+    private static final long MILLIS_IN_MINUTE = 60 * MILLIS_IN_SECOND;
+    private static final long MILLIS_IN_HOUR = 60 * MILLIS_IN_MINUTE;
+    private static final int FIRST_STATUS_CLASS = 2;
+    private static final int LAST_STATUS_CLASS = 5;
 
     public ReportFormatter(String format) {
+        this(format, DEFAULT_PERCENTILES);
+    }
+
+    /**
+     * Создает форматтер, выводящий заданные перцентили размера ответа.
+     *
+     * @param format      Формат отчета (markdown или adoc)
+     * @param percentiles Перцентили в интервале (0, 100], например 50, 99 и 99.9
+     */
+    public ReportFormatter(String format, List<Double> percentiles) {
         this.format = format.toLowerCase();
+        this.percentiles = List.copyOf(percentiles);
     }
 
     public String formatReport(StatisticsCollector stats, String path, String from, String to) {
@@ -64,12 +91,19 @@ public class ReportFormatter {
         appendRow(report, tableFormatter, "Конечная дата", (to != null) ? to : "-");
         appendRow(report, tableFormatter, "Количество запросов", NUMBER_FORMAT.format(stats.getTotalRequests()));
         appendRow(report, tableFormatter, "Средний размер ответа", formatSize(stats.getAverageResponseSize()));
-        appendRow(report, tableFormatter, "95-й перцентиль размера ответа",
-            formatSize(stats.getPercentile95ResponseSize()));
+        String percentileSuffix = stats.isPercentileExact() ? "" : " (приблизительно)";
+        for (double percentile : percentiles) {
+            appendRow(report, tableFormatter,
+                formatPercentile(percentile) + "-й перцентиль размера ответа" + percentileSuffix,
+                formatSize(stats.getPercentileResponseSize(percentile)));
+        }
         tableFormatter.accept(report, null);
 
         report.append(formatHeader("Запрашиваемые ресурсы"));
-        tableFormatter.accept(report, "Ресурс | Количество");
+        String resourceCountHeader = stats.isTopResourcesExact() ? "Количество"
+            : "Количество (приблизительно, завышено не более чем на "
+            + NUMBER_FORMAT.format(stats.getTopResourcesErrorBound()) + ")";
+        tableFormatter.accept(report, "Ресурс | " + resourceCountHeader);
         stats.getTopResources(TOP_RESOURCES_LIMIT)
             .forEach((resource, count) -> appendRow(report, tableFormatter, "`" + resource + "`",
                 NUMBER_FORMAT.format(count)));
@@ -81,6 +115,35 @@ public class ReportFormatter {
             .forEach((status, count) -> appendRow(report, tableFormatter, String.valueOf(status),
                 NUMBER_FORMAT.format(count)));
         tableFormatter.accept(report, null);
+
+        TimeHistogram histogram = stats.getTimeHistogram();
+        if (histogram != null && histogram.getBucketCount() > 0) {
+            formatTimeHistogram(report, histogram, tableFormatter);
+        }
+    }
+
+    // Все интервалы от первого запроса до последнего, включая пустые, чтобы была видна форма нагрузки
+    private void formatTimeHistogram(StringBuilder report, TimeHistogram histogram,
+        BiConsumer<StringBuilder, String> tableFormatter) {
+        long width = histogram.getWidthMillis();
+        DateTimeFormatter startFormatter = width % MILLIS_IN_MINUTE == 0 ? BUCKET_MINUTE_FORMATTER
+            : BUCKET_SECOND_FORMATTER;
+        report.append(formatHeader("Запросы по времени (интервал " + formatWidth(width) + ")"));
+        tableFormatter.accept(report, "Начало интервала (UTC) | Запросы | Объем ответов | 2xx | 3xx | 4xx | 5xx");
+        StringBuilder columns = new StringBuilder();
+        for (int bucket = 0; bucket < histogram.getBucketCount(); bucket++) {
+            columns.setLength(0);
+            columns.append(NUMBER_FORMAT.format(histogram.getRequests(bucket)))
+                .append(COLUMN_SEPARATOR).append(formatSize(histogram.getBytes(bucket)));
+            for (int statusClass = FIRST_STATUS_CLASS; statusClass <= LAST_STATUS_CLASS; statusClass++) {
+                columns.append(COLUMN_SEPARATOR)
+                    .append(NUMBER_FORMAT.format(histogram.getStatusClassCount(bucket, statusClass)));
+            }
+            appendRow(report, tableFormatter,
+                startFormatter.format(Instant.ofEpochMilli(histogram.getBucketStartMillis(bucket))),
+                columns.toString());
+        }
+        tableFormatter.accept(report, null);
     }
 
     private String formatHeader(String title) {
@@ -90,7 +153,10 @@ public class ReportFormatter {
     private void formatMarkdownTable(StringBuilder report, String header) {
         if (header != null) {
             report.append("| ").append(header).append(MARKDOWN_ROW_END);
-            report.append(MARKDOWN_TABLE_HEADER);
+            // Разделитель для двух колонок, дополненный колонками сверх второй
+            int extraColumns = header.split("\\|", -1).length - 2;
+            report.append(MARKDOWN_TABLE_HEADER, 0, MARKDOWN_TABLE_HEADER.length() - 1)
+                .append(MARKDOWN_EXTRA_COLUMN.repeat(extraColumns)).append('\n');
         }
     }
 
@@ -112,6 +178,21 @@ public class ReportFormatter {
         }
     }
 
+    private String formatPercentile(double percentile) {
+        return BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString();
+    }
+
+    private String formatWidth(long widthMillis) {
+        if (widthMillis % MILLIS_IN_HOUR == 0) {
+            return widthMillis / MILLIS_IN_HOUR + " ч";
+        } else if (widthMillis % MILLIS_IN_MINUTE == 0) {
+            return widthMillis / MILLIS_IN_MINUTE + " мин";
+        } else if (widthMillis % MILLIS_IN_SECOND == 0) {
+            return widthMillis / MILLIS_IN_SECOND + " с";
+        }
+        return widthMillis + " мс";
+    }
+
     private String formatSize(double sizeInBytes) {
         if (sizeInBytes < BYTES_IN_KILOBYTE) {
             return String.format("%.0f B", sizeInBytes);
@@ -0,0 +1,160 @@
+package backend.academy;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Границы частей строки запроса ({@code METHOD /path?query PROTOCOL}) внутри другой строки.
+ *
+ * <p>Методы только ищут смещения и не создают подстрок, поэтому одинаково подходят
+ * для разобранной записи и для проверки фильтром прямо в строке лога.
+ * Метод и ресурс выделяются так же, как раньше через {@code request.split(" ")}:
+ * метод - до первого пробела, ресурс - от него до следующего пробела.
+ * Протокол - часть после последнего пробела, если она идет после ресурса.
+ * Для строки лога в байтах UTF-8 те же методы принимают массив байт и возвращают смещения в нем.
+ */
+@UtilityClass
+public class RequestLine {
+    private static final char SEPARATOR = ' ';
+    private static final char QUERY_SEPARATOR = '?';
+
+    /**
+     * Конец метода запроса.
+     *
+     * @param text  Строка, содержащая запрос
+     * @param start Индекс начала запроса (включительно)
+     * @param end   Индекс конца запроса (не включительно)
+     * @return Индекс первого пробела или {@code end}
+     */
+    public static int methodEnd(String text, int start, int end) {
+        return indexOf(text, SEPARATOR, start, end);
+    }
+
+    /**
+     * Начало ресурса запроса.
+     *
+     * @param text  Строка, содержащая запрос
+     * @param start Индекс начала запроса (включительно)
+     * @param end   Индекс конца запроса (не включительно)
+     * @return Индекс символа после первого пробела или {@code end}, если пробела нет
+     */
+    public static int resourceStart(String text, int start, int end) {
+        return Math.min(methodEnd(text, start, end) + 1, end);
+    }
+
+    /**
+     * Конец ресурса запроса.
+     *
+     * @param text          Строка, содержащая запрос
+     * @param resourceStart Индекс начала ресурса
+     * @param end           Индекс конца запроса (не включительно)
+     * @return Индекс пробела после ресурса или {@code end}
+     */
+    public static int resourceEnd(String text, int resourceStart, int end) {
+        return indexOf(text, SEPARATOR, resourceStart, end);
+    }
+
+    /**
+     * Конец пути - части ресурса до строки параметров.
+     *
+     * @param text          Строка, содержащая запрос
+     * @param resourceStart Индекс начала ресурса
+     * @param resourceEnd   Индекс конца ресурса
+     * @return Индекс символа {@code ?} или {@code resourceEnd}, если параметров нет
+     */
+    public static int pathEnd(String text, int resourceStart, int resourceEnd) {
+        return indexOf(text, QUERY_SEPARATOR, resourceStart, resourceEnd);
+    }
+
+    /**
+     * Начало протокола запроса.
+     *
+     * @param text        Строка, содержащая запрос
+     * @param resourceEnd Индекс конца ресурса
+     * @param end         Индекс конца запроса (не включительно)
+     * @return Индекс символа после последнего пробела или {@code end}, если после ресурса пробелов нет
+     */
+    public static int protocolStart(String text, int resourceEnd, int end) {
+        if (resourceEnd >= end) {
+            return end;
+        }
+        return text.lastIndexOf(SEPARATOR, end - 1) + 1;
+    }
+
+    /**
+     * Конец метода запроса в массиве байт.
+     *
+     * @param bytes Массив байт, содержащий запрос
+     * @param start Смещение начала запроса (включительно)
+     * @param end   Смещение конца запроса (не включительно)
+     * @return Смещение первого пробела или {@code end}
+     */
+    public static int methodEnd(byte[] bytes, int start, int end) {
+        return indexOf(bytes, SEPARATOR, start, end);
+    }
+
+    /**
+     * Начало ресурса запроса в массиве байт.
+     *
+     * @param bytes Массив байт, содержащий запрос
+     * @param start Смещение начала запроса (включительно)
+     * @param end   Смещение конца запроса (не включительно)
+     * @return Смещение после первого пробела или {@code end}, если пробела нет
+     */
+    public static int resourceStart(byte[] bytes, int start, int end) {
+        return Math.min(methodEnd(bytes, start, end) + 1, end);
+    }
+
+    /**
+     * Конец ресурса запроса в массиве байт.
+     *
+     * @param bytes         Массив байт, содержащий запрос
+     * @param resourceStart Смещение начала ресурса
+     * @param end           Смещение конца запроса (не включительно)
+     * @return Смещение пробела после ресурса или {@code end}
+     */
+    public static int resourceEnd(byte[] bytes, int resourceStart, int end) {
+        return indexOf(bytes, SEPARATOR, resourceStart, end);
+    }
+
+    /**
+     * Конец пути в массиве байт.
+     *
+     * @param bytes         Массив байт, содержащий запрос
+     * @param resourceStart Смещение начала ресурса
+     * @param resourceEnd   Смещение конца ресурса
+     * @return Смещение символа {@code ?} или {@code resourceEnd}, если параметров нет
+     */
+    public static int pathEnd(byte[] bytes, int resourceStart, int resourceEnd) {
+        return indexOf(bytes, QUERY_SEPARATOR, resourceStart, resourceEnd);
+    }
+
+    /**
+     * Начало протокола запроса в массиве байт.
+     *
+     * @param bytes       Массив байт, содержащий запрос
+     * @param resourceEnd Смещение конца ресурса
+     * @param end         Смещение конца запроса (не включительно)
+     * @return Смещение после последнего пробела или {@code end}, если после ресурса пробелов нет
+     */
+    public static int protocolStart(byte[] bytes, int resourceEnd, int end) {
+        int pos = end;
+        while (pos > resourceEnd && bytes[pos - 1] != SEPARATOR) {
+            pos--;
+        }
+        return pos;
+    }
+
+    private static int indexOf(byte[] bytes, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int indexOf(String text, char c, int start, int end) {
+        int index = text.indexOf(c, start);
+        return index >= 0 && index < end ? index : end;
+    }
+}
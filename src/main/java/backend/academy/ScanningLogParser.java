@@ -0,0 +1,369 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Парсер строк лога в формате combined без регулярных выражений.
+ *
+ * <p>Строка проходится один раз слева направо, границы полей ищутся по разделителям
+ * (пробел, {@code [}, {@code ]}, {@code "}). Грамматика совпадает с {@link LogParser#parse(String)}:
+ * на любой строке результат (или исключение) такой же, как у парсера на регулярном выражении.
+ *
+ * <p>Строку, заданную байтами UTF-8, парсер разбирает без декодирования: все разделители
+ * и символы, по которым проверяется формат, - ASCII, а байты многобайтовых символов UTF-8
+ * с ними не совпадают. В строки декодируются только поля, к которым потом обращаются.
+ */
+public class ScanningLogParser extends LogParser {
+    private static final String USER_PREFIX = " - ";
+    private static final String TIME_PREFIX = " [";
+    private static final String REQUEST_PREFIX = "] \"";
+    private static final String STATUS_PREFIX = "\" ";
+    private static final String QUOTED_PREFIX = " \"";
+    private static final String AGENT_PREFIX = "\" \"";
+    private static final int STATUS_LENGTH = 3;
+    private static final int DECIMAL_RADIX = 10;
+    private static final char VERTICAL_TAB = 0x0B;
+
+    /**
+     * Парсит строку лога за один проход и применяет фильтр до создания записи.
+     * Результат - {@link LazyLogRecord}, подстроки полей создаются только при обращении к ним.
+     *
+     * @param logLine Строка лога
+     * @param filter  Фильтр записей
+     * @return Объект LogRecord или null, если запись не прошла фильтр
+     * @throws Exception Если строка не соответствует ожидаемому формату
+     */
+    @Override
+    public LogRecord parse(String logLine, LogRecordFilter filter) throws Exception {
+        return parse(logLine, filter, new LazyLogRecord());
+    }
+
+    /**
+     * Парсит строку лога за один проход в переданную запись без создания объектов.
+     *
+     * @param logLine Строка лога
+     * @param filter  Фильтр записей
+     * @param reuse   Запись, которая заполняется результатом разбора
+     * @return {@code reuse} или null, если запись не прошла фильтр
+     * @throws Exception Если строка не соответствует ожидаемому формату
+     */
+    @Override
+    public LogRecord parse(String logLine, LogRecordFilter filter, LazyLogRecord reuse) throws Exception {
+        int ipEnd = skipIpChars(logLine, 0);
+        requireNotEmpty(logLine, 0, ipEnd);
+        requireLiteral(logLine, ipEnd, USER_PREFIX);
+
+        int userStart = ipEnd + USER_PREFIX.length();
+        int userEnd = skipNonWhitespace(logLine, userStart);
+        requireNotEmpty(logLine, userStart, userEnd);
+        requireLiteral(logLine, userEnd, TIME_PREFIX);
+
+        int timeStart = userEnd + TIME_PREFIX.length();
+        int timeEnd = indexOfOrFail(logLine, ']', timeStart);
+        requireNotEmpty(logLine, timeStart, timeEnd);
+        requireLiteral(logLine, timeEnd, REQUEST_PREFIX);
+
+        int requestStart = timeEnd + REQUEST_PREFIX.length();
+        int requestEnd = indexOfOrFail(logLine, '"', requestStart);
+        requireNotEmpty(logLine, requestStart, requestEnd);
+        requireLiteral(logLine, requestEnd, STATUS_PREFIX);
+
+        int statusStart = requestEnd + STATUS_PREFIX.length();
+        int statusEnd = skipDigits(logLine, statusStart);
+        if (statusEnd - statusStart != STATUS_LENGTH || !logLine.startsWith(" ", statusEnd)) {
+            throw invalidFormat(logLine);
+        }
+
+        int sizeStart = statusEnd + 1;
+        int sizeEnd = skipDigits(logLine, sizeStart);
+        requireNotEmpty(logLine, sizeStart, sizeEnd);
+        requireLiteral(logLine, sizeEnd, QUOTED_PREFIX);
+
+        int refererStart = sizeEnd + QUOTED_PREFIX.length();
+        int refererEnd = indexOfOrFail(logLine, '"', refererStart);
+        requireLiteral(logLine, refererEnd, AGENT_PREFIX);
+
+        int agentStart = refererEnd + AGENT_PREFIX.length();
+        int agentEnd = indexOfOrFail(logLine, '"', agentStart);
+
+        long timeMillis = decodeTime(logLine, timeStart, timeEnd);
+        int status = Integer.parseInt(logLine, statusStart, statusEnd, DECIMAL_RADIX);
+        if (!filter.testTime(timeMillis)) {
+            return null;
+        }
+        if (filter.getField() != null) {
+            boolean accepted = switch (filter.getField()) {
+                case AGENT -> filter.testValue(logLine, agentStart, agentEnd);
+                case METHOD, RESOURCE, PATH, QUERY, PROTOCOL -> filter.testRequest(logLine, requestStart, requestEnd);
+                case STATUS -> filter.testStatus(status);
+                case IP -> filter.testValue(logLine, 0, ipEnd);
+                case USER -> filter.testValue(logLine, userStart, userEnd);
+            };
+            if (!accepted) {
+                return null;
+            }
+        }
+
+        return reuse.setLine(logLine)
+            .setIp(0, ipEnd)
+            .setUser(userStart, userEnd)
+            .setTimeMillis(timeMillis)
+            .setRequest(requestStart, requestEnd)
+            .setStatus(status)
+            .setSize(Integer.parseInt(logLine, sizeStart, sizeEnd, DECIMAL_RADIX))
+            .setReferer(refererStart, refererEnd)
+            .setAgent(agentStart, agentEnd);
+    }
+
+    /**
+     * Парсит строку лога в байтах UTF-8 за один проход без декодирования строки.
+     *
+     * @param line   Массив байт, содержащий строку
+     * @param start  Смещение начала строки (включительно)
+     * @param end    Смещение конца строки без перевода строки (не включительно)
+     * @param filter Фильтр записей
+     * @param reuse  Запись, которая заполняется результатом разбора
+     * @return {@code reuse} или null, если запись не прошла фильтр
+     * @throws Exception Если строка не соответствует ожидаемому формату
+     */
+    @Override
+    public LogRecord parse(byte[] line, int start, int end, LogRecordFilter filter, LazyLogRecord reuse)
+        throws Exception {
+        int ipEnd = skipIpBytes(line, start, end);
+        requireNotEmpty(line, start, end, start, ipEnd);
+        requireLiteral(line, start, end, ipEnd, USER_PREFIX);
+
+        int userStart = ipEnd + USER_PREFIX.length();
+        int userEnd = skipNonWhitespace(line, userStart, end);
+        requireNotEmpty(line, start, end, userStart, userEnd);
+        requireLiteral(line, start, end, userEnd, TIME_PREFIX);
+
+        int timeStart = userEnd + TIME_PREFIX.length();
+        int timeEnd = indexOfOrFail(line, start, end, ']', timeStart);
+        requireNotEmpty(line, start, end, timeStart, timeEnd);
+        requireLiteral(line, start, end, timeEnd, REQUEST_PREFIX);
+
+        int requestStart = timeEnd + REQUEST_PREFIX.length();
+        int requestEnd = indexOfOrFail(line, start, end, '"', requestStart);
+        requireNotEmpty(line, start, end, requestStart, requestEnd);
+        requireLiteral(line, start, end, requestEnd, STATUS_PREFIX);
+
+        int statusStart = requestEnd + STATUS_PREFIX.length();
+        int statusEnd = skipDigits(line, statusStart, end);
+        if (statusEnd - statusStart != STATUS_LENGTH || statusEnd >= end || line[statusEnd] != ' ') {
+            throw invalidFormat(line, start, end);
+        }
+
+        int sizeStart = statusEnd + 1;
+        int sizeEnd = skipDigits(line, sizeStart, end);
+        requireNotEmpty(line, start, end, sizeStart, sizeEnd);
+        requireLiteral(line, start, end, sizeEnd, QUOTED_PREFIX);
+
+        int refererStart = sizeEnd + QUOTED_PREFIX.length();
+        int refererEnd = indexOfOrFail(line, start, end, '"', refererStart);
+        requireLiteral(line, start, end, refererEnd, AGENT_PREFIX);
+
+        int agentStart = refererEnd + AGENT_PREFIX.length();
+        int agentEnd = indexOfOrFail(line, start, end, '"', agentStart);
+
+        long timeMillis = decodeTime(line, timeStart, timeEnd);
+        int status = parseDigits(line, statusStart, statusEnd);
+        if (!filter.testTime(timeMillis)) {
+            return null;
+        }
+        if (filter.getField() != null) {
+            // Фильтр по полю проверяет строки, поэтому декодируется только проверяемое поле
+            boolean accepted = switch (filter.getField()) {
+                case AGENT -> testValue(filter, line, agentStart, agentEnd);
+                case METHOD, RESOURCE, PATH, QUERY, PROTOCOL -> {
+                    String request = decode(line, requestStart, requestEnd);
+                    yield filter.testRequest(request, 0, request.length());
+                }
+                case STATUS -> filter.testStatus(status);
+                case IP -> testValue(filter, line, start, ipEnd);
+                case USER -> testValue(filter, line, userStart, userEnd);
+            };
+            if (!accepted) {
+                return null;
+            }
+        }
+
+        return reuse.setLine(line)
+            .setIp(start, ipEnd)
+            .setUser(userStart, userEnd)
+            .setTimeMillis(timeMillis)
+            .setRequest(requestStart, requestEnd)
+            .setStatus(status)
+            .setSize(parseDigits(line, sizeStart, sizeEnd))
+            .setReferer(refererStart, refererEnd)
+            .setAgent(agentStart, agentEnd);
+    }
+
+    private static boolean testValue(LogRecordFilter filter, byte[] line, int start, int end) {
+        String value = decode(line, start, end);
+        return filter.testValue(value, 0, value.length());
+    }
+
+    private static String decode(byte[] line, int start, int end) {
+        return new String(line, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static int skipIpBytes(byte[] line, int from, int end) {
+        int pos = from;
+        while (pos < end && isIpChar((char) line[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipNonWhitespace(byte[] line, int from, int end) {
+        int pos = from;
+        while (pos < end && !isRegexWhitespace((char) line[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipDigits(byte[] line, int from, int end) {
+        int pos = from;
+        while (pos < end && isDigit((char) line[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    // Десятичное число из цифр ASCII; переполнение - такая же ошибка, как у Integer.parseInt
+    private static int parseDigits(byte[] line, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * DECIMAL_RADIX + (line[i] - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Число вне диапазона int: " + decode(line, start, end));
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Находит первый разделитель в части строки в байтах. Так ищутся концы длинных полей:
+     * времени и полей в кавычках; {@link VectorLogParser} ищет их векторными инструкциями.
+     *
+     * @param line      Массив байт, содержащий строку
+     * @param from      Смещение начала поиска (включительно)
+     * @param end       Смещение конца строки (не включительно)
+     * @param delimiter Разделитель ({@code ]} или {@code "})
+     * @return Смещение разделителя или -1, если его нет
+     */
+    protected int indexOf(byte[] line, int from, int end, byte delimiter) {
+        for (int i = from; i < end; i++) {
+            if (line[i] == delimiter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfOrFail(byte[] line, int lineStart, int lineEnd, char delimiter, int from)
+        throws Exception {
+        int index = indexOf(line, from, lineEnd, (byte) delimiter);
+        if (index < 0) {
+            throw invalidFormat(line, lineStart, lineEnd);
+        }
+        return index;
+    }
+
+    private static void requireNotEmpty(byte[] line, int lineStart, int lineEnd, int start, int end)
+        throws Exception {
+        if (end <= start) {
+            throw invalidFormat(line, lineStart, lineEnd);
+        }
+    }
+
+    private static void requireLiteral(byte[] line, int lineStart, int lineEnd, int pos, String literal)
+        throws Exception {
+        if (pos + literal.length() > lineEnd) {
+            throw invalidFormat(line, lineStart, lineEnd);
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (line[pos + i] != literal.charAt(i)) {
+                throw invalidFormat(line, lineStart, lineEnd);
+            }
+        }
+    }
+
+    private static Exception invalidFormat(byte[] line, int start, int end) {
+        return new Exception(INVALID_FORMAT_MESSAGE + decode(line, start, end));
+    }
+
+    // Символы адреса клиента: то же, что [\w:.] в LOG_PATTERN
+    private static int skipIpChars(String line, int from) {
+        int pos = from;
+        while (pos < line.length() && isIpChar(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isIpChar(char c) {
+        return switch (c) {
+            case '_', ':', '.' -> true;
+            default -> isAsciiLetter(c) || isDigit(c);
+        };
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    // Пропуск непробельных символов: то же, что \S в LOG_PATTERN
+    private static int skipNonWhitespace(String line, int from) {
+        int pos = from;
+        while (pos < line.length() && !isRegexWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return switch (c) {
+            case ' ', '\t', '\n', VERTICAL_TAB, '\f', '\r' -> true;
+            default -> false;
+        };
+    }
+
+    private static int skipDigits(String line, int from) {
+        int pos = from;
+        while (pos < line.length() && isDigit(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int indexOfOrFail(String line, char delimiter, int from) throws Exception {
+        int index = line.indexOf(delimiter, from);
+        if (index < 0) {
+            throw invalidFormat(line);
+        }
+        return index;
+    }
+
+    private static void requireNotEmpty(String line, int start, int end) throws Exception {
+        if (end <= start) {
+            throw invalidFormat(line);
+        }
+    }
+
+    private static void requireLiteral(String line, int pos, String literal) throws Exception {
+        if (!line.startsWith(literal, pos)) {
+            throw invalidFormat(line);
+        }
+    }
+
+    private static Exception invalidFormat(String line) {
+        return new Exception(INVALID_FORMAT_MESSAGE + line);
+    }
+}
@@ -0,0 +1,132 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Чтение представления, записанного {@link SnapshotWriter}, прямо из массива байт.
+ * Любое несоответствие формату (выход за границы, слишком длинное число) - {@link IOException}.
+ */
+final class SnapshotReader {
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    private SnapshotReader(byte[] data, int limit) {
+        this.data = data;
+        this.limit = limit;
+    }
+
+    /**
+     * Проверяет контрольную сумму, записанную {@link SnapshotWriter#toSealedArray()},
+     * и создает чтение данных перед ней.
+     *
+     * @param data Байты с контрольной суммой в конце
+     * @return Чтение данных
+     * @throws IOException Если контрольная сумма не совпала
+     */
+    static SnapshotReader unseal(byte[] data) throws IOException {
+        int payload = data.length - Integer.BYTES;
+        if (payload < 0) {
+            throw new IOException("Данные обрезаны");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, payload);
+        SnapshotReader checksum = new SnapshotReader(data, data.length);
+        checksum.position = payload;
+        if (checksum.readInt() != (int) crc.getValue()) {
+            throw new IOException("Контрольная сумма не совпадает: данные повреждены");
+        }
+        return new SnapshotReader(data, payload);
+    }
+
+    int readByte() throws IOException {
+        require(1);
+        return data[position++] & BYTE_MASK;
+    }
+
+    int readInt() throws IOException {
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = (value << Byte.SIZE) | readByte();
+        }
+        return value;
+    }
+
+    long readLong() throws IOException {
+        return ((long) readInt() << Integer.SIZE) | (readInt() & 0xFFFF_FFFFL);
+    }
+
+    double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VARINT_PAYLOAD_BITS) {
+            int next = readByte();
+            value |= (long) (next & VARINT_PAYLOAD_MASK) << shift;
+            if ((next & VARINT_CONTINUATION) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Слишком длинное число в позиции " + position);
+    }
+
+    long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Читает неотрицательное число, не превышающее {@code max}, например размер коллекции.
+     *
+     * @param max Наибольшее допустимое значение
+     * @return Число
+     * @throws IOException Если число больше {@code max}
+     */
+    int readVarInt(int max) throws IOException {
+        long value = readVarLong();
+        if (value < 0 || value > max) {
+            throw new IOException("Некорректное значение " + value + " в позиции " + position);
+        }
+        return (int) value;
+    }
+
+    String readString() throws IOException {
+        int length = readVarInt(limit - position);
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    String readString(String previous) throws IOException {
+        int common = readVarInt(previous.length());
+        return previous.substring(0, common) + readString();
+    }
+
+    void readCounts(long[] counts) throws IOException {
+        int nonZero = readVarInt(counts.length);
+        int index = 0;
+        for (int i = 0; i < nonZero; i++) {
+            index += readVarInt(counts.length - 1 - index);
+            counts[index] = readVarLong();
+        }
+    }
+
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    private void require(int bytes) throws IOException {
+        if (position + bytes > limit) {
+            throw new IOException("Данные обрезаны в позиции " + position);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Запись компактного двоичного представления в растущий массив.
+ *
+ * <p>Неотрицательные целые записываются переменной длиной (по 7 бит в байте, как varint в protobuf),
+ * поэтому небольшие счетчики занимают один-два байта; знаковые - через zigzag.
+ * Строки - длиной и байтами UTF-8. Отсортированные строки с общими префиксами (пути ресурсов)
+ * записываются только отличающимся окончанием.
+ */
+final class SnapshotWriter {
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private static final int BYTE_MASK = 0xFF;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    // Старшим байтом вперед
+    void writeInt(int value) {
+        for (int shift = Integer.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            writeByte((value >>> shift) & BYTE_MASK);
+        }
+    }
+
+    void writeLong(long value) {
+        writeInt((int) (value >>> Integer.SIZE));
+        writeInt((int) value);
+    }
+
+    void writeDouble(double value) {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Записывает неотрицательное число переменной длиной.
+     *
+     * @param value Число, которое рассматривается как беззнаковое
+     */
+    void writeVarLong(long value) {
+        ensureCapacity(Long.SIZE / VARINT_PAYLOAD_BITS + 1);
+        long remaining = value;
+        while ((remaining & ~VARINT_PAYLOAD_MASK) != 0) {
+            buffer[length++] = (byte) ((remaining & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION);
+            remaining >>>= VARINT_PAYLOAD_BITS;
+        }
+        buffer[length++] = (byte) remaining;
+    }
+
+    // Zigzag: числа, близкие к нулю, любого знака записываются коротко
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> (Long.SIZE - 1)));
+    }
+
+    void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Записывает строку относительно предыдущей: длину общего префикса и окончание.
+     * Для отсортированных ключей это сокращает общие части путей.
+     *
+     * @param previous Предыдущая записанная строка ({@code ""} для первой)
+     * @param value    Строка
+     */
+    void writeString(String previous, String value) {
+        int common = 0;
+        int limit = Math.min(previous.length(), value.length());
+        while (common < limit && previous.charAt(common) == value.charAt(common)) {
+            common++;
+        }
+        // Суррогатная пара не должна разделяться между префиксом и окончанием
+        if (common > 0 && Character.isHighSurrogate(value.charAt(common - 1))) {
+            common--;
+        }
+        writeVarLong(common);
+        writeString(value.substring(common));
+    }
+
+    // Ненулевые счетчики записываются парами: разность с предыдущим индексом и значение
+    void writeCounts(long[] counts) {
+        int nonZero = 0;
+        for (long count : counts) {
+            if (count != 0) {
+                nonZero++;
+            }
+        }
+        writeVarLong(nonZero);
+        int previous = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                writeVarLong(i - previous);
+                writeVarLong(counts[i]);
+                previous = i;
+            }
+        }
+    }
+
+    /**
+     * Возвращает записанные байты, дополненные контрольной суммой CRC32.
+     *
+     * @return Записанные байты и 4 байта контрольной суммы
+     */
+    byte[] toSealedArray() {
+        CRC32 crc = new CRC32();
+        crc.update(buffer, 0, length);
+        writeInt((int) crc.getValue());
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package backend.academy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Одновременное чтение множества источников строк (небольших файлов, URL), каждый в своем
+ * виртуальном потоке.
+ *
+ * <p>Чтение в основном ждет диска или сети, поэтому виртуальных потоков может быть сколько угодно,
+ * а разбор занимает процессор и выполняется в отдельном пуле из ограниченного числа обычных потоков.
+ * Источник передает строки пачками по {@link LinePipeline#BATCH_LINES}; пока разбирается одна пачка,
+ * читается следующая. Пачки одного источника разбираются по порядку.
+ *
+ * <p>Как в {@link LinePipeline}, у каждого потока разбора свой обработчик строк (например, со своим
+ * сборщиком статистики), поэтому обработчиков не больше, чем потоков разбора, сколько бы ни было
+ * источников, и обработчик не обязан быть потокобезопасным.
+ *
+ * <p>Одновременно открыто не больше {@link #MAX_OPEN_SOURCES} источников, чтобы каталог из
+ * тысяч файлов не исчерпал лимит открытых файлов.
+ */
+final class SourceFanOut implements AutoCloseable {
+    /**
+     * Наибольшее количество одновременно читаемых источников.
+     */
+    static final int MAX_OPEN_SOURCES = 256;
+
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService parsers;
+    private final Semaphore openSources = new Semaphore(MAX_OPEN_SOURCES);
+    private final List<Future<?>> sources = new ArrayList<>();
+    private final ThreadLocal<Consumer<String>> workers;
+
+    /**
+     * Создает пул для разбора строк.
+     *
+     * @param parseThreads  Количество потоков разбора
+     * @param workerFactory Создает обработчик строк для каждого потока разбора; вызывается в этом потоке
+     *                      при первой пачке, поэтому должен быть потокобезопасным
+     */
+    SourceFanOut(int parseThreads, Supplier<Consumer<String>> workerFactory) {
+        if (parseThreads < 1) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + parseThreads);
+        }
+        this.parsers = Executors.newFixedThreadPool(parseThreads);
+        this.workers = ThreadLocal.withInitial(workerFactory);
+    }
+
+    /**
+     * Запускает чтение источника в новом виртуальном потоке.
+     *
+     * @param source Читает строки источника и передает их в полученный обработчик
+     */
+    void submit(Consumer<Consumer<String>> source) {
+        sources.add(readers.submit(() -> {
+            openSources.acquire();
+            try {
+                SourceLines lines = new SourceLines();
+                source.accept(lines);
+                lines.finish();
+            } finally {
+                openSources.release();
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Дожидается, пока все источники будут прочитаны и разобраны, и останавливает потоки.
+     *
+     * @throws IllegalStateException Если чтение или разбор завершились ошибкой или ожидание было прервано
+     */
+    @Override
+    public void close() {
+        try {
+            for (Future<?> source : sources) {
+                source.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание источников прервано", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка при чтении источника", e.getCause());
+        } finally {
+            readers.shutdownNow();
+            parsers.shutdownNow();
+        }
+    }
+
+    // Собирает строки источника в пачки; следующая пачка передается на разбор после предыдущей
+    private final class SourceLines implements Consumer<String> {
+        private List<String> batch = new ArrayList<>();
+        private Future<?> pending;
+
+        @Override
+        public void accept(String line) {
+            batch.add(line);
+            if (batch.size() == LinePipeline.BATCH_LINES) {
+                flush();
+            }
+        }
+
+        private void finish() {
+            if (!batch.isEmpty()) {
+                flush();
+            }
+            awaitPending();
+        }
+
+        private void flush() {
+            awaitPending();
+            List<String> lines = batch;
+            batch = new ArrayList<>(LinePipeline.BATCH_LINES);
+            pending = parsers.submit(() -> lines.forEach(workers.get()));
+        }
+
+        private void awaitPending() {
+            if (pending == null) {
+                return;
+            }
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Чтение прервано", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ошибка при разборе строк", e.getCause());
+            }
+            pending = null;
+        }
+    }
+}
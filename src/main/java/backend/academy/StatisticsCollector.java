@@ -1,58 +1,286 @@
 package backend.academy;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenCustomHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Objects;
 
 public class StatisticsCollector {
-    private static final double PERCENTILE_95 = 0.95;
+    private static final double PERCENTILE_95 = 95;
+    private static final double PERCENT = 100;
 
-    private int totalRequests = 0;
+    /**
+     * Относительная погрешность перцентилей после перехода на потоковую оценку.
+     */
+    public static final double PERCENTILE_ACCURACY = 0.01;
+
+    // Пока размеров не больше этого количества, перцентили считаются точно
+    static final int EXACT_PERCENTILE_LIMIT = 100_000;
+
+    // Коды ответа в логе всегда трехзначные, поэтому помещаются в плоский массив
+    private static final int STATUS_CODE_LIMIT = 1000;
+
+    private long totalRequests = 0;
     private long totalResponseSize = 0;
-    private List<Integer> responseSizes = new ArrayList<>();
+    // Точные размеры ответов; null, если их стало больше EXACT_PERCENTILE_LIMIT
+    private IntArrayList responseSizes = new IntArrayList();
+    private boolean responseSizesSorted = true;
+    private final QuantileSketch responseSizeSketch = new QuantileSketch(PERCENTILE_ACCURACY);
 
-    private Map<String, AtomicInteger> resourceCount = new HashMap<>();
-    private Map<Integer, AtomicInteger> statusCount = new HashMap<>();
-    private Map<String, AtomicInteger> methodCount = new HashMap<>();
+    // Точные счетчики ресурсов; null в приблизительном режиме, где используется topResources.
+    // Ключи - строки, а поиск идет по содержимому, поэтому ресурс копируется только при первом появлении
+    private final Object2LongOpenCustomHashMap<CharSequence> resourceCount;
+    private final HeavyHitters topResources;
+    private final long[] statusCount = new long[STATUS_CODE_LIMIT];
+    private final long[] methodCount = new long[HttpMethod.count()];
+    // Нестандартные методы (например, WebDAV), которых нет в HttpMethod
+    private final Object2LongOpenHashMap<String> otherMethodCount = new Object2LongOpenHashMap<>();
 
-    private ZonedDateTime minDate = null;
-    private ZonedDateTime maxDate = null;
+    private long minTimeMillis = Long.MAX_VALUE;
+    private long maxTimeMillis = Long.MIN_VALUE;
+    // Распределение по времени; null, если не запрошено
+    private final TimeHistogram histogram;
+
+    /**
+     * Создает сборщик с точным подсчетом ресурсов.
+     */
+    public StatisticsCollector() {
+        this(0);
+    }
 
     /**
-     * Сбор данных из записи лога.
+     * Создает сборщик статистики.
+     *
+     * @param topResourcesCapacity Количество отслеживаемых ресурсов для приблизительного подсчета
+     *                             самых запрашиваемых ресурсов в ограниченной памяти; 0 - точный подсчет
+     */
+    public StatisticsCollector(int topResourcesCapacity) {
+        this(topResourcesCapacity, null);
+    }
+
+    /**
+     * Создает сборщик статистики с распределением запросов по интервалам времени.
+     *
+     * @param topResourcesCapacity Количество отслеживаемых ресурсов для приблизительного подсчета
+     *                             самых запрашиваемых ресурсов в ограниченной памяти; 0 - точный подсчет
+     * @param histogramWidth       Ширина интервала гистограммы по времени; null - без гистограммы
+     */
+    public StatisticsCollector(int topResourcesCapacity, Duration histogramWidth) {
+        if (topResourcesCapacity < 0) {
+            throw new IllegalArgumentException("Емкость не может быть отрицательной: " + topResourcesCapacity);
+        }
+        this.resourceCount = topResourcesCapacity == 0
+            ? new Object2LongOpenCustomHashMap<>(CharSequenceHashStrategy.INSTANCE) : null;
+        this.topResources = topResourcesCapacity == 0 ? null : new HeavyHitters(topResourcesCapacity);
+        this.histogram = histogramWidth == null ? null : new TimeHistogram(histogramWidth);
+    }
+
+    /**
+     * Создает пустой сборщик с теми же настройками, например для отдельного рабочего потока.
+     *
+     * @return Новый сборщик
+     */
+    public StatisticsCollector createShard() {
+        return new StatisticsCollector(topResourcesCapacity(), histogramWidth());
+    }
+
+    /**
+     * Сбор данных из записи лога. Запись не сохраняется, поэтому ее можно переиспользовать
+     * после возврата из метода.
      *
      * @param logEntry Запись лога
      */
     public void collect(LogRecord logEntry) {
         totalRequests++;
         totalResponseSize += logEntry.getSize();
-        responseSizes.add(logEntry.getSize());
+        addResponseSize(logEntry.getSize());
 
-        String resource = logEntry.getRequestResource();
-        resourceCount.computeIfAbsent(resource, k -> new AtomicInteger(0)).incrementAndGet();
+        CharSequence resource = logEntry.getRequestResourceChars();
+        if (resourceCount != null) {
+            increment(resourceCount, resource);
+        } else {
+            topResources.add(resource, 1);
+        }
+        statusCount[logEntry.getStatus()]++;
 
-        int status = logEntry.getStatus();
-        statusCount.computeIfAbsent(status, k -> new AtomicInteger(0)).incrementAndGet();
+        HttpMethod method = logEntry.getHttpMethod();
+        if (method != null) {
+            methodCount[method.ordinal()]++;
+        } else {
+            otherMethodCount.addTo(logEntry.getRequestMethod(), 1);
+        }
 
-        String method = logEntry.getRequestMethod();
-        methodCount.computeIfAbsent(method, k -> new AtomicInteger(0)).incrementAndGet();
+        long recordTime = logEntry.getTimeMillis();
+        minTimeMillis = Math.min(minTimeMillis, recordTime);
+        maxTimeMillis = Math.max(maxTimeMillis, recordTime);
+        if (histogram != null) {
+            histogram.add(recordTime, logEntry.getSize(), logEntry.getStatus());
+        }
+    }
 
-        ZonedDateTime recordTime = logEntry.getTime();
-        if (minDate == null || recordTime.isBefore(minDate)) {
-            minDate = recordTime;
+    /**
+     * Добавляет к текущей статистике данные другого сборщика.
+     * Используется для объединения частичных результатов, собранных в разных потоках.
+     *
+     * @param other Сборщик, данные которого добавляются к текущему
+     */
+    public void merge(StatisticsCollector other) {
+        if (!isCompatible(other)) {
+            throw new IllegalArgumentException(
+                "Нельзя объединить сборщики с разным подсчетом ресурсов или разной гистограммой по времени");
         }
-        if (maxDate == null || recordTime.isAfter(maxDate)) {
-            maxDate = recordTime;
+        totalRequests += other.totalRequests;
+        totalResponseSize += other.totalResponseSize;
+        responseSizeSketch.merge(other.responseSizeSketch);
+        if (responseSizes != null && other.responseSizes != null
+            && responseSizes.size() + other.responseSizes.size() <= EXACT_PERCENTILE_LIMIT) {
+            responseSizes.addAll(other.responseSizes);
+            responseSizesSorted = false;
+        } else {
+            responseSizes = null;
         }
+
+        if (resourceCount != null) {
+            mergeCounts(resourceCount, other.resourceCount);
+        } else {
+            topResources.merge(other.topResources);
+        }
+        mergeCounts(statusCount, other.statusCount);
+        mergeCounts(methodCount, other.methodCount);
+        mergeCounts(otherMethodCount, other.otherMethodCount);
+
+        minTimeMillis = Math.min(minTimeMillis, other.minTimeMillis);
+        maxTimeMillis = Math.max(maxTimeMillis, other.maxTimeMillis);
+        if (histogram != null) {
+            histogram.merge(other.histogram);
+        }
+    }
+
+    /**
+     * Показывает, можно ли объединить данные другого сборщика с текущими:
+     * ресурсы в обоих должны считаться точно или приблизительно с одной емкостью,
+     * а гистограммы по времени - отсутствовать или иметь одну исходную ширину интервала.
+     *
+     * @param other Другой сборщик
+     * @return true, если сборщики совместимы
+     */
+    public boolean isCompatible(StatisticsCollector other) {
+        return topResourcesCapacity() == other.topResourcesCapacity()
+            && Objects.equals(histogramWidth(), other.histogramWidth());
+    }
+
+    /**
+     * Записывает состояние сборщика (см. {@link StatisticsSnapshot}).
+     *
+     * @param out Запись снимка
+     */
+    void writeTo(SnapshotWriter out) {
+        out.writeVarLong(topResourcesCapacity());
+        out.writeVarLong(histogram == null ? 0 : histogram.getBaseWidthMillis());
+        out.writeVarLong(totalRequests);
+        out.writeVarLong(totalResponseSize);
+        // Точные размеры записываются отсортированными, разностями с предыдущим; 0 - размеров нет
+        out.writeVarLong(responseSizes == null ? 0 : responseSizes.size() + 1L);
+        if (responseSizes != null) {
+            sortResponseSizes();
+            int previous = 0;
+            for (int i = 0; i < responseSizes.size(); i++) {
+                out.writeVarLong(responseSizes.getInt(i) - previous);
+                previous = responseSizes.getInt(i);
+            }
+        }
+        responseSizeSketch.writeTo(out);
+
+        if (resourceCount != null) {
+            out.writeVarLong(resourceCount.size());
+            String[] resources = resourceCount.keySet().toArray(new String[0]);
+            Arrays.sort(resources);
+            String previous = "";
+            for (String resource : resources) {
+                out.writeString(previous, resource);
+                out.writeVarLong(resourceCount.getLong(resource));
+                previous = resource;
+            }
+        } else {
+            topResources.writeTo(out);
+        }
+        out.writeCounts(statusCount);
+        out.writeCounts(methodCount);
+        // Ключи по порядку, чтобы одинаковое состояние давало одинаковый снимок
+        String[] otherMethods = otherMethodCount.keySet().toArray(new String[0]);
+        Arrays.sort(otherMethods);
+        out.writeVarLong(otherMethods.length);
+        for (String otherMethod : otherMethods) {
+            out.writeString(otherMethod);
+            out.writeVarLong(otherMethodCount.getLong(otherMethod));
+        }
+        out.writeSignedVarLong(minTimeMillis);
+        out.writeSignedVarLong(maxTimeMillis);
+        if (histogram != null) {
+            histogram.writeTo(out);
+        }
+    }
+
+    /**
+     * Восстанавливает сборщик из состояния, записанного {@link #writeTo(SnapshotWriter)}.
+     *
+     * @param in Чтение снимка
+     * @return Сборщик с прочитанным состоянием
+     * @throws IOException Если данные повреждены
+     */
+    static StatisticsCollector readFrom(SnapshotReader in) throws IOException {
+        int topResourcesCapacity = in.readVarInt(Integer.MAX_VALUE);
+        long histogramWidth = in.readVarLong();
+        StatisticsCollector result = new StatisticsCollector(topResourcesCapacity,
+            histogramWidth == 0 ? null : Duration.ofMillis(histogramWidth));
+        result.totalRequests = in.readVarLong();
+        result.totalResponseSize = in.readVarLong();
+        int sizeCount = in.readVarInt(EXACT_PERCENTILE_LIMIT + 1) - 1;
+        if (sizeCount < 0) {
+            result.responseSizes = null;
+        } else {
+            int size = 0;
+            for (int i = 0; i < sizeCount; i++) {
+                size += in.readVarInt(Integer.MAX_VALUE - size);
+                result.responseSizes.add(size);
+            }
+        }
+        result.responseSizeSketch.readFrom(in);
+
+        if (result.resourceCount != null) {
+            int resources = in.readVarInt(Integer.MAX_VALUE);
+            String previous = "";
+            for (int i = 0; i < resources; i++) {
+                previous = in.readString(previous);
+                result.resourceCount.put(previous, in.readVarLong());
+            }
+        } else {
+            result.topResources.readFrom(in);
+        }
+        in.readCounts(result.statusCount);
+        in.readCounts(result.methodCount);
+        int otherMethods = in.readVarInt(Integer.MAX_VALUE);
+        for (int i = 0; i < otherMethods; i++) {
+            result.otherMethodCount.put(in.readString(), in.readVarLong());
+        }
+        result.minTimeMillis = in.readSignedVarLong();
+        result.maxTimeMillis = in.readSignedVarLong();
+        if (result.histogram != null) {
+            result.histogram.readFrom(in);
+        }
+        return result;
     }
 
-    public int getTotalRequests() {
+    public long getTotalRequests() {
         return totalRequests;
     }
 
@@ -60,50 +288,190 @@ public class StatisticsCollector {
         return totalRequests > 0 ? (double) totalResponseSize / totalRequests : 0;
     }
 
-    public int getPercentile95ResponseSize() {
+    public long getPercentile95ResponseSize() {
+        return getPercentileResponseSize(PERCENTILE_95);
+    }
+
+    /**
+     * Возвращает перцентиль размера ответа. Пока записей не больше {@link #EXACT_PERCENTILE_LIMIT},
+     * значение точное, дальше - оценка с относительной погрешностью {@link #PERCENTILE_ACCURACY}.
+     *
+     * @param percentile Перцентиль в интервале (0, 100], например 99.9
+     * @return Размер ответа в байтах или 0, если записей нет
+     */
+    public long getPercentileResponseSize(double percentile) {
+        if (percentile <= 0 || percentile > PERCENT) {
+            throw new IllegalArgumentException("Перцентиль должен быть в интервале (0, 100]: " + percentile);
+        }
+        if (responseSizes == null) {
+            return Math.round(responseSizeSketch.getQuantile(percentile / PERCENT));
+        }
         if (responseSizes.isEmpty()) {
             return 0;
         }
-        Collections.sort(responseSizes);
-        int index = (int) Math.ceil(PERCENTILE_95 * responseSizes.size()) - 1;
-        return responseSizes.get(index);
+        sortResponseSizes();
+        int index = (int) Math.ceil(percentile / PERCENT * responseSizes.size()) - 1;
+        return responseSizes.getInt(Math.max(index, 0));
+    }
+
+    /**
+     * Показывает, считаются ли перцентили точно или по потоковой оценке.
+     *
+     * @return true, если перцентили точные
+     */
+    public boolean isPercentileExact() {
+        return responseSizes != null;
+    }
+
+    private void sortResponseSizes() {
+        if (!responseSizesSorted) {
+            IntArrays.quickSort(responseSizes.elements(), 0, responseSizes.size());
+            responseSizesSorted = true;
+        }
+    }
+
+    private void addResponseSize(int size) {
+        responseSizeSketch.add(size);
+        if (responseSizes == null) {
+            return;
+        }
+        if (responseSizes.size() < EXACT_PERCENTILE_LIMIT) {
+            responseSizes.add(size);
+            responseSizesSorted = false;
+        } else {
+            responseSizes = null;
+        }
     }
 
-    public Map<String, Integer> getTopResources(int limit) {
-        return getTopEntries(resourceCount, limit);
+    /**
+     * Самые запрашиваемые ресурсы. В приблизительном режиме количество - оценка сверху,
+     * превышающая истинное значение не более чем на {@link #getTopResourcesErrorBound()}.
+     *
+     * @param limit Максимальное количество ресурсов
+     * @return Карта ресурс - количество запросов в порядке убывания количества
+     */
+    public Map<String, Long> getTopResources(int limit) {
+        if (resourceCount != null) {
+            return getTopEntries(resourceCount, limit);
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        topResources.getTop(limit).forEach(entry -> result.put(entry.key(), entry.count()));
+        return result;
+    }
+
+    /**
+     * Показывает, считаются ли запросы к ресурсам точно.
+     *
+     * @return true, если количество запросов к ресурсам точное
+     */
+    public boolean isTopResourcesExact() {
+        return resourceCount != null || topResources.getErrorBound() == 0;
+    }
+
+    /**
+     * Наибольшая погрешность количества запросов к ресурсу в приблизительном режиме.
+     *
+     * @return Граница погрешности; 0, если подсчет точный
+     */
+    public long getTopResourcesErrorBound() {
+        return resourceCount != null ? 0 : topResources.getErrorBound();
     }
 
-    public Map<Integer, Integer> getStatusCodes() {
-        return convertAtomicMapToIntegerMap(statusCount);
+    /**
+     * Количество запросов по кодам ответа в порядке возрастания кода.
+     *
+     * @return Карта код ответа - количество запросов
+     */
+    public Map<Integer, Long> getStatusCodes() {
+        Map<Integer, Long> result = new LinkedHashMap<>();
+        for (int status = 0; status < statusCount.length; status++) {
+            if (statusCount[status] > 0) {
+                result.put(status, statusCount[status]);
+            }
+        }
+        return result;
     }
 
-    public Map<String, Integer> getHttpMethods() {
-        return convertAtomicMapToIntegerMap(methodCount);
+    /**
+     * Количество запросов по методам: сначала стандартные методы, затем остальные.
+     *
+     * @return Карта метод - количество запросов
+     */
+    public Map<String, Long> getHttpMethods() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < methodCount.length; i++) {
+            if (methodCount[i] > 0) {
+                result.put(HttpMethod.byOrdinal(i).name(), methodCount[i]);
+            }
+        }
+        otherMethodCount.object2LongEntrySet().fastForEach(e -> result.put(e.getKey(), e.getLongValue()));
+        return result;
     }
 
     public ZonedDateTime getMinDate() {
-        return minDate;
+        return totalRequests > 0 ? toDate(minTimeMillis) : null;
     }
 
     public ZonedDateTime getMaxDate() {
-        return maxDate;
+        return totalRequests > 0 ? toDate(maxTimeMillis) : null;
     }
 
-    // Метод для сортировки и выборки топ-N записей
-    private <K> Map<K, Integer> getTopEntries(Map<K, AtomicInteger> map, int limit) {
-        Map<K, Integer> result = new LinkedHashMap<>();
-        map.entrySet().stream()
-            .sorted(Map.Entry.<K, AtomicInteger>comparingByValue(Comparator.comparingInt(AtomicInteger::get))
-                .reversed())
-            .limit(limit)
-            .forEach(e -> result.put(e.getKey(), e.getValue().get()));
-        return result;
+    public long getMinTimeMillis() {
+        return minTimeMillis;
+    }
+
+    public long getMaxTimeMillis() {
+        return maxTimeMillis;
+    }
+
+    /**
+     * Распределение запросов по интервалам времени.
+     *
+     * @return Гистограмма или null, если сборщик создан без нее
+     */
+    public TimeHistogram getTimeHistogram() {
+        return histogram;
+    }
+
+    private Duration histogramWidth() {
+        return histogram == null ? null : Duration.ofMillis(histogram.getBaseWidthMillis());
+    }
+
+    private int topResourcesCapacity() {
+        return topResources == null ? 0 : topResources.getCapacity();
+    }
+
+    private static ZonedDateTime toDate(long timeMillis) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), ZoneOffset.UTC);
     }
 
-    // Метод для конвертации карты AtomicInteger в Integer
-    private <K> Map<K, Integer> convertAtomicMapToIntegerMap(Map<K, AtomicInteger> map) {
-        Map<K, Integer> result = new HashMap<>();
-        map.forEach((k, v) -> result.put(k, v.get()));
+    // Выборка топ-N записей ограниченной кучей; при равных значениях порядок определяется ключом.
+    // Ключи таблицы уже строки, поэтому toString() их не копирует
+    private static Map<String, Long> getTopEntries(Object2LongOpenCustomHashMap<CharSequence> map, int limit) {
+        TopSelector<String> selector = new TopSelector<>(Math.min(limit, map.size()));
+        map.object2LongEntrySet().fastForEach(e -> selector.offer(e.getKey().toString(), e.getLongValue()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        selector.drainDescending(result::put);
         return result;
     }
+
+    private static void increment(Object2LongOpenCustomHashMap<CharSequence> counts, CharSequence key) {
+        long count = counts.getLong(key);
+        counts.put(count == 0 ? key.toString() : key, count + 1);
+    }
+
+    private static void mergeCounts(Object2LongOpenCustomHashMap<CharSequence> target,
+        Object2LongOpenCustomHashMap<CharSequence> source) {
+        source.object2LongEntrySet().fastForEach(e -> target.addTo(e.getKey(), e.getLongValue()));
+    }
+
+    private static <K> void mergeCounts(Object2LongOpenHashMap<K> target, Object2LongOpenHashMap<K> source) {
+        source.object2LongEntrySet().fastForEach(e -> target.addTo(e.getKey(), e.getLongValue()));
+    }
+
+    private static void mergeCounts(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
 }
@@ -0,0 +1,170 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Двоичный снимок полного состояния {@link StatisticsCollector}: счетчики, оценка перцентилей,
+ * точные размеры ответов, ресурсы и интервал времени. Снимки, собранные отдельно (например, по часам
+ * на разных серверах), загружаются и объединяются в общий отчет без повторного чтения логов.
+ *
+ * <p>Формат: сигнатура {@code LASN}, номер версии, состояние сборщика и CRC32 всех предыдущих байт.
+ * Числа записываются переменной длиной, ресурсы - по порядку и только отличающимся окончанием
+ * (см. {@link SnapshotWriter}). Снимок другой версии не загружается.
+ */
+@UtilityClass
+public class StatisticsSnapshot {
+    private static final int MAGIC = 0x4c41534e;
+    private static final int VERSION = 2;
+
+    /**
+     * Записывает состояние сборщика в массив байт.
+     *
+     * @param collector Сборщик
+     * @return Снимок
+     */
+    public static byte[] toBytes(StatisticsCollector collector) {
+        SnapshotWriter out = new SnapshotWriter();
+        out.writeInt(MAGIC);
+        out.writeVarLong(VERSION);
+        collector.writeTo(out);
+        return out.toSealedArray();
+    }
+
+    /**
+     * Восстанавливает сборщик из снимка.
+     *
+     * @param snapshot Снимок, созданный {@link #toBytes(StatisticsCollector)}
+     * @return Сборщик с состоянием из снимка
+     * @throws IOException Если снимок поврежден или записан в другой версии формата
+     */
+    public static StatisticsCollector fromBytes(byte[] snapshot) throws IOException {
+        SnapshotReader in = SnapshotReader.unseal(snapshot);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Данные не являются снимком статистики");
+        }
+        long version = in.readVarLong();
+        if (version != VERSION) {
+            throw new IOException("Неподдерживаемая версия снимка: " + version + ", ожидается " + VERSION);
+        }
+        StatisticsCollector collector = StatisticsCollector.readFrom(in);
+        if (in.hasRemaining()) {
+            throw new IOException("Лишние данные в конце снимка");
+        }
+        return collector;
+    }
+
+    /**
+     * Сохраняет снимок в файл. Файл заменяется целиком: при сбое записи прежний снимок остается.
+     *
+     * @param collector Сборщик
+     * @param file      Файл снимка
+     * @throws IOException Если запись не удалась
+     */
+    public static void save(StatisticsCollector collector, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, toBytes(collector));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Загружает снимок из файла.
+     *
+     * @param file Файл снимка
+     * @return Сборщик с состоянием из снимка
+     * @throws IOException Если файл не удалось прочитать или снимок поврежден
+     */
+    public static StatisticsCollector load(Path file) throws IOException {
+        try {
+            return fromBytes(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new IOException("Не удалось загрузить снимок " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Загружает снимки и объединяет их в один сборщик.
+     *
+     * @param files Файлы снимков
+     * @return Сборщик с суммарной статистикой
+     * @throws IOException Если снимок не удалось загрузить
+     */
+    public static StatisticsCollector merge(List<Path> files) throws IOException {
+        return merge(files, 1);
+    }
+
+    /**
+     * Загружает снимки и объединяет их в один сборщик деревом: список делится пополам, половины
+     * загружаются и объединяются параллельно, затем объединяются результаты. Объединение
+     * точных счетчиков не зависит от порядка, поэтому результат совпадает с последовательным.
+     *
+     * @param files   Файлы снимков
+     * @param threads Количество потоков
+     * @return Сборщик с суммарной статистикой
+     * @throws IOException Если снимок не удалось загрузить
+     */
+    public static StatisticsCollector merge(List<Path> files, int threads) throws IOException {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны снимки для объединения");
+        }
+        if (threads == 1) {
+            StatisticsCollector result = load(files.getFirst());
+            for (Path file : files.subList(1, files.size())) {
+                result.merge(load(file));
+            }
+            return result;
+        }
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            return pool.invoke(new MergeTask(List.copyOf(files), 0, files.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Загрузка и объединение снимков {@code files[start, end)}.
+     */
+    private static final class MergeTask extends RecursiveTask<StatisticsCollector> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Path> files;
+        private final int start;
+        private final int end;
+
+        private MergeTask(List<Path> files, int start, int end) {
+            this.files = files;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected StatisticsCollector compute() {
+            if (end - start == 1) {
+                try {
+                    return load(files.get(start));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (start + end) >>> 1;
+            MergeTask left = new MergeTask(files, start, middle);
+            left.fork();
+            StatisticsCollector right = new MergeTask(files, middle, end).compute();
+            StatisticsCollector result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package backend.academy;
+
+/**
+ * Изменяемое представление части строки в виде {@link CharSequence} без копирования символов.
+ *
+ * <p>Не переопределяет {@code equals} и {@code hashCode}: для поиска в хеш-таблицах
+ * используется {@link CharSequenceHashStrategy}, сравнивающая содержимое.
+ */
+final class StringSlice implements CharSequence {
+    private String text = "";
+    private int start;
+    private int end;
+
+    /**
+     * Направляет представление на часть строки.
+     *
+     * @param text  Строка
+     * @param start Индекс начала (включительно)
+     * @param end   Индекс конца (не включительно)
+     * @return Это же представление
+     */
+    StringSlice wrap(String text, int start, int end) {
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return text.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return text.subSequence(start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return text.substring(start, end);
+    }
+}
@@ -0,0 +1,241 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Распределение запросов по интервалам времени одинаковой ширины: количество запросов,
+ * объем ответов и количество ответов классов 2xx-5xx в каждом интервале.
+ *
+ * <p>Интервалы выровнены по началу эпохи, поэтому гистограммы, собранные отдельно, объединяются
+ * сложением счетчиков одинаковых интервалов. Счетчики хранятся в одном плотном массиве по
+ * смещению интервала от первого, без пропусков. Чтобы память оставалась ограниченной, диапазон
+ * не превышает {@link #MAX_BUCKETS} интервалов: при выходе за него ширина удваивается, а соседние
+ * интервалы складываются (месяц по минутам помещается без укрупнения).
+ */
+public class TimeHistogram {
+    /**
+     * Наибольшее количество интервалов: около 3 МБ счетчиков.
+     */
+    public static final int MAX_BUCKETS = 1 << 16;
+
+    private static final int REQUESTS = 0;
+    private static final int BYTES = 1;
+    // Счетчик класса ответа находится по номеру класса: 2xx - 2, ..., 5xx - 5
+    private static final int FIRST_STATUS_CLASS = 2;
+    private static final int LAST_STATUS_CLASS = 5;
+    private static final int STRIDE = LAST_STATUS_CLASS + 1;
+    private static final int STATUS_CLASS_DIVISOR = 100;
+    private static final int INITIAL_BUCKETS = 64;
+
+    private final long baseWidthMillis;
+    private long widthMillis;
+    // Номер первого интервала от начала эпохи и количество интервалов до последнего включительно
+    private long firstBucket;
+    private int bucketCount;
+    // Счетчики интервала i - с позиции i * STRIDE; за пределами bucketCount всегда нули
+    private long[] counters = new long[INITIAL_BUCKETS * STRIDE];
+
+    /**
+     * Создает пустую гистограмму.
+     *
+     * @param width Ширина интервала, например 1 минута или 1 час
+     */
+    public TimeHistogram(Duration width) {
+        if (width.toMillis() <= 0) {
+            throw new IllegalArgumentException("Ширина интервала должна быть положительной: " + width);
+        }
+        this.baseWidthMillis = width.toMillis();
+        this.widthMillis = baseWidthMillis;
+    }
+
+    /**
+     * Учитывает запрос.
+     *
+     * @param timeMillis Время запроса
+     * @param bytes      Размер ответа
+     * @param status     Код ответа
+     */
+    public void add(long timeMillis, long bytes, int status) {
+        int offset = bucketOffset(timeMillis) * STRIDE;
+        counters[offset + REQUESTS]++;
+        counters[offset + BYTES] += bytes;
+        int statusClass = status / STATUS_CLASS_DIVISOR;
+        if (statusClass >= FIRST_STATUS_CLASS && statusClass <= LAST_STATUS_CLASS) {
+            counters[offset + statusClass]++;
+        }
+    }
+
+    /**
+     * Добавляет к текущей гистограмме счетчики другой гистограммы с той же исходной шириной.
+     * Если одна из них уже укрупнена, результат получает большую ширину.
+     *
+     * @param other Гистограмма, счетчики которой добавляются к текущей
+     */
+    public void merge(TimeHistogram other) {
+        if (baseWidthMillis != other.baseWidthMillis) {
+            throw new IllegalArgumentException("Нельзя объединить гистограммы с разной шириной интервала: "
+                + baseWidthMillis + " и " + other.baseWidthMillis + " мс");
+        }
+        while (widthMillis < other.widthMillis) {
+            coarsen();
+        }
+        for (int i = 0; i < other.bucketCount; i++) {
+            int source = i * STRIDE;
+            if (other.counters[source + REQUESTS] == 0) {
+                continue;
+            }
+            // Ширина текущей гистограммы кратна ширине другой, поэтому интервал другой целиком
+            // попадает в один интервал текущей
+            int target = bucketOffset((other.firstBucket + i) * other.widthMillis) * STRIDE;
+            for (int j = 0; j < STRIDE; j++) {
+                counters[target + j] += other.counters[source + j];
+            }
+        }
+    }
+
+    /**
+     * Записывает ширину и счетчики гистограммы.
+     *
+     * @param out Запись снимка
+     */
+    void writeTo(SnapshotWriter out) {
+        out.writeVarLong(widthMillis);
+        out.writeSignedVarLong(firstBucket);
+        out.writeVarLong(bucketCount);
+        out.writeCounts(Arrays.copyOf(counters, bucketCount * STRIDE));
+    }
+
+    /**
+     * Заменяет счетчики пустой гистограммы прочитанными из снимка гистограммы с той же исходной шириной.
+     *
+     * @param in Чтение снимка
+     * @throws IOException Если данные повреждены или ширина не получается удвоением исходной
+     */
+    void readFrom(SnapshotReader in) throws IOException {
+        long width = in.readVarLong();
+        if (width < baseWidthMillis || width % baseWidthMillis != 0
+            || Long.bitCount(width / baseWidthMillis) != 1) {
+            throw new IOException("Ширина интервала в снимке " + width + " мс не согласуется с " + baseWidthMillis);
+        }
+        widthMillis = width;
+        firstBucket = in.readSignedVarLong();
+        bucketCount = in.readVarInt(MAX_BUCKETS);
+        counters = new long[Math.max(bucketCount, INITIAL_BUCKETS) * STRIDE];
+        long[] stored = new long[bucketCount * STRIDE];
+        in.readCounts(stored);
+        System.arraycopy(stored, 0, counters, 0, stored.length);
+    }
+
+    public long getBaseWidthMillis() {
+        return baseWidthMillis;
+    }
+
+    /**
+     * Текущая ширина интервала: исходная, удвоенная столько раз, сколько потребовалось,
+     * чтобы диапазон поместился в {@link #MAX_BUCKETS} интервалов.
+     *
+     * @return Ширина интервала в миллисекундах
+     */
+    public long getWidthMillis() {
+        return widthMillis;
+    }
+
+    /**
+     * Количество интервалов от первого до последнего запроса, включая пустые.
+     *
+     * @return Количество интервалов
+     */
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getBucketStartMillis(int bucket) {
+        return (firstBucket + bucket) * widthMillis;
+    }
+
+    public long getRequests(int bucket) {
+        return counters[checkBucket(bucket) * STRIDE + REQUESTS];
+    }
+
+    public long getBytes(int bucket) {
+        return counters[checkBucket(bucket) * STRIDE + BYTES];
+    }
+
+    /**
+     * Количество ответов класса в интервале.
+     *
+     * @param bucket      Номер интервала
+     * @param statusClass Класс ответа от 2 (2xx) до 5 (5xx)
+     * @return Количество ответов
+     */
+    public long getStatusClassCount(int bucket, int statusClass) {
+        if (statusClass < FIRST_STATUS_CLASS || statusClass > LAST_STATUS_CLASS) {
+            throw new IllegalArgumentException("Класс ответа должен быть от 2 до 5: " + statusClass);
+        }
+        return counters[checkBucket(bucket) * STRIDE + statusClass];
+    }
+
+    private int checkBucket(int bucket) {
+        if (bucket < 0 || bucket >= bucketCount) {
+            throw new IndexOutOfBoundsException("Интервал " + bucket + " вне диапазона 0-" + bucketCount);
+        }
+        return bucket;
+    }
+
+    // Смещение интервала, содержащего время, от первого; диапазон расширяется или укрупняется при необходимости
+    private int bucketOffset(long timeMillis) {
+        long bucket = Math.floorDiv(timeMillis, widthMillis);
+        long offset = bucket - firstBucket;
+        if (offset >= 0 && offset < bucketCount) {
+            return (int) offset;
+        }
+        if (bucketCount == 0) {
+            firstBucket = bucket;
+            bucketCount = 1;
+            return 0;
+        }
+        while (Math.max(bucket, firstBucket + bucketCount - 1) - Math.min(bucket, firstBucket) >= MAX_BUCKETS) {
+            coarsen();
+            bucket = Math.floorDiv(timeMillis, widthMillis);
+        }
+        if (bucket < firstBucket) {
+            int shift = (int) (firstBucket - bucket);
+            ensureCapacity(bucketCount + shift);
+            System.arraycopy(counters, 0, counters, shift * STRIDE, bucketCount * STRIDE);
+            Arrays.fill(counters, 0, shift * STRIDE, 0);
+            firstBucket = bucket;
+            bucketCount += shift;
+        } else if (bucket >= firstBucket + bucketCount) {
+            bucketCount = (int) (bucket - firstBucket + 1);
+            ensureCapacity(bucketCount);
+        }
+        return (int) (bucket - firstBucket);
+    }
+
+    // Удваивает ширину интервала, складывая счетчики соседних интервалов
+    private void coarsen() {
+        long coarseFirst = Math.floorDiv(firstBucket, 2);
+        long[] coarse = new long[counters.length];
+        int coarseCount = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            int target = (int) (Math.floorDiv(firstBucket + i, 2) - coarseFirst);
+            for (int j = 0; j < STRIDE; j++) {
+                coarse[target * STRIDE + j] += counters[i * STRIDE + j];
+            }
+            coarseCount = target + 1;
+        }
+        widthMillis *= 2;
+        firstBucket = coarseFirst;
+        bucketCount = coarseCount;
+        counters = coarse;
+    }
+
+    private void ensureCapacity(int buckets) {
+        if (buckets * STRIDE > counters.length) {
+            int capacity = Math.min(Math.max(counters.length * 2, buckets * STRIDE), MAX_BUCKETS * STRIDE);
+            counters = Arrays.copyOf(counters, capacity);
+        }
+    }
+}
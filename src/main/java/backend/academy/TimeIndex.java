@@ -0,0 +1,375 @@
+package backend.academy;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Разреженный индекс времени несжатого лог-файла, который хранится рядом с ним в файле
+ * с расширением {@link #EXTENSION}.
+ *
+ * <p>Файл делится на блоки по {@link #BLOCK_LINES} строк; для каждого блока хранятся смещение
+ * первой строки, количество строк и наименьшее и наибольшее время в блоке. По индексу часть файла
+ * для интервала времени находится двоичным поиском без чтения лога: блоки, все строки которых
+ * раньше или позже интервала, пропускаются, поэтому строки не по порядку не теряются.
+ *
+ * <p>Индекс относится к файлу, пока совпадают inode и хеш первых байт, а размер файла не меньше
+ * проиндексированного (как у {@link CheckpointStore}). Дописанные строки добавляются в индекс
+ * при следующем обращении; индекс файла, замененного при ротации, удаляется.
+ */
+final class TimeIndex {
+    /**
+     * Расширение файла индекса, добавляемое к имени лог-файла.
+     */
+    static final String EXTENSION = ".tidx";
+
+    /**
+     * Количество строк в блоке индекса.
+     */
+    static final int BLOCK_LINES = 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeIndex.class);
+
+    private static final int MAGIC = 0x4c415449;
+    private static final int VERSION = 1;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final String fileKey;
+    // Конец последней проиндексированной строки
+    private long indexedLength;
+    private final LongArrayList blockOffsets = new LongArrayList();
+    private final IntArrayList blockLines = new IntArrayList();
+    private final LongArrayList blockMinTimes = new LongArrayList();
+    private final LongArrayList blockMaxTimes = new LongArrayList();
+    // Наибольшее время блоков до i включительно и наименьшее начиная с i: обе последовательности
+    // не убывают, поэтому по ним работает двоичный поиск
+    private long[] prefixMaxTimes = new long[0];
+    private long[] suffixMinTimes = new long[0];
+
+    private TimeIndex(String fileKey) {
+        this.fileKey = fileKey;
+    }
+
+    /**
+     * Путь к файлу индекса лог-файла.
+     *
+     * @param log Лог-файл
+     * @return Путь к индексу
+     */
+    static Path sidecar(Path log) {
+        return log.resolveSibling(log.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Показывает, является ли файл индексом, чтобы не читать его как лог.
+     *
+     * @param path Путь к файлу
+     * @return true для файлов индекса
+     */
+    static boolean isSidecar(Path path) {
+        return path.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * Строит индекс лог-файла или дополняет существующий строками, дописанными после его построения,
+     * и сохраняет его.
+     *
+     * @param log Несжатый лог-файл
+     * @return Индекс
+     * @throws IOException Если файл не удалось прочитать или индекс не удалось сохранить
+     */
+    static TimeIndex build(Path log) throws IOException {
+        TimeIndex index = read(log);
+        if (index == null) {
+            index = new TimeIndex(Objects.toString(CheckpointStore.fileKey(log)));
+        }
+        if (index.extend(log)) {
+            index.save(log);
+        }
+        return index;
+    }
+
+    /**
+     * Открывает индекс лог-файла, если он построен. Строки, дописанные после построения, добавляются
+     * в индекс; индекс, не относящийся к текущему содержимому файла, удаляется.
+     *
+     * @param log Несжатый лог-файл
+     * @return Индекс или null, если индекса нет или он устарел
+     * @throws IOException Если лог-файл не удалось прочитать
+     */
+    static TimeIndex open(Path log) throws IOException {
+        Path sidecar = sidecar(log);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+        TimeIndex index = read(log);
+        if (index == null) {
+            LOGGER.info("Индекс {} не соответствует файлу и удален", sidecar);
+            Files.deleteIfExists(sidecar);
+            return null;
+        }
+        if (index.extend(log)) {
+            try {
+                index.save(log);
+            } catch (IOException e) {
+                LOGGER.warn("Не удалось сохранить дополненный индекс {}: {}", sidecar, e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Находит часть файла, в которой могут быть записи из интервала времени.
+     *
+     * @param log      Лог-файл индекса
+     * @param fromTime Начало интервала в миллисекундах от начала эпохи (включительно)
+     * @param toTime   Конец интервала в миллисекундах от начала эпохи (включительно)
+     * @return Часть файла, выровненная по границам строк, или null, если записей из интервала в файле нет
+     * @throws IOException Если размер файла не удалось получить
+     */
+    FileChunk find(Path log, long fromTime, long toTime) throws IOException {
+        int blocks = blockOffsets.size();
+        int first = firstIndexNotBelow(prefixMaxTimes, fromTime);
+        int last = toTime == Long.MAX_VALUE ? blocks : firstIndexNotBelow(suffixMinTimes, toTime + 1);
+        long start = first < blocks ? blockOffsets.getLong(first) : indexedLength;
+        long end = last < blocks ? blockOffsets.getLong(last) : indexedLength;
+        // Недописанная последняя строка не проиндексирована и читается всегда
+        if (end == indexedLength) {
+            end = Math.max(end, Files.size(log));
+        }
+        return start < end ? new FileChunk(log, start, end) : null;
+    }
+
+    /**
+     * Количество проиндексированных строк.
+     *
+     * @return Количество строк
+     */
+    long getLineCount() {
+        long lines = 0;
+        for (int i = 0; i < blockLines.size(); i++) {
+            lines += blockLines.getInt(i);
+        }
+        return lines;
+    }
+
+    int getBlockCount() {
+        return blockOffsets.size();
+    }
+
+    long getIndexedLength() {
+        return indexedLength;
+    }
+
+    // Первый индекс, где значение не меньше key; длина массива, если такого нет
+    private static int firstIndexNotBelow(long[] sorted, long key) {
+        int index = Arrays.binarySearch(sorted, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == key) {
+            index--;
+        }
+        return index;
+    }
+
+    // Индексирует завершенные строки после indexedLength, продолжая последний неполный блок;
+    // false, если таких строк нет
+    private boolean extend(Path log) throws IOException {
+        long previousLength = indexedLength;
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            byte[] head = new byte[TimeRangeSeeker.PROBE_LENGTH];
+            int headLength = 0;
+            long position = indexedLength;
+            long lineStart = position;
+            BlockBuilder block = new BlockBuilder();
+            block.reopenLast();
+            int read;
+            while ((read = channel.read(buffer.clear(), position)) > 0) {
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        block.addLine(lineStart, TimeRangeSeeker.lineTime(head, headLength, decoder));
+                        lineStart = position + i + 1;
+                        headLength = 0;
+                    } else if (headLength < head.length) {
+                        head[headLength++] = bytes[i];
+                    }
+                }
+                position += read;
+            }
+            block.close();
+            indexedLength = lineStart;
+        }
+        updateSearchArrays();
+        return indexedLength != previousLength;
+    }
+
+    private void addBlock(long offset, int lines, long minTime, long maxTime) {
+        blockOffsets.add(offset);
+        blockLines.add(lines);
+        blockMinTimes.add(minTime);
+        blockMaxTimes.add(maxTime);
+    }
+
+    private void removeLastBlock() {
+        int last = blockOffsets.size() - 1;
+        blockOffsets.removeLong(last);
+        blockLines.removeInt(last);
+        blockMinTimes.removeLong(last);
+        blockMaxTimes.removeLong(last);
+    }
+
+    private void updateSearchArrays() {
+        int blocks = blockOffsets.size();
+        prefixMaxTimes = new long[blocks];
+        suffixMinTimes = new long[blocks];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < blocks; i++) {
+            max = Math.max(max, blockMaxTimes.getLong(i));
+            prefixMaxTimes[i] = max;
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = blocks - 1; i >= 0; i--) {
+            min = Math.min(min, blockMinTimes.getLong(i));
+            suffixMinTimes[i] = min;
+        }
+    }
+
+    // Индекс из файла рядом с логом; null, если его нет, он поврежден или относится к другому содержимому
+    private static TimeIndex read(Path log) throws IOException {
+        Path sidecar = sidecar(log);
+        try {
+            SnapshotReader in = SnapshotReader.unseal(Files.readAllBytes(sidecar));
+            if (in.readInt() != MAGIC || in.readVarLong() != VERSION) {
+                return null;
+            }
+            TimeIndex index = new TimeIndex(in.readString());
+            long headHash = in.readLong();
+            index.indexedLength = in.readVarLong();
+            if (!index.fileKey.equals(Objects.toString(CheckpointStore.fileKey(log)))
+                || Files.size(log) < index.indexedLength
+                || CheckpointStore.headHash(log, index.indexedLength) != headHash) {
+                return null;
+            }
+            int blocks = in.readVarInt(Integer.MAX_VALUE);
+            long offset = 0;
+            long minTime = 0;
+            for (int i = 0; i < blocks; i++) {
+                offset += in.readVarLong();
+                int lines = in.readVarInt(BLOCK_LINES);
+                // Разности записываются по модулю 2^64, поэтому границы неизвестного времени восстанавливаются точно
+                minTime += in.readSignedVarLong();
+                index.addBlock(offset, lines, minTime, minTime + in.readSignedVarLong());
+            }
+            index.updateSearchArrays();
+            return index;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось прочитать индекс {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    // Смещения блоков записываются разностями, время - разностью с предыдущим блоком и длиной интервала
+    private void save(Path log) throws IOException {
+        SnapshotWriter out = new SnapshotWriter();
+        out.writeInt(MAGIC);
+        out.writeVarLong(VERSION);
+        out.writeString(fileKey);
+        out.writeLong(CheckpointStore.headHash(log, indexedLength));
+        out.writeVarLong(indexedLength);
+        out.writeVarLong(blockOffsets.size());
+        long previousOffset = 0;
+        long previousMinTime = 0;
+        for (int i = 0; i < blockOffsets.size(); i++) {
+            out.writeVarLong(blockOffsets.getLong(i) - previousOffset);
+            out.writeVarLong(blockLines.getInt(i));
+            out.writeSignedVarLong(blockMinTimes.getLong(i) - previousMinTime);
+            out.writeSignedVarLong(blockMaxTimes.getLong(i) - blockMinTimes.getLong(i));
+            previousOffset = blockOffsets.getLong(i);
+            previousMinTime = blockMinTimes.getLong(i);
+        }
+
+        Path sidecar = sidecar(log);
+        Path temporary = Files.createTempFile(sidecar.toAbsolutePath().getParent(),
+            sidecar.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, out.toSealedArray());
+            Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Накопление очередного блока при индексировании.
+     */
+    private final class BlockBuilder {
+        private long offset;
+        private int lines;
+        private long minTime;
+        private long maxTime;
+
+        // Снимает последний блок, если он неполный, и продолжает накапливать его: иначе каждое
+        // дополнение дописываемого лога оставляло бы по мелкому блоку
+        private void reopenLast() {
+            int last = blockOffsets.size() - 1;
+            if (last < 0 || blockLines.getInt(last) == BLOCK_LINES) {
+                return;
+            }
+            offset = blockOffsets.getLong(last);
+            lines = blockLines.getInt(last);
+            minTime = blockMinTimes.getLong(last);
+            maxTime = blockMaxTimes.getLong(last);
+            if (minTime == Long.MIN_VALUE && maxTime == Long.MAX_VALUE) {
+                // Во всем блоке время не разобрано
+                minTime = Long.MAX_VALUE;
+                maxTime = Long.MIN_VALUE;
+            }
+            removeLastBlock();
+        }
+
+        private void addLine(long lineStart, long time) {
+            if (lines == 0) {
+                offset = lineStart;
+                minTime = Long.MAX_VALUE;
+                maxTime = Long.MIN_VALUE;
+            }
+            if (time != TimeRangeSeeker.UNKNOWN) {
+                minTime = Math.min(minTime, time);
+                maxTime = Math.max(maxTime, time);
+            }
+            if (++lines == BLOCK_LINES) {
+                close();
+            }
+        }
+
+        // Блок без разобранного времени может содержать записи любого интервала
+        private void close() {
+            if (lines == 0) {
+                return;
+            }
+            if (minTime > maxTime) {
+                addBlock(offset, lines, Long.MIN_VALUE, Long.MAX_VALUE);
+            } else {
+                addBlock(offset, lines, minTime, maxTime);
+            }
+            lines = 0;
+        }
+    }
+}
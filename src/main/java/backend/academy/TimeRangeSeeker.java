@@ -0,0 +1,143 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+
+/**
+ * Поиск части несжатого лог-файла, в которой находятся записи из интервала времени.
+ *
+ * <p>Строки лога nginx записываются почти по порядку времени, поэтому границы ищутся двоичным
+ * поиском по смещению в файле: переход в середину диапазона, пропуск до начала следующей строки
+ * и разбор только метки времени. Так для часа из многогигабайтного файла читаются несколько
+ * десятков коротких фрагментов, а разбирается только найденная часть.
+ *
+ * <p>nginx пишет строку по завершении запроса, но со временем его начала, поэтому соседние строки
+ * бывают немного не по порядку. Интервал поиска расширяется на {@code toleranceMillis}; записи,
+ * опередившие соседей сильнее, могут оказаться за найденными границами. Записи внутри найденной
+ * части по-прежнему проверяются фильтром.
+ */
+final class TimeRangeSeeker {
+    // Метка времени находится в начале строки; длиннее этого фрагмента строка не читается
+    static final int PROBE_LENGTH = 512;
+    // Диапазон меньше этого размера дочитывается подряд, без дальнейшего деления
+    private static final long MIN_SPLIT_SPAN = 64 * 1024;
+    // Время строки, метку которой не удалось разобрать
+    static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer probe = ByteBuffer.allocate(PROBE_LENGTH);
+    private final NginxTimestampDecoder timeDecoder = new NginxTimestampDecoder();
+
+    private TimeRangeSeeker(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * Находит часть файла с записями из интервала времени.
+     *
+     * @param path            Путь к несжатому лог-файлу
+     * @param fromTime        Начало интервала в миллисекундах от начала эпохи (включительно)
+     * @param toTime          Конец интервала в миллисекундах от начала эпохи (включительно)
+     * @param toleranceMillis Допустимое отклонение времени строки от порядка соседних строк
+     * @return Часть файла, выровненная по границам строк, или null, если записей из интервала в файле нет
+     * @throws IOException Если файл не удалось прочитать
+     */
+    static FileChunk find(Path path, long fromTime, long toTime, long toleranceMillis) throws IOException {
+        long from = fromTime == Long.MIN_VALUE ? fromTime : fromTime - toleranceMillis;
+        long to = toTime == Long.MAX_VALUE ? toTime : toTime + toleranceMillis;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            TimeRangeSeeker seeker = new TimeRangeSeeker(channel);
+            if (seeker.size == 0) {
+                return null;
+            }
+            // Файл целиком вне интервала определяется по первой и последней строке
+            long first = seeker.timeAt(0);
+            long last = seeker.timeAt(FileChunk.completeLinesEnd(channel, 0, seeker.size - 1));
+            if (first != UNKNOWN && first > to || last != UNKNOWN && last < from) {
+                return null;
+            }
+            long start = from == Long.MIN_VALUE ? 0 : seeker.firstLineNotBefore(from);
+            long end = to == Long.MAX_VALUE ? seeker.size : seeker.firstLineAfter(to, start);
+            return start < end ? new FileChunk(path, start, end) : null;
+        }
+    }
+
+    // Начало строки, до которой все строки раньше from; строки без метки времени не пропускаются
+    private long firstLineNotBefore(long from) throws IOException {
+        long low = 0;
+        long high = size;
+        while (high - low > MIN_SPLIT_SPAN) {
+            long middle = low + (high - low) / 2;
+            long line = FileChunk.nextLineStart(channel, middle, size);
+            if (line >= high) {
+                high = middle;
+                continue;
+            }
+            long time = timeAt(line);
+            if (time != UNKNOWN && time < from) {
+                low = line;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Начало строки, с которой все строки позже to, или конец файла
+    private long firstLineAfter(long to, long start) throws IOException {
+        long low = start;
+        long high = size;
+        while (high - low > MIN_SPLIT_SPAN) {
+            long middle = low + (high - low) / 2;
+            long line = FileChunk.nextLineStart(channel, middle, size);
+            if (line >= high) {
+                low = middle;
+                continue;
+            }
+            long time = timeAt(line);
+            if (time != UNKNOWN && time > to) {
+                high = line;
+            } else {
+                low = line;
+            }
+        }
+        return high;
+    }
+
+    // Время строки, начинающейся со смещения; UNKNOWN, если метку времени не удалось разобрать
+    private long timeAt(long lineStart) throws IOException {
+        probe.clear();
+        int read = channel.read(probe, lineStart);
+        return read <= 0 ? UNKNOWN : lineTime(probe.array(), read, timeDecoder);
+    }
+
+    /**
+     * Разбирает метку времени в квадратных скобках в начале строки.
+     *
+     * @param line    Байты начала строки; все, что после {@code \n}, не рассматривается
+     * @param length  Количество байт
+     * @param decoder Декодер времени
+     * @return Время в миллисекундах от начала эпохи или {@link #UNKNOWN}
+     */
+    static long lineTime(byte[] line, int length, NginxTimestampDecoder decoder) {
+        int open = -1;
+        for (int i = 0; i < length && line[i] != '\n'; i++) {
+            if (line[i] == '[' && open < 0) {
+                open = i + 1;
+            } else if (line[i] == ']' && open >= 0) {
+                try {
+                    return decoder.decode(line, open, i);
+                } catch (DateTimeException e) {
+                    return UNKNOWN;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
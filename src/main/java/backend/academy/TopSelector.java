@@ -0,0 +1,124 @@
+package backend.academy;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Выбор N ключей с наибольшими счетчиками без сортировки всего набора.
+ *
+ * <p>Хранит не больше {@code limit} кандидатов в минимальной двоичной куче на примитивных
+ * массивах, поэтому выбор из {@code n} ключей занимает {@code O(n log limit)} без упаковки
+ * счетчиков. При равных счетчиках выше стоит меньший ключ, так что результат не зависит
+ * от порядка обхода хеш-таблицы.
+ *
+ * @param <K> Тип ключа
+ */
+public final class TopSelector<K extends Comparable<? super K>> {
+    private final Object[] keys;
+    private final long[] counts;
+    private int size;
+
+    /**
+     * Создает пустой выбор.
+     *
+     * @param limit Максимальное количество ключей в результате
+     */
+    public TopSelector(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Количество ключей не может быть отрицательным: " + limit);
+        }
+        this.keys = new Object[limit];
+        this.counts = new long[limit];
+    }
+
+    /**
+     * Предлагает ключ со счетчиком; он остается, только если входит в текущие N лучших.
+     *
+     * @param key   Ключ
+     * @param count Счетчик
+     */
+    public void offer(K key, long count) {
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = count;
+            siftUp(size++);
+        } else if (size > 0 && isBetter(count, key, 0)) {
+            keys[0] = key;
+            counts[0] = count;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Передает выбранные ключи в порядке убывания счетчика и очищает выбор.
+     *
+     * @param consumer Обработчик пар ключ - счетчик
+     */
+    @SuppressWarnings("unchecked")
+    public void drainDescending(ObjLongConsumer<K> consumer) {
+        // Пирамидальная сортировка на месте: худший элемент с вершины уходит в конец массива
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        for (int i = 0; i < size; i++) {
+            consumer.accept((K) keys[i], counts[i]);
+            keys[i] = null;
+        }
+        size = 0;
+    }
+
+    // Лучше ли пара (count, key), чем элемент кучи: больший счетчик, при равенстве - меньший ключ
+    @SuppressWarnings("unchecked")
+    private boolean isBetter(long count, K key, int index) {
+        if (count != counts[index]) {
+            return count > counts[index];
+        }
+        return key.compareTo((K) keys[index]) < 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isWorse(int first, int second) {
+        return isBetter(counts[second], (K) keys[second], first);
+    }
+
+    private void siftUp(int position) {
+        int current = position;
+        while (current > 0) {
+            int parent = (current - 1) / 2;
+            if (!isWorse(current, parent)) {
+                break;
+            }
+            swap(current, parent);
+            current = parent;
+        }
+    }
+
+    private void siftDown(int position, int end) {
+        int current = position;
+        while (true) {
+            int worst = current;
+            int left = 2 * current + 1;
+            int right = left + 1;
+            if (left < end && isWorse(left, worst)) {
+                worst = left;
+            }
+            if (right < end && isWorse(right, worst)) {
+                worst = right;
+            }
+            if (worst == current) {
+                return;
+            }
+            swap(worst, current);
+            current = worst;
+        }
+    }
+
+    private void swap(int first, int second) {
+        Object key = keys[first];
+        keys[first] = keys[second];
+        keys[second] = key;
+        long count = counts[first];
+        counts[first] = counts[second];
+        counts[second] = count;
+    }
+}
@@ -0,0 +1,69 @@
+package backend.academy;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Поиск разделителя в массиве байт векторными инструкциями (Vector API).
+ *
+ * <p>Строка проходится блоками по 64 байта. Каждый блок сравнивается с разделителем векторами
+ * наибольшей доступной процессору ширины, но не шире блока (16, 32 или 64 байта), результаты сравнения
+ * собираются в битовую маску блока: бит {@code k} выставлен, если байт {@code k} блока - разделитель.
+ * Смещение разделителя - номер младшего выставленного бита.
+ *
+ * <p>Класс ссылается на модуль {@code jdk.incubator.vector}, поэтому загружается только
+ * из {@link VectorLogParser}, созданного при подключенном модуле.
+ */
+@UtilityClass
+class VectorDelimiterScanner {
+    private static final int BLOCK_SIZE = Long.SIZE;
+    // Маска вектора шире 64 байт (SVE до 256 байт) не помещается в long, а сам вектор выходит за блок
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() <= BLOCK_SIZE
+        ? ByteVector.SPECIES_PREFERRED : ByteVector.SPECIES_512;
+
+    /**
+     * Находит первый разделитель в части массива.
+     *
+     * @param bytes     Массив байт
+     * @param from      Смещение начала поиска (включительно)
+     * @param to        Смещение конца поиска (не включительно)
+     * @param delimiter Разделитель
+     * @return Смещение разделителя или -1, если его нет
+     */
+    static int indexOf(byte[] bytes, int from, int to, byte delimiter) {
+        int i = from;
+        // Блок может выходить за конец поиска, но не за конец массива: лишние биты маски отбрасываются
+        for (; i < to && i + BLOCK_SIZE <= bytes.length; i += BLOCK_SIZE) {
+            long mask = blockMask(bytes, i, delimiter);
+            if (to - i < BLOCK_SIZE) {
+                mask &= (1L << (to - i)) - 1;
+            }
+            if (mask != 0) {
+                return i + Long.numberOfTrailingZeros(mask);
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes[i] == delimiter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Строит битовую маску разделителя в блоке из 64 байт.
+     *
+     * @param bytes     Массив байт
+     * @param offset    Смещение блока; блок должен целиком лежать в массиве
+     * @param delimiter Разделитель
+     * @return Маска, в которой бит {@code k} выставлен, если {@code bytes[offset + k] == delimiter}
+     */
+    static long blockMask(byte[] bytes, int offset, byte delimiter) {
+        long mask = 0;
+        for (int lane = 0; lane < BLOCK_SIZE; lane += SPECIES.length()) {
+            mask |= ByteVector.fromArray(SPECIES, bytes, offset + lane).eq(delimiter).toLong() << lane;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,56 @@
+package backend.academy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Парсер строк лога в формате combined, который ищет разделители векторными инструкциями.
+ *
+ * <p>Грамматика и результат те же, что у {@link ScanningLogParser}; заменен только поиск концов
+ * времени и полей в кавычках в строке байт UTF-8 - его выполняет {@link VectorDelimiterScanner}
+ * по битовым маскам блоков из 64 байт. Строки {@link String} разбираются как у сканера:
+ * Vector API загружает данные только из массивов.
+ *
+ * <p>Vector API находится в инкубаторном модуле {@value #VECTOR_MODULE}, который подключается
+ * флагом {@code --add-modules jdk.incubator.vector}. Без него {@link #create()} возвращает
+ * обычный сканер.
+ */
+public final class VectorLogParser extends ScanningLogParser {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VectorLogParser.class);
+
+    /**
+     * Модуль Vector API.
+     */
+    public static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private VectorLogParser() {
+    }
+
+    /**
+     * Проверяет, подключен ли модуль Vector API.
+     *
+     * @return true, если модуль {@value #VECTOR_MODULE} загружен
+     */
+    public static boolean isSupported() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    /**
+     * Создает векторный парсер, а без модуля Vector API - однопроходный сканер.
+     *
+     * @return Парсер
+     */
+    public static ScanningLogParser create() {
+        if (isSupported()) {
+            return new VectorLogParser();
+        }
+        LOGGER.warn("Модуль {} не подключен (--add-modules {}), используется парсер scanner",
+            VECTOR_MODULE, VECTOR_MODULE);
+        return new ScanningLogParser();
+    }
+
+    @Override
+    protected int indexOf(byte[] line, int from, int end, byte delimiter) {
+        return VectorDelimiterScanner.indexOf(line, from, end, delimiter);
+    }
+}
@@ -0,0 +1,72 @@
+package backend.academy.benchmark;
+
+import backend.academy.LogFileReader;
+import backend.academy.LogParser;
+import backend.academy.ReportFormatter;
+import backend.academy.ScanningLogParser;
+import backend.academy.StatisticsCollector;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Полный цикл анализа файла: чтение, разбор, фильтрация, сбор статистики и отчет.
+ * Результат выражен в строках в секунду.
+ *
+ * <p>Запуск с сохранением результатов в JSON: {@code mvn -Pbenchmark compile exec:exec -Djmh.include=EndToEndBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+    private static final int LINES = 500_000;
+
+    @Param({"regex", "scanner"})
+    private String parserType;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private Path file;
+    private LogParser parser;
+    private LogFileReader reader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = Files.createTempFile("access", ".log");
+        new SyntheticLogGenerator.Builder().build().write(file, LINES);
+        parser = "scanner".equals(parserType) ? new ScanningLogParser() : new LogParser();
+        // Порог деления на части меньше файла, чтобы при нескольких потоках файл делился на части
+        reader = new LogFileReader(threads, Files.size(file) / threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public String analyze() throws Exception {
+        StatisticsCollector stats = new StatisticsCollector();
+        reader.readLogs(file.toString(), parser, stats, null, null, null, null);
+        return new ReportFormatter("markdown").formatReport(stats, file.toString(), null, null);
+    }
+}
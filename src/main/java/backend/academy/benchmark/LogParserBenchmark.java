@@ -0,0 +1,102 @@
+package backend.academy.benchmark;
+
+import backend.academy.LazyLogRecord;
+import backend.academy.LogParser;
+import backend.academy.LogRecord;
+import backend.academy.LogRecordFilter;
+import backend.academy.ScanningLogParser;
+import backend.academy.VectorLogParser;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Сравнение парсера на регулярном выражении, однопроходного сканера и сканера с поиском
+ * разделителей векторными инструкциями.
+ *
+ * <p>Методы {@code *Bytes} разбирают строки в байтах UTF-8 внутри общего буфера, как при чтении файла,
+ * в переиспользуемую запись. Векторный парсер отличается от сканера только в этом режиме.
+ * Форк запускается с модулем {@code jdk.incubator.vector}.
+ *
+ * <p>Запуск: {@code java -cp target/classes:<зависимости> org.openjdk.jmh.Main LogParserBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", VectorLogParser.VECTOR_MODULE})
+public class LogParserBenchmark {
+    private static final String[] LINES = {
+        "80.91.33.133 - - [17/May/2015:08:05:24 +0000] \"GET /downloads/product_1 HTTP/1.1\" 304 0 \"-\" "
+            + "\"Debian APT-HTTP/1.3 (0.8.16~exp12ubuntu10.17)\"",
+        "217.168.17.5 - - [17/May/2015:08:05:34 +0000] \"GET /downloads/product_1 HTTP/1.1\" 200 490 \"-\" "
+            + "\"Debian APT-HTTP/1.3 (0.8.10.3)\"",
+        "93.180.71.3 - - [17/May/2015:08:05:32 +0000] \"GET /downloads/product_2 HTTP/1.1\" 404 337 \"-\" "
+            + "\"Debian APT-HTTP/1.3 (0.9.7.9)\"",
+        "2001:db8::1 - admin [17/May/2015:08:05:33 +0300] \"POST /api/v1/orders?id=42 HTTP/2.0\" 201 1532 "
+            + "\"https://example.com/cart\" \"Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36\""
+    };
+
+    private final LogParser regexParser = new LogParser();
+    private final LogParser scanningParser = new ScanningLogParser();
+    private final LogParser vectorParser = VectorLogParser.create();
+    private final LazyLogRecord reuse = new LazyLogRecord();
+    private final byte[] buffer;
+    private final int[] lineStarts = new int[LINES.length + 1];
+    private int index;
+
+    public LogParserBenchmark() {
+        byte[][] encoded = Arrays.stream(LINES).map(line -> (line + "\n").getBytes(StandardCharsets.UTF_8))
+            .toArray(byte[][]::new);
+        buffer = new byte[Arrays.stream(encoded).mapToInt(line -> line.length).sum()];
+        for (int i = 0; i < encoded.length; i++) {
+            System.arraycopy(encoded[i], 0, buffer, lineStarts[i], encoded[i].length);
+            lineStarts[i + 1] = lineStarts[i] + encoded[i].length;
+        }
+    }
+
+    @Benchmark
+    public LogRecord regex() throws Exception {
+        return regexParser.parse(nextLine());
+    }
+
+    @Benchmark
+    public LogRecord scanner() throws Exception {
+        return scanningParser.parse(nextLine());
+    }
+
+    @Benchmark
+    public LogRecord regexBytes() throws Exception {
+        return parseBytes(regexParser);
+    }
+
+    @Benchmark
+    public LogRecord scannerBytes() throws Exception {
+        return parseBytes(scanningParser);
+    }
+
+    @Benchmark
+    public LogRecord vectorBytes() throws Exception {
+        return parseBytes(vectorParser);
+    }
+
+    private LogRecord parseBytes(LogParser parser) throws Exception {
+        index = (index + 1) % LINES.length;
+        return parser.parse(buffer, lineStarts[index], lineStarts[index + 1] - 1, LogRecordFilter.ACCEPT_ALL, reuse);
+    }
+
+    private String nextLine() {
+        index = (index + 1) % LINES.length;
+        return LINES[index];
+    }
+}
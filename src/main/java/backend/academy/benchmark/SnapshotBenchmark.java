@@ -0,0 +1,117 @@
+package backend.academy.benchmark;
+
+import backend.academy.LogParser;
+import backend.academy.ScanningLogParser;
+import backend.academy.StatisticsCollector;
+import backend.academy.StatisticsSnapshot;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Запись и загрузка состояния StatisticsCollector: двоичный снимок {@link StatisticsSnapshot}
+ * против JSON через Jackson. JSON содержит те же поля сборщика и читается в объекты с теми же данными.
+ * Размеры обоих представлений выводятся в лог при подготовке.
+ *
+ * <p>Запуск с сохранением результатов в JSON: {@code mvn -Pbenchmark compile exec:exec -Djmh.include=SnapshotBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotBenchmark.class);
+
+    private static final int LINES = 200_000;
+
+    // Количество разных ресурсов: от типичного сайта до API с идентификаторами в путях
+    @Param({"1000", "100000"})
+    private int urls;
+
+    // 0 - точный подсчет ресурсов, иначе приблизительный топ с такой емкостью
+    @Param({"0", "1000"})
+    private int topCapacity;
+
+    // Запись - по полям сборщика, чтение - в записи с теми же именами компонентов
+    private final ObjectMapper writer = new ObjectMapper()
+        .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+        .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    private final ObjectMapper reader = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private StatisticsCollector collector;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        LogParser parser = new ScanningLogParser();
+        collector = new StatisticsCollector(topCapacity);
+        for (String line : new SyntheticLogGenerator.Builder().setUrls(urls, 1.0).build().lines(LINES)) {
+            collector.collect(parser.parse(line));
+        }
+        binary = StatisticsSnapshot.toBytes(collector);
+        json = writer.writeValueAsBytes(collector);
+        LOGGER.info("Ресурсов: {}, емкость топа: {}; двоичный снимок: {} байт, JSON: {} байт",
+            urls, topCapacity, binary.length, json.length);
+    }
+
+    @Benchmark
+    public byte[] binaryWrite() {
+        return StatisticsSnapshot.toBytes(collector);
+    }
+
+    @Benchmark
+    public StatisticsCollector binaryRead() throws Exception {
+        return StatisticsSnapshot.fromBytes(binary);
+    }
+
+    @Benchmark
+    public byte[] jsonWrite() throws Exception {
+        return writer.writeValueAsBytes(collector);
+    }
+
+    @Benchmark
+    public CollectorJson jsonRead() throws Exception {
+        return reader.readValue(json, CollectorJson.class);
+    }
+
+    /**
+     * Состояние сборщика в JSON: поля с теми же именами, что в StatisticsCollector.
+     */
+    @SuppressWarnings("checkstyle:RecordComponentNumber")
+    public record CollectorJson(long totalRequests, long totalResponseSize, int[] responseSizes,
+                                SketchJson responseSizeSketch, Map<String, Long> resourceCount,
+                                TopJson topResources, long[] statusCount, long[] methodCount,
+                                Map<String, Long> otherMethodCount, long minTimeMillis, long maxTimeMillis) {
+    }
+
+    /**
+     * Состояние QuantileSketch в JSON.
+     */
+    public record SketchJson(double relativeAccuracy, long[] counts, long zeroCount, long count) {
+    }
+
+    /**
+     * Состояние HeavyHitters в JSON.
+     */
+    public record TopJson(int capacity, String[] keys, long[] counts, long[] errors, int size, long total) {
+    }
+}
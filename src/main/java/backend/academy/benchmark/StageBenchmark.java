@@ -0,0 +1,119 @@
+package backend.academy.benchmark;
+
+import backend.academy.LazyLogRecord;
+import backend.academy.LogParser;
+import backend.academy.LogRecord;
+import backend.academy.LogRecordFilter;
+import backend.academy.ReportFormatter;
+import backend.academy.ScanningLogParser;
+import backend.academy.StatisticsCollector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Пропускная способность отдельных этапов обработки на синтетическом логе: разбор строки,
+ * фильтрация по времени и полю, сбор статистики и форматирование отчета.
+ * Для первых трех этапов результат выражен в строках в секунду.
+ *
+ * <p>Запуск с сохранением результатов в JSON: {@code mvn -Pbenchmark compile exec:exec -Djmh.include=StageBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageBenchmark {
+    private static final int LINES = 10_000;
+
+    @Param({"regex", "scanner"})
+    private String parserType;
+
+    @Param({"1.0"})
+    private double urlSkew;
+
+    private LogParser parser;
+    private List<String> lines;
+    private List<LogRecord> records;
+    private Predicate<LogRecord> filter;
+    private StatisticsCollector collected;
+    private ReportFormatter formatter;
+    private final LazyLogRecord reusableRecord = new LazyLogRecord();
+
+    @Setup
+    public void setUp() throws Exception {
+        parser = "scanner".equals(parserType) ? new ScanningLogParser() : new LogParser();
+        lines = new SyntheticLogGenerator.Builder()
+            .setUrls(LINES, urlSkew)
+            .build()
+            .lines(LINES);
+        records = new ArrayList<>(LINES);
+        for (String line : lines) {
+            records.add(parser.parse(line));
+        }
+        // Пропускает примерно половину записей по времени и часть по агенту
+        filter = new LogRecordFilter("2024-08-31T00:00:50Z", null, "agent", "*agent/1*");
+        collected = new StatisticsCollector();
+        records.forEach(collected::collect);
+        formatter = new ReportFormatter("markdown");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parse(Blackhole blackhole) throws Exception {
+        for (String line : lines) {
+            blackhole.consume(parser.parse(line));
+        }
+    }
+
+    // Разбор в одну переиспользуемую запись, как в LogFileReader
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseReused(Blackhole blackhole) throws Exception {
+        for (String line : lines) {
+            blackhole.consume(parser.parse(line, LogRecordFilter.ACCEPT_ALL, reusableRecord));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int filter() {
+        int accepted = 0;
+        for (LogRecord logRecord : records) {
+            if (filter.test(logRecord)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public StatisticsCollector collect() {
+        StatisticsCollector stats = new StatisticsCollector();
+        for (LogRecord logRecord : records) {
+            stats.collect(logRecord);
+        }
+        return stats;
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.formatReport(collected, "access.log", null, null);
+    }
+}
@@ -0,0 +1,200 @@
+package backend.academy.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор синтетических строк лога nginx для бенчмарков.
+ *
+ * <p>Адреса, IP, коды ответа и агенты выбираются по закону Ципфа: значение с рангом {@code k}
+ * встречается с вероятностью, пропорциональной {@code 1 / k^s}. Параметр {@code s} задает перекос:
+ * 0 - равномерное распределение, около 1 - типичный веб-трафик с небольшим набором популярных адресов.
+ * При одинаковом зерне генератор выдает одну и ту же последовательность строк.
+ */
+public class SyntheticLogGenerator {
+    private static final DateTimeFormatter TIME_FORMATTER =
+        DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+    private static final int[] STATUSES = {200, 304, 404, 206, 301, 302, 403, 500, 502, 503};
+    private static final String[] METHODS = {"GET", "GET", "GET", "GET", "POST", "HEAD", "PUT", "DELETE"};
+    private static final int BYTE_MASK = 0xFF;
+    private static final int BYTE_BITS = 8;
+    // У каждого третьего адреса есть строка запроса с одним из нескольких вариантов
+    private static final int QUERY_EVERY = 3;
+    private static final int QUERY_VARIANTS = 10;
+    private static final double SIZE_LOG_MEAN = 7;
+    private static final double SIZE_LOG_DEVIATION = 2;
+
+    private final SplittableRandom random;
+    private final ZipfDistribution urls;
+    private final ZipfDistribution ips;
+    private final ZipfDistribution statuses;
+    private final ZipfDistribution agents;
+    private final long stepMillis;
+    private long timeMillis;
+
+    private SyntheticLogGenerator(Builder builder) {
+        this.random = new SplittableRandom(builder.seed);
+        this.urls = new ZipfDistribution(builder.urlCount, builder.urlSkew);
+        this.ips = new ZipfDistribution(builder.ipCount, builder.ipSkew);
+        this.statuses = new ZipfDistribution(STATUSES.length, builder.statusSkew);
+        this.agents = new ZipfDistribution(builder.agentCount, builder.agentSkew);
+        this.stepMillis = builder.stepMillis;
+        this.timeMillis = builder.startMillis;
+    }
+
+    /**
+     * Возвращает следующую строку лога; время каждой следующей строки больше на заданный шаг.
+     *
+     * @return Строка лога в формате nginx combined
+     */
+    public String nextLine() {
+        int ip = ips.sample(random);
+        int url = urls.sample(random);
+        String query = url % QUERY_EVERY == 0 ? "?page=" + ip % QUERY_VARIANTS : "";
+        String line = formatIp(ip)
+            + " - - [" + TIME_FORMATTER.format(Instant.ofEpochMilli(timeMillis)) + "] \""
+            + METHODS[url % METHODS.length] + " /resource/" + url + query
+            + " HTTP/1.1\" " + STATUSES[statuses.sample(random)] + " " + nextSize()
+            + " \"-\" \"Mozilla/5.0 (compatible; agent/" + agents.sample(random) + ")\"";
+        timeMillis += stepMillis;
+        return line;
+    }
+
+    /**
+     * Генерирует заданное количество строк.
+     *
+     * @param count Количество строк
+     * @return Строки лога
+     */
+    public List<String> lines(int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(nextLine());
+        }
+        return lines;
+    }
+
+    /**
+     * Записывает заданное количество строк в файл.
+     *
+     * @param path  Путь к файлу
+     * @param count Количество строк
+     * @throws IOException Если файл не удалось записать
+     */
+    public void write(Path path, int count) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(nextLine());
+                writer.newLine();
+            }
+        }
+    }
+
+    // Номер адреса раскладывается по трем младшим октетам сети 10.0.0.0/8
+    private static String formatIp(int ip) {
+        return "10." + (ip >>> (2 * BYTE_BITS) & BYTE_MASK) + '.' + (ip >>> BYTE_BITS & BYTE_MASK) + '.'
+            + (ip & BYTE_MASK);
+    }
+
+    private int nextSize() {
+        // Логнормальное распределение, похожее на размеры ответов (преобразование Бокса - Мюллера)
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble()))
+            * Math.cos(2 * Math.PI * random.nextDouble());
+        return (int) Math.min(Integer.MAX_VALUE, Math.exp(SIZE_LOG_MEAN + SIZE_LOG_DEVIATION * gaussian));
+    }
+
+    /**
+     * Распределение Ципфа над рангами {@code 0..n-1}, выборка через бинарный поиск по функции распределения.
+     */
+    private static final class ZipfDistribution {
+        private final double[] cumulative;
+
+        ZipfDistribution(int size, double skew) {
+            if (size < 1 || skew < 0) {
+                throw new IllegalArgumentException("Некорректные параметры распределения: " + size + ", " + skew);
+            }
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 0; rank < size; rank++) {
+                sum += 1 / Math.pow(rank + 1, skew);
+                cumulative[rank] = sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+
+    public static class Builder {
+        private static final long DEFAULT_SEED = 42;
+        private static final int DEFAULT_URL_COUNT = 10_000;
+        private static final int DEFAULT_IP_COUNT = 100_000;
+        private static final double DEFAULT_IP_SKEW = 0.8;
+        private static final double DEFAULT_STATUS_SKEW = 2.0;
+        private static final int DEFAULT_AGENT_COUNT = 50;
+        private static final long DEFAULT_STEP_MILLIS = 10;
+
+        private long seed = DEFAULT_SEED;
+        private int urlCount = DEFAULT_URL_COUNT;
+        private double urlSkew = 1.0;
+        private int ipCount = DEFAULT_IP_COUNT;
+        private double ipSkew = DEFAULT_IP_SKEW;
+        private double statusSkew = DEFAULT_STATUS_SKEW;
+        private int agentCount = DEFAULT_AGENT_COUNT;
+        private double agentSkew = 1.0;
+        private long startMillis = Instant.parse("2024-08-31T00:00:00Z").toEpochMilli();
+        private long stepMillis = DEFAULT_STEP_MILLIS;
+
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder setUrls(int count, double skew) {
+            this.urlCount = count;
+            this.urlSkew = skew;
+            return this;
+        }
+
+        public Builder setIps(int count, double skew) {
+            this.ipCount = count;
+            this.ipSkew = skew;
+            return this;
+        }
+
+        public Builder setStatusSkew(double skew) {
+            this.statusSkew = skew;
+            return this;
+        }
+
+        public Builder setAgents(int count, double skew) {
+            this.agentCount = count;
+            this.agentSkew = skew;
+            return this;
+        }
+
+        public Builder setTime(Instant start, long stepMillis) {
+            this.startMillis = start.toEpochMilli();
+            this.stepMillis = stepMillis;
+            return this;
+        }
+
+        public SyntheticLogGenerator build() {
+            return new SyntheticLogGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package backend.academy.benchmark;
+
+import backend.academy.TopSelector;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Выбор 10 самых частых ресурсов: полная сортировка потока записей против ограниченной кучи.
+ *
+ * <p>Запуск: {@code java -Xmx8g -cp target/classes:<зависимости> org.openjdk.jmh.Main TopSelectorBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TopSelectorBenchmark {
+    private static final int LIMIT = 10;
+
+    @Param({"1000000", "10000000"})
+    private int distinctKeys;
+
+    private Object2LongOpenHashMap<String> counts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        counts = new Object2LongOpenHashMap<>(distinctKeys);
+        for (int i = 0; i < distinctKeys; i++) {
+            // Распределение с тяжелым хвостом и множеством равных счетчиков
+            counts.put("/resource/" + i + "?v=" + random.nextInt(), (long) (1 / (random.nextDouble() + 1e-6)));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Long> fullSort() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        counts.object2LongEntrySet().stream()
+            .sorted(Comparator.comparingLong(Object2LongMap.Entry<String>::getLongValue)
+                .reversed()
+                .thenComparing(Map.Entry::getKey))
+            .limit(LIMIT)
+            .forEach(e -> result.put(e.getKey(), e.getLongValue()));
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, Long> boundedHeap() {
+        TopSelector<String> selector = new TopSelector<>(LIMIT);
+        counts.object2LongEntrySet().fastForEach(e -> selector.offer(e.getKey(), e.getLongValue()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        selector.drainDescending(result::put);
+        return result;
+    }
+}
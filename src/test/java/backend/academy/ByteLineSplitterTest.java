@@ -0,0 +1,86 @@
+package backend.academy;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static backend.academy.DelimiterSearchAssertions.assertMatchesByteByByteSearch;
+import static backend.academy.TestLogLines.START;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ByteLineSplitterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testIndexOfMatchesByteByByteSearch() {
+        assertMatchesByteByByteSearch((byte) '\n', ByteLineSplitter::indexOf);
+    }
+
+    @Test
+    public void testSplitsLinesAcrossBlocks() throws Exception {
+        List<String> expected = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            String line = "строка " + i;
+            if (i % 1000 == 0) {
+                line = "é".repeat(40_000 + i);
+            } else if (i % 7 == 0) {
+                line = "";
+            }
+            expected.add(line);
+            text.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        text.append("последняя без перевода строки");
+        expected.add("последняя без перевода строки");
+        InputStream input = new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<String> lines = new ArrayList<>();
+        // Источник отдает данные небольшими порциями, как сеть или распаковка
+        ByteLineSplitter.forEachLine((buffer, offset, length) -> input.read(buffer, offset, Math.min(length, 777)),
+            (buffer, start, end) -> lines.add(new String(buffer, start, end - start, StandardCharsets.UTF_8)));
+
+        assertEquals(expected, lines);
+    }
+
+    @Test
+    public void testNonAsciiLinesMatchDecodedReading() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            String resource = i % 2 == 0 ? "/файл/" + i % 10 : "/resource/" + i % 10;
+            String agent = i % 3 == 0 ? "Браузер/" + i % 4 + " (日本語)" : "curl/8.0";
+            text.append("10.0.0.").append(i % 250).append(" - - [")
+                .append(LogParser.TIME_FORMATTER.format(START.plusSeconds(i))).append("] \"GET ").append(resource)
+                .append(" HTTP/1.1\" ").append(200 + i % 3 * 100).append(' ').append(i).append(" \"-\" \"")
+                .append(agent).append("\"\n");
+        }
+        Path plain = tempDir.resolve("access.log");
+        Files.writeString(plain, text);
+        Path gzip = tempDir.resolve("access.log.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            output.write(text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        LogParser parser = new ScanningLogParser();
+        StatisticsCollector expected = new StatisticsCollector();
+        for (String line : Files.readAllLines(plain)) {
+            expected.collect(parser.parse(line));
+        }
+
+        for (Path file : List.of(plain, gzip)) {
+            StatisticsCollector actual = new StatisticsCollector();
+            new LogFileReader(1).readLogs(file.toString(), parser, actual, null, null, null, null);
+            assertArrayEquals(StatisticsSnapshot.toBytes(expected), StatisticsSnapshot.toBytes(actual));
+        }
+        StatisticsCollector filtered = new StatisticsCollector();
+        new LogFileReader(1).readLogs(plain.toString(), parser, filtered, null, null, "agent", "Браузер/1*");
+        assertEquals(250, filtered.getTotalRequests());
+    }
+}
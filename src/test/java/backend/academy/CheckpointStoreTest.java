@@ -0,0 +1,120 @@
+package backend.academy;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CheckpointStoreTest {
+    private static final Path SOURCE = Paths.get("src/test/java/backend/academy/resources/test_logs.txt");
+    private static final String SETTINGS = "null\nnull\nnull\nnull";
+
+    @TempDir
+    Path tempDir;
+
+    private Path logFile;
+    private CheckpointStore store;
+    private final LogParser parser = new ScanningLogParser();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        logFile = Files.copy(SOURCE, tempDir.resolve("access.log"));
+        store = new CheckpointStore(tempDir.resolve("checkpoints"));
+    }
+
+    @Test
+    public void testRerunReadsOnlyAppendedLines() throws Exception {
+        assertEquals(9, read(logFile, null, null));
+        CheckpointStore.Checkpoint checkpoint = store.find(logFile, SETTINGS);
+        assertNotNull(checkpoint);
+        assertEquals(Files.size(logFile), checkpoint.offset());
+        assertEquals(9, checkpoint.statistics().getTotalRequests());
+
+        assertEquals(9, read(logFile, null, null));
+
+        List<String> lines = Files.readAllLines(SOURCE);
+        Files.writeString(logFile, lines.get(0) + "\n" + lines.get(1), StandardOpenOption.APPEND);
+        assertEquals(10, read(logFile, null, null));
+        Files.writeString(logFile, "\n", StandardOpenOption.APPEND);
+        StatisticsCollector resumed = new StatisticsCollector();
+        new LogFileReader(1, store).readLogs(logFile.toString(), parser, resumed, null, null, null, null);
+        StatisticsCollector full = new StatisticsCollector();
+        new LogFileReader().readLogs(logFile.toString(), parser, full, null, null, null, null);
+
+        ReportFormatter formatter = new ReportFormatter("markdown");
+        assertEquals(11, resumed.getTotalRequests());
+        assertEquals(formatter.formatReport(full, "access.log", null, null),
+            formatter.formatReport(resumed, "access.log", null, null));
+    }
+
+    @Test
+    public void testRewrittenFileIsReadFromStart() throws Exception {
+        assertEquals(9, read(logFile, null, null));
+
+        List<String> lines = Files.readAllLines(SOURCE);
+        Files.writeString(logFile, String.join("\n", lines.subList(2, lines.size())) + "\n"
+            + String.join("\n", lines) + "\n", StandardCharsets.UTF_8);
+        assertNull(store.find(logFile, SETTINGS));
+        assertEquals(16, read(logFile, null, null));
+
+        Files.writeString(logFile, lines.get(0) + "\n", StandardOpenOption.TRUNCATE_EXISTING);
+        assertEquals(1, read(logFile, null, null));
+    }
+
+    @Test
+    public void testOtherSettingsIgnoreCheckpoint() throws Exception {
+        assertEquals(9, read(logFile, null, null));
+        long filtered = read(logFile, "method", "GET");
+
+        assertEquals(read(logFile, "method", "GET"), filtered);
+        assertEquals(9, read(logFile, null, null));
+        StatisticsCollector approximate = new StatisticsCollector(2);
+        new LogFileReader(1, store).readLogs(logFile.toString(), parser, approximate, null, null, null, null);
+        assertEquals(9, approximate.getTotalRequests());
+    }
+
+    @Test
+    public void testCorruptedCheckpointIsIgnored() throws Exception {
+        assertEquals(9, read(logFile, null, null));
+        try (var checkpoints = Files.list(tempDir.resolve("checkpoints"))) {
+            for (Path checkpoint : checkpoints.toList()) {
+                byte[] content = Files.readAllBytes(checkpoint);
+                content[content.length - 1] ^= 1;
+                Files.write(checkpoint, content);
+            }
+        }
+
+        assertNull(store.find(logFile, SETTINGS));
+        assertEquals(9, read(logFile, null, null));
+    }
+
+    @Test
+    public void testCompressedFileIsSkippedWhenUnchanged() throws Exception {
+        Path gzipFile = tempDir.resolve("access.log.1.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(gzipFile))) {
+            Files.copy(SOURCE, output);
+        }
+
+        assertEquals(9, read(gzipFile, null, null));
+        assertEquals(Files.size(gzipFile), store.find(gzipFile, SETTINGS).offset());
+        assertEquals(9, read(gzipFile, null, null));
+        assertEquals(18, read(tempDir, null, null));
+        assertEquals(18, read(tempDir, null, null));
+    }
+
+    private long read(Path path, String filterField, String filterValue) throws Exception {
+        StatisticsCollector collector = new StatisticsCollector();
+        new LogFileReader(2, store).readLogs(path.toString(), parser, collector, null, null, filterField, filterValue);
+        return collector.getTotalRequests();
+    }
+}
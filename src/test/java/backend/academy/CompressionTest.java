@@ -0,0 +1,149 @@
+package backend.academy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDetectByMagicBytes() throws Exception {
+        Path plain = Files.writeString(tempDir.resolve("access.log.gz"), "127.0.0.1 - - plain text\n");
+        Path gzip = tempDir.resolve("access.log.1");
+        Files.write(gzip, gzip("line\n".getBytes(StandardCharsets.UTF_8)));
+        Path zstd = tempDir.resolve("access.log.2");
+        Files.write(zstd, new byte[] {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0});
+        Path empty = Files.createFile(tempDir.resolve("empty.log"));
+
+        assertEquals(Compression.NONE, Compression.detect(plain));
+        assertEquals(Compression.GZIP, Compression.detect(gzip));
+        assertEquals(Compression.ZSTD, Compression.detect(zstd));
+        assertEquals(Compression.NONE, Compression.detect(empty));
+    }
+
+    @Test
+    public void testGzipIsDecompressed() throws Exception {
+        byte[] content = lines(5000);
+        Path file = tempDir.resolve("access.log.gz");
+        Files.write(file, gzip(content));
+
+        for (int threads = 1; threads <= 4; threads++) {
+            try (InputStream input = Compression.open(file, threads)) {
+                assertTrue(input instanceof ReadAheadInputStream);
+                assertEquals(new String(content, StandardCharsets.UTF_8),
+                    new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void testConcatenatedGzipMembersAreDecompressed() throws Exception {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(gzip("first\nsec".getBytes(StandardCharsets.UTF_8)));
+        file.write(gzip("ond\nthird\n".getBytes(StandardCharsets.UTF_8)));
+        Path path = Files.write(tempDir.resolve("access.log.gz"), file.toByteArray());
+
+        assertEquals(List.of(), ParallelGzipInputStream.split(path));
+        try (InputStream input = Compression.open(path, 4)) {
+            assertEquals("first\nsecond\nthird\n", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testBlockGzipMembersAreDecompressedInOrder() throws Exception {
+        byte[] content = lines(20000);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        int memberCount = 0;
+        // Части режутся посреди строк, как у bgzip
+        for (int offset = 0; offset < content.length; offset += 7000) {
+            int length = Math.min(7000, content.length - offset);
+            file.write(blockGzipMember(content, offset, length));
+            memberCount++;
+        }
+        Path path = Files.write(tempDir.resolve("access.log.bgz"), file.toByteArray());
+
+        List<ParallelGzipInputStream.Member> members = ParallelGzipInputStream.split(path);
+        assertEquals(memberCount, members.size());
+        assertEquals(0, members.getFirst().offset());
+        assertEquals(Files.size(path), members.getLast().offset() + members.getLast().length());
+
+        try (InputStream input = Compression.open(path, 3)) {
+            assertTrue(input instanceof ParallelGzipInputStream);
+            assertEquals(new String(content, StandardCharsets.UTF_8),
+                new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream input = Compression.open(path, 1)) {
+            assertEquals(new String(content, StandardCharsets.UTF_8),
+                new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testCorruptedGzipFails() throws Exception {
+        byte[] compressed = gzip(lines(1000));
+        compressed[compressed.length / 2] ^= 0x55;
+        compressed[compressed.length / 2 + 1] ^= 0x55;
+        Path path = Files.write(tempDir.resolve("broken.log.gz"), compressed);
+
+        assertThrows(IOException.class, () -> {
+            try (InputStream input = Compression.open(path, 1)) {
+                input.readAllBytes();
+            }
+        });
+    }
+
+    private static byte[] lines(int count) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            content.append("10.0.0.").append(i % 256).append(" - - \"GET /resource/").append(i).append("\"\n");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(result)) {
+            output.write(content);
+        }
+        return result.toByteArray();
+    }
+
+    // Часть gzip-файла с подполем BC в заголовке, как ее записывает bgzip
+    private static byte[] blockGzipMember(byte[] content, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content, offset, length);
+        deflater.finish();
+        byte[] deflated = new byte[length + 1024];
+        int deflatedLength = deflater.deflate(deflated);
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(content, offset, length);
+
+        int memberLength = 18 + deflatedLength + 8;
+        ByteBuffer member = ByteBuffer.allocate(memberLength).order(ByteOrder.LITTLE_ENDIAN);
+        member.put(new byte[] {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff});
+        member.putShort((short) 6);
+        member.put((byte) 'B').put((byte) 'C').putShort((short) 2).putShort((short) (memberLength - 1));
+        member.put(deflated, 0, deflatedLength);
+        member.putInt((int) crc.getValue());
+        member.putInt(length);
+        return member.array();
+    }
+}
@@ -0,0 +1,48 @@
+package backend.academy;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверка поиска разделителя в массиве байт: результат на случайных буферах сравнивается с побайтовым поиском.
+ */
+final class DelimiterSearchAssertions {
+    private static final int BUFFER_SIZE = 1000;
+    private static final int ROUNDS = 500;
+
+    private DelimiterSearchAssertions() {
+    }
+
+    /**
+     * Поиск разделителя в части массива {@code [from, to)}.
+     */
+    @FunctionalInterface
+    interface DelimiterSearch {
+        int indexOf(byte[] bytes, int from, int to);
+    }
+
+    /**
+     * Сравнивает поиск с побайтовым на случайных буферах и частях.
+     *
+     * @param delimiter Разделитель
+     * @param search    Проверяемый поиск; должен вернуть смещение первого разделителя или -1
+     */
+    static void assertMatchesByteByByteSearch(byte delimiter, DelimiterSearch search) {
+        Random random = new Random(42);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < buffer.length; i++) {
+                // Соседние с разделителем байты и байты с установленным старшим битом проверяют ложные срабатывания
+                int highBit = random.nextInt(2) * 0x80;
+                buffer[i] = (byte) (random.nextInt(50) == 0 ? delimiter : delimiter - 1 + random.nextInt(3) + highBit);
+            }
+            int from = random.nextInt(buffer.length);
+            int to = from + random.nextInt(buffer.length - from + 1);
+            int expected = -1;
+            for (int i = from; i < to && expected < 0; i++) {
+                expected = buffer[i] == delimiter ? i : -1;
+            }
+            assertEquals(expected, search.indexOf(buffer, from, to));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileChunkTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testChunksCoverAllLinesInOrder() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("access.log"),
+            "first line\nsecond\r\nтретья строка\n\nlast without newline", StandardCharsets.UTF_8);
+
+        for (int count = 1; count <= 8; count++) {
+            List<String> lines = new ArrayList<>();
+            long expectedStart = 0;
+            for (FileChunk chunk : FileChunk.split(file, count)) {
+                assertEquals(expectedStart, chunk.start());
+                assertTrue(chunk.end() > chunk.start());
+                chunk.forEachLine(lines::add);
+                expectedStart = chunk.end();
+            }
+            assertEquals(Files.size(file), expectedStart);
+            assertEquals(List.of("first line", "second", "третья строка", "", "last without newline"), lines);
+        }
+    }
+
+    @Test
+    public void testChunkBoundariesStartNewLines() throws Exception {
+        Path file = tempDir.resolve("access.log");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        Files.writeString(file, content);
+
+        List<FileChunk> chunks = FileChunk.split(file, 4);
+        assertEquals(4, chunks.size());
+        byte[] bytes = Files.readAllBytes(file);
+        for (FileChunk chunk : chunks.subList(1, chunks.size())) {
+            assertEquals('\n', bytes[(int) chunk.start() - 1]);
+        }
+    }
+
+    @Test
+    public void testRawLinesCrossMappingWindows() throws Exception {
+        Path file = tempDir.resolve("access.log");
+        List<String> expected = new ArrayList<>();
+        StringBuilder content = new StringBuilder("skipped line\n");
+        for (int i = 0; i < 500; i++) {
+            String line = "строка " + i + " " + "x".repeat(i % 37);
+            expected.add(line);
+            content.append(line).append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        Files.writeString(file, content);
+        long start = "skipped line\n".length();
+
+        // Окна меньше строки, не кратные ей и больше всего диапазона
+        for (long windowSize : new long[] {1, 7, 100, 4096, FileChunk.MAX_CHUNK_SIZE}) {
+            List<String> lines = new ArrayList<>();
+            new FileChunk(file, start, Files.size(file)).forEachRawLine(
+                (buffer, from, to) -> lines.add(new String(buffer, from, to - from, StandardCharsets.UTF_8)),
+                windowSize);
+            assertEquals(expected, lines, "окно " + windowSize);
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        Path file = Files.createFile(tempDir.resolve("empty.log"));
+        List<String> lines = new ArrayList<>();
+
+        List<FileChunk> chunks = FileChunk.split(file, 4);
+        for (FileChunk chunk : chunks) {
+            chunk.forEachLine(lines::add);
+        }
+
+        assertEquals(1, chunks.size());
+        assertTrue(lines.isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package backend.academy;
+
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeavyHittersTest {
+    private static final int CAPACITY = 100;
+
+    @Test
+    public void testExactWhileUnderCapacity() {
+        HeavyHitters hitters = new HeavyHitters(CAPACITY);
+        hitters.add("/b", 1);
+        hitters.add("/a", 3);
+        hitters.add("/c", 1);
+        hitters.add("/b", 2);
+
+        assertEquals(0, hitters.getErrorBound());
+        assertEquals(List.of(
+            new HeavyHitters.Entry("/a", 3, 0),
+            new HeavyHitters.Entry("/b", 3, 0),
+            new HeavyHitters.Entry("/c", 1, 0)), hitters.getTop(10));
+    }
+
+    @Test
+    public void testErrorBoundOnSkewedStream() {
+        HeavyHitters hitters = new HeavyHitters(CAPACITY);
+        Object2LongOpenHashMap<String> exact = new Object2LongOpenHashMap<>();
+        Random random = new Random(42);
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            // Распределение с тяжелым хвостом: немного частых ключей и много редких
+            String key = "/resource/" + (int) (1 / (random.nextDouble() + 1e-6));
+            hitters.add(key, 1);
+            exact.addTo(key, 1);
+        }
+
+        assertCounts(hitters, exact, total);
+    }
+
+    @Test
+    public void testMergeKeepsErrorBound() {
+        HeavyHitters first = new HeavyHitters(CAPACITY);
+        HeavyHitters second = new HeavyHitters(CAPACITY);
+        Object2LongOpenHashMap<String> exact = new Object2LongOpenHashMap<>();
+        Random random = new Random(7);
+        int total = 100_000;
+        for (int i = 0; i < total; i++) {
+            String key = "/resource/" + (int) (1 / (random.nextDouble() + 1e-6));
+            (i % 2 == 0 ? first : second).add(key, 1);
+            exact.addTo(key, 1);
+        }
+
+        first.merge(second);
+
+        assertEquals(total, first.getTotal());
+        assertCounts(first, exact, total);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(0));
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(1).merge(new HeavyHitters(2)));
+    }
+
+    private static void assertCounts(HeavyHitters hitters, Object2LongOpenHashMap<String> exact, long total) {
+        long errorBound = hitters.getErrorBound();
+        assertTrue(errorBound <= total / CAPACITY, "errorBound=" + errorBound);
+        for (HeavyHitters.Entry entry : hitters.getTop(CAPACITY)) {
+            long actual = exact.getLong(entry.key());
+            assertTrue(entry.count() >= actual, entry.toString());
+            assertTrue(entry.count() - entry.error() <= actual, entry.toString());
+            assertTrue(entry.error() <= errorBound, entry.toString());
+        }
+        // Каждый ключ чаще N / capacity обязан попасть в результат
+        List<String> tracked = hitters.getTop(CAPACITY).stream().map(HeavyHitters.Entry::key).toList();
+        exact.object2LongEntrySet().forEach(e -> {
+            if (e.getLongValue() > total / CAPACITY) {
+                assertTrue(tracked.contains(e.getKey()), e.getKey());
+            }
+        });
+    }
+}
@@ -0,0 +1,240 @@
+package backend.academy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static backend.academy.TestLogLines.line;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpLogSourceTest {
+    private static final int LINES = 5000;
+    private static final int TIMEOUT_MILLIS = 5000;
+    private static final int SHORT_TIMEOUT_MILLIS = 300;
+    private static final int LONG_LINES = 6;
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean breakNextResponse = new AtomicBoolean();
+    private final AtomicBoolean stallNextResponse = new AtomicBoolean();
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private HttpServer server;
+    private byte[] content;
+    private byte[] longContent;
+    private List<String> lines;
+    private List<String> longLines;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        lines = new ArrayList<>();
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            String logLine = line(i);
+            lines.add(logLine);
+            log.append(logLine).append(i % 10 == 0 ? "\r\n" : "\n");
+        }
+        content = log.toString().getBytes(StandardCharsets.UTF_8);
+        // Строки длиннее запаса за концом части, чтобы их приходилось дочитывать отдельными запросами
+        longLines = new ArrayList<>();
+        StringBuilder longLog = new StringBuilder();
+        for (int i = 0; i < LONG_LINES; i++) {
+            String logLine = line(i) + " " + "x".repeat(HttpLogSource.RANGE_SLACK * 5 / 2);
+            longLines.add(logLine);
+            longLog.append(logLine).append('\n');
+        }
+        longContent = longLog.toString().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(handlers);
+        server.createContext("/access.log", exchange -> serveLog(exchange, content, true));
+        server.createContext("/long.log", exchange -> serveLog(exchange, longContent, true));
+        server.createContext("/no-ranges.log", exchange -> serveLog(exchange, content, false));
+        server.createContext("/second.log", exchange -> {
+            byte[] second = (line(LINES) + "\n" + line(LINES + 1) + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, second.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(second);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    public void testSegmentsCoverEveryLineOnce() throws Exception {
+        HttpLogSource source = new HttpLogSource(url("/access.log"), 4096, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+
+        List<HttpLogSource.Segment> segments = source.split(8);
+        List<String> received = new ArrayList<>();
+        for (HttpLogSource.Segment segment : segments) {
+            source.forEachLine(segment, received::add);
+        }
+
+        assertEquals(8, segments.size());
+        assertEquals(content.length, segments.getLast().end());
+        assertEquals(lines, received);
+        // Запрос размера и по одному ограниченному запросу на часть
+        assertEquals(segments.size() + 1, ranges.size());
+        assertEquals("bytes=0-0", ranges.getFirst());
+        for (int i = 0; i < segments.size(); i++) {
+            HttpLogSource.Segment segment = segments.get(i);
+            long fetchFrom = Math.max(0, segment.start() - 1);
+            assertEquals("bytes=" + fetchFrom + "-" + (segment.end() - 1 + HttpLogSource.RANGE_SLACK),
+                ranges.get(i + 1));
+        }
+    }
+
+    @Test
+    public void testUnfinishedLastLineIsFetchedByFollowUpRanges() throws Exception {
+        HttpLogSource source = new HttpLogSource(url("/long.log"), 4096, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+
+        List<HttpLogSource.Segment> segments = source.split(4);
+        List<String> received = new ArrayList<>();
+        for (HttpLogSource.Segment segment : segments) {
+            source.forEachLine(segment, received::add);
+        }
+
+        assertEquals(4, segments.size());
+        assertEquals(longLines, received);
+        assertTrue(ranges.size() > segments.size() + 1);
+        assertTrue(ranges.stream().noneMatch(range -> range.endsWith("-")), ranges::toString);
+    }
+
+    @Test
+    public void testDownloadResumesAfterBrokenConnection() throws Exception {
+        HttpLogSource source = new HttpLogSource(url("/access.log"), 4096, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+        breakNextResponse.set(true);
+
+        List<String> received = new ArrayList<>();
+        source.forEachLine(HttpLogSource.Segment.WHOLE, received::add);
+
+        assertEquals(lines, received);
+        assertEquals(2, ranges.size());
+        assertEquals("bytes=" + content.length / 2 + "-", ranges.getLast());
+    }
+
+    @Test
+    public void testDownloadResumesAfterReadTimeout() throws Exception {
+        HttpLogSource source = new HttpLogSource(url("/access.log"), 4096, TIMEOUT_MILLIS, SHORT_TIMEOUT_MILLIS);
+        stallNextResponse.set(true);
+
+        List<String> received = new ArrayList<>();
+        source.forEachLine(HttpLogSource.Segment.WHOLE, received::add);
+
+        assertEquals(lines, received);
+        assertEquals(2, ranges.size());
+        assertEquals("bytes=" + content.length / 2 + "-", ranges.getLast());
+    }
+
+    @Test
+    public void testServerIgnoringRangeIsReadInOnePart() throws Exception {
+        HttpLogSource source = new HttpLogSource(url("/no-ranges.log"), 4096, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+
+        List<HttpLogSource.Segment> segments = source.split(8);
+        List<String> received = new ArrayList<>();
+        source.forEachLine(HttpLogSource.Segment.WHOLE, received::add);
+        breakNextResponse.set(true);
+
+        assertEquals(List.of(HttpLogSource.Segment.WHOLE), segments);
+        assertEquals(lines, received);
+        // Продолжить оборванную загрузку без диапазонов нельзя
+        assertThrows(IOException.class, () -> source.forEachLine(HttpLogSource.Segment.WHOLE, line -> {
+        }));
+    }
+
+    @Test
+    public void testMissingLogIsNotRetried() {
+        HttpLogSource source = new HttpLogSource(url("/missing.log"), 4096, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+
+        assertEquals(List.of(HttpLogSource.Segment.WHOLE), source.split(4));
+        assertThrows(IOException.class, () -> source.forEachLine(HttpLogSource.Segment.WHOLE, line -> {
+        }));
+    }
+
+    @Test
+    public void testReaderReadsUrlList() throws Exception {
+        LogParser parser = new LogParser();
+        StatisticsCollector expected = new StatisticsCollector();
+        for (int i = 0; i < LINES + 2; i++) {
+            expected.collect(parser.parse(line(i), new LogRecordFilter(null, null, null, null)));
+        }
+        StatisticsCollector actual = new StatisticsCollector();
+
+        new LogFileReader(3).readLogs(url("/access.log") + "," + url("/second.log"),
+            parser, actual, null, null, null, null);
+
+        assertArrayEquals(StatisticsSnapshot.toBytes(expected), StatisticsSnapshot.toBytes(actual));
+    }
+
+    @Test
+    public void testReaderFailsWhenUrlIsNotRead() {
+        LogParser parser = new LogParser();
+        String missing = url("/missing.log");
+
+        assertThrows(UncheckedIOException.class, () -> new LogFileReader(1)
+            .readLogs(missing, parser, new StatisticsCollector(), null, null, null, null));
+        assertThrows(IllegalStateException.class, () -> new LogFileReader(3)
+            .readLogs(url("/access.log") + "," + missing, parser, new StatisticsCollector(), null, null, null, null));
+    }
+
+    // Отдает лог, с поддержкой Range или без нее; при breakNextResponse обрывает ответ на середине,
+    // при stallNextResponse отдает половину ответа и перестает отвечать
+    private void serveLog(HttpExchange exchange, byte[] log, boolean acceptRanges) throws IOException {
+        String range = acceptRanges ? exchange.getRequestHeaders().getFirst("Range") : null;
+        int from = 0;
+        int to = log.length - 1;
+        if (range != null) {
+            ranges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            from = Integer.parseInt(bounds[0]);
+            to = bounds[1].isEmpty() ? to : Math.min(to, Integer.parseInt(bounds[1]));
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + to + "/" + log.length);
+        } else {
+            ranges.add("");
+        }
+        int length = to - from + 1;
+        exchange.sendResponseHeaders(range == null ? 200 : 206, length);
+        OutputStream output = exchange.getResponseBody();
+        try {
+            if (breakNextResponse.getAndSet(false)) {
+                output.write(log, from, length / 2);
+                output.flush();
+                throw new IOException("обрыв соединения");
+            }
+            if (stallNextResponse.getAndSet(false)) {
+                output.write(log, from, length / 2);
+                output.flush();
+                Thread.sleep(TIMEOUT_MILLIS);
+                return;
+            }
+            output.write(log, from, length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+}
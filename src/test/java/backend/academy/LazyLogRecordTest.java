@@ -0,0 +1,65 @@
+package backend.academy;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class LazyLogRecordTest {
+    private static final String FIRST_LINE = "192.168.1.1 - admin [17/May/2015:08:05:52 +0000] "
+        + "\"GET /downloads/product_1?os=linux HTTP/1.1\" 200 85619205 \"-\" \"Mozilla/5.0\"";
+    private static final String SECOND_LINE = "10.0.0.2 - - [17/May/2015:08:06:10 +0000] "
+        + "\"PROPFIND /dav HTTP/1.0\" 207 120 \"http://example.com\" \"curl\"";
+
+    private final LogParser parser = new ScanningLogParser();
+
+    @Test
+    public void testFieldsAreReadFromLine() throws Exception {
+        LogRecord record = parser.parse(FIRST_LINE, LogRecordFilter.ACCEPT_ALL, new LazyLogRecord());
+
+        assertEquals("192.168.1.1", record.getIp());
+        assertEquals("admin", record.getUser());
+        assertEquals(ZonedDateTime.parse("2015-05-17T08:05:52Z"), record.getTime());
+        assertEquals("GET /downloads/product_1?os=linux HTTP/1.1", record.getRequest());
+        assertEquals(HttpMethod.GET, record.getHttpMethod());
+        assertEquals("/downloads/product_1?os=linux", record.getRequestResource());
+        assertEquals("/downloads/product_1", record.getRequestPath());
+        assertEquals("os=linux", record.getRequestQuery());
+        assertEquals("HTTP/1.1", record.getRequestProtocol());
+        assertEquals(200, record.getStatus());
+        assertEquals(85619205, record.getSize());
+        assertEquals("-", record.getReferer());
+        assertEquals("Mozilla/5.0", record.getAgent());
+    }
+
+    @Test
+    public void testRecordIsReused() throws Exception {
+        LazyLogRecord reusable = new LazyLogRecord();
+        assertSame(reusable, parser.parse(FIRST_LINE, LogRecordFilter.ACCEPT_ALL, reusable));
+        LogRecord record = parser.parse(SECOND_LINE, LogRecordFilter.ACCEPT_ALL, reusable);
+
+        assertSame(reusable, record);
+        assertEquals("10.0.0.2", record.getIp());
+        assertEquals("PROPFIND", record.getRequestMethod());
+        assertEquals("/dav", record.getRequestResource());
+        assertEquals(207, record.getStatus());
+        assertEquals("http://example.com", record.getReferer());
+    }
+
+    @Test
+    public void testCollectorCopiesReusedResource() throws Exception {
+        LazyLogRecord reusable = new LazyLogRecord();
+        for (StatisticsCollector stats : new StatisticsCollector[] {new StatisticsCollector(),
+            new StatisticsCollector(10)}) {
+            stats.collect(parser.parse(FIRST_LINE, LogRecordFilter.ACCEPT_ALL, reusable));
+            stats.collect(parser.parse(SECOND_LINE, LogRecordFilter.ACCEPT_ALL, reusable));
+            stats.collect(parser.parse(FIRST_LINE, LogRecordFilter.ACCEPT_ALL, reusable));
+
+            Map<String, Long> top = stats.getTopResources(10);
+            assertEquals(2L, top.get("/downloads/product_1?os=linux"));
+            assertEquals(1L, top.get("/dav"));
+            assertEquals(1L, stats.getHttpMethods().get("PROPFIND"));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package backend.academy;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static backend.academy.TestLogLines.line;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LinePipelineTest {
+    private static final int LINES = 10_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testAllLinesReachWorkers() throws Exception {
+        AtomicLong lengthSum = new AtomicLong();
+        List<AtomicInteger> counts = new ArrayList<>();
+        LinePipeline pipeline = new LinePipeline(3, () -> {
+            AtomicInteger count = new AtomicInteger();
+            counts.add(count);
+            return line -> {
+                count.incrementAndGet();
+                lengthSum.addAndGet(line.length());
+            };
+        });
+
+        try (pipeline) {
+            for (int i = 0; i < LINES; i++) {
+                pipeline.accept(String.valueOf(i));
+            }
+        }
+
+        long expectedLength = 0;
+        for (int i = 0; i < LINES; i++) {
+            expectedLength += String.valueOf(i).length();
+        }
+        assertEquals(3, counts.size());
+        assertEquals(LINES, counts.stream().mapToInt(AtomicInteger::get).sum());
+        assertEquals(expectedLength, lengthSum.get());
+        LinePipeline.Metrics metrics = pipeline.getMetrics();
+        assertNotNull(metrics);
+        assertEquals(LINES, metrics.lines());
+        assertEquals(3, metrics.workers());
+        assertEquals(12, metrics.queueCapacity());
+        assertTrue(metrics.maxQueueDepth() <= metrics.queueCapacity());
+    }
+
+    @Test
+    public void testWorkerErrorIsRethrown() {
+        LinePipeline pipeline = new LinePipeline(2, () -> line -> {
+            if (line.equals("5000")) {
+                throw new IllegalStateException("ошибка разбора");
+            }
+        });
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> {
+            try (pipeline) {
+                for (int i = 0; i < LINES; i++) {
+                    pipeline.accept(String.valueOf(i));
+                }
+            }
+        });
+        assertEquals("ошибка разбора", error.getMessage());
+        assertNotNull(pipeline.getMetrics());
+    }
+
+    @Test
+    public void testWorkerErrorDoesNotBlockReader() {
+        // Один рабочий поток: если бы Error завершал его, чтение ждало бы места в очереди бесконечно
+        LinePipeline pipeline = new LinePipeline(1, () -> line -> {
+            if (line.equals("10")) {
+                throw new StackOverflowError("слишком глубокая рекурсия");
+            }
+        });
+
+        StackOverflowError error = assertThrows(StackOverflowError.class, () -> {
+            try (pipeline) {
+                for (int i = 0; i < LINES * 10; i++) {
+                    pipeline.accept(String.valueOf(i));
+                }
+            }
+        });
+        assertEquals("слишком глубокая рекурсия", error.getMessage());
+        assertEquals(LINES * 10, pipeline.getMetrics().lines());
+    }
+
+    @Test
+    public void testCompressedFileMatchesSequentialRead() throws Exception {
+        Path file = tempDir.resolve("access.log.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+            for (int i = 0; i < LINES; i++) {
+                output.write((line(i) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        LogParser parser = new LogParser();
+        StatisticsCollector sequential = new StatisticsCollector();
+        StatisticsCollector pipelined = new StatisticsCollector();
+
+        new LogFileReader(1).readLogs(file.toString(), parser, sequential, null, null, null, null);
+        new LogFileReader(4).readLogs(file.toString(), parser, pipelined, null, null, "status", "200");
+
+        assertEquals(LINES, sequential.getTotalRequests());
+        assertEquals((LINES + 2) / 3, pipelined.getTotalRequests());
+
+        StatisticsCollector all = new StatisticsCollector();
+        new LogFileReader(4).readLogs(file.toString(), parser, all, null, null, null, null);
+        assertArrayEquals(StatisticsSnapshot.toBytes(sequential), StatisticsSnapshot.toBytes(all));
+    }
+}
@@ -1,10 +1,18 @@
 package backend.academy;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class LogAnalyzerRunnerTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
     void testArguments() {
         LogAnalyzerRunner runner = new LogAnalyzerRunner();
@@ -39,4 +47,37 @@ class LogAnalyzerRunnerTest {
 
         assertDoesNotThrow(() -> runner.run(args));
     }
+
+    @Test
+    void testHistogramArgument() {
+        LogAnalyzerRunner runner = new LogAnalyzerRunner();
+        String[] args = {
+            "--path", "logs/*.log",
+            "--histogram", "1h"
+        };
+
+        assertDoesNotThrow(() -> runner.run(args));
+    }
+
+    @Test
+    void testMergeSnapshots() throws Exception {
+        LogParser parser = new LogParser();
+        StatisticsCollector collector = new StatisticsCollector();
+        collector.collect(parser.parse("93.180.71.3 - - [17/May/2015:08:05:32 +0000] "
+            + "\"GET /downloads/product_1 HTTP/1.1\" 304 0 \"-\" \"Debian APT-HTTP/1.3\""));
+        StatisticsSnapshot.save(collector, tempDir.resolve("host1.snapshot"));
+        StatisticsSnapshot.save(collector, tempDir.resolve("host2.snapshot"));
+        Path merged = tempDir.resolve("merged.out");
+        LogAnalyzerRunner runner = new LogAnalyzerRunner();
+        String[] args = {
+            "merge",
+            "--threads", "2",
+            "--snapshot", merged.toString(),
+            tempDir.toString()
+        };
+
+        assertDoesNotThrow(() -> runner.run(args));
+        assertTrue(Files.exists(merged));
+        assertEquals(2, StatisticsSnapshot.load(merged).getTotalRequests());
+    }
 }
@@ -0,0 +1,79 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LogFollowerTest {
+    @TempDir
+    Path tempDir;
+
+    private final List<String> lines = new ArrayList<>();
+
+    @Test
+    public void testAppendedLinesAreRead() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("access.log"), "first\nsecond\r\nthi");
+
+        try (LogFollower follower = new LogFollower(file)) {
+            assertEquals(2, follower.poll(lines::add));
+            assertEquals(0, follower.poll(lines::add));
+            append(file, "rd\nfourth\n");
+            assertEquals(2, follower.poll(lines::add));
+        }
+        assertEquals(List.of("first", "second", "third", "fourth"), lines);
+    }
+
+    @Test
+    public void testFileCreatedLaterIsRead() throws Exception {
+        Path file = tempDir.resolve("access.log");
+
+        try (LogFollower follower = new LogFollower(file)) {
+            assertEquals(0, follower.poll(lines::add));
+            Files.writeString(file, "первая строка\n");
+            assertEquals(1, follower.poll(lines::add));
+        }
+        assertEquals(List.of("первая строка"), lines);
+    }
+
+    @Test
+    public void testRenameRotationIsFollowed() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("access.log"), "old 1\n");
+
+        try (LogFollower follower = new LogFollower(file)) {
+            assertEquals(1, follower.poll(lines::add));
+            // Запись в переименованный файл до того, как сервер переоткроет лог
+            append(file, "old 2\n");
+            Files.move(file, tempDir.resolve("access.log.1"));
+            append(tempDir.resolve("access.log.1"), "old 3\n");
+            assertEquals(2, follower.poll(lines::add));
+
+            Files.writeString(file, "new 1\n");
+            assertEquals(1, follower.poll(lines::add));
+            append(file, "new 2\n");
+            assertEquals(1, follower.poll(lines::add));
+        }
+        assertEquals(List.of("old 1", "old 2", "old 3", "new 1", "new 2"), lines);
+    }
+
+    @Test
+    public void testTruncationRestartsFromBeginning() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("access.log"), "line 1\nline 2\n");
+
+        try (LogFollower follower = new LogFollower(file)) {
+            assertEquals(2, follower.poll(lines::add));
+            Files.writeString(file, "new\n", StandardOpenOption.TRUNCATE_EXISTING);
+            assertEquals(1, follower.poll(lines::add));
+        }
+        assertEquals(List.of("line 1", "line 2", "new"), lines);
+    }
+
+    private static void append(Path file, String text) throws Exception {
+        Files.writeString(file, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
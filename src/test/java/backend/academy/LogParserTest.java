@@ -3,6 +3,7 @@ package backend.academy;
 import java.time.ZonedDateTime;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -37,4 +38,30 @@ public class LogParserTest {
 
         assertTrue(actualMessage.contains(expectedMessage));
     }
+
+    @Test
+    public void testRequestLineDecomposition() throws Exception {
+        String logLine = "10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"GET /search?q=nginx&page=2 HTTP/1.1\" 200 12 "
+            + "\"-\" \"curl\"";
+        LogRecord record = new LogParser().parse(logLine);
+
+        assertEquals(HttpMethod.GET, record.getHttpMethod());
+        assertEquals("GET", record.getRequestMethod());
+        assertEquals("/search?q=nginx&page=2", record.getRequestResource());
+        assertEquals("/search", record.getRequestPath());
+        assertEquals("q=nginx&page=2", record.getRequestQuery());
+        assertEquals("HTTP/1.1", record.getRequestProtocol());
+    }
+
+    @Test
+    public void testRequestLineWithoutProtocol() throws Exception {
+        String logLine = "10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"PROPFIND /dav\" 207 12 \"-\" \"curl\"";
+        LogRecord record = new LogParser().parse(logLine);
+
+        assertNull(record.getHttpMethod());
+        assertEquals("PROPFIND", record.getRequestMethod());
+        assertEquals("/dav", record.getRequestPath());
+        assertEquals("", record.getRequestQuery());
+        assertEquals("", record.getRequestProtocol());
+    }
 }
@@ -2,17 +2,28 @@ package backend.academy;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.OutputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class LogFileReaderTest {
+    @TempDir
+    Path tempDir;
+
     private LogFileReader logFileReader;
     private LogParser logParser;
     private StatisticsCollector statsCollector;
@@ -48,6 +59,82 @@ class LogFileReaderTest {
         assertEquals(1, statsCollector.getTotalRequests());
     }
 
+    @Test
+    void testParallelReadMatchesSequential() {
+        String directory = "src/test/java/backend/academy/resources";
+        StatisticsCollector parallelCollector = new StatisticsCollector();
+
+        assertDoesNotThrow(() -> {
+            logFileReader.readLogs(directory, logParser, statsCollector, null, null, null, null);
+            new LogFileReader(4).readLogs(directory, logParser, parallelCollector, null, null, null, null);
+        });
+
+        ReportFormatter formatter = new ReportFormatter("markdown");
+        assertEquals(18, parallelCollector.getTotalRequests());
+        assertEquals(formatter.formatReport(statsCollector, directory, null, null),
+            formatter.formatReport(parallelCollector, directory, null, null));
+    }
+
+    @Test
+    void testChunkedReadMatchesSequential() {
+        String filePath = "src/test/java/backend/academy/resources/test_logs.txt";
+        StatisticsCollector chunkedCollector = new StatisticsCollector();
+
+        assertDoesNotThrow(() -> {
+            logFileReader.readLogs(filePath, logParser, statsCollector, null, null, null, null);
+            new LogFileReader(3, 1).readLogs(filePath, logParser, chunkedCollector, null, null, null, null);
+        });
+
+        ReportFormatter formatter = new ReportFormatter("markdown");
+        assertEquals(9, chunkedCollector.getTotalRequests());
+        assertEquals(formatter.formatReport(statsCollector, filePath, null, null),
+            formatter.formatReport(chunkedCollector, filePath, null, null));
+    }
+
+    @Test
+    void testGzipReadMatchesPlain() throws Exception {
+        String filePath = "src/test/java/backend/academy/resources/test_logs.txt";
+        Path gzipPath = tempDir.resolve("test_logs.txt.1");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(gzipPath))) {
+            Files.copy(Paths.get(filePath), output);
+        }
+        StatisticsCollector gzipCollector = new StatisticsCollector();
+        StatisticsCollector chunkedGzipCollector = new StatisticsCollector();
+
+        assertDoesNotThrow(() -> {
+            logFileReader.readLogs(filePath, logParser, statsCollector, null, null, null, null);
+            logFileReader.readLogs(gzipPath.toString(), logParser, gzipCollector, null, null, null, null);
+            new LogFileReader(3, 1).readLogs(tempDir.toString(), logParser, chunkedGzipCollector,
+                null, null, null, null);
+        });
+
+        ReportFormatter formatter = new ReportFormatter("markdown");
+        assertEquals(9, gzipCollector.getTotalRequests());
+        assertEquals(formatter.formatReport(statsCollector, filePath, null, null),
+            formatter.formatReport(gzipCollector, filePath, null, null));
+        assertEquals(formatter.formatReport(statsCollector, filePath, null, null),
+            formatter.formatReport(chunkedGzipCollector, filePath, null, null));
+    }
+
+    @Test
+    void testFollowReportsAppendedLines() throws Exception {
+        Path source = Paths.get("src/test/java/backend/academy/resources/test_logs.txt");
+        Path file = Files.copy(source, tempDir.resolve("access.log"));
+        BlockingQueue<Long> refreshes = new LinkedBlockingQueue<>();
+
+        Thread follower = Thread.ofPlatform().start(() -> assertDoesNotThrow(() -> logFileReader.followLogs(
+            file.toString(), logParser, statsCollector, LogRecordFilter.ACCEPT_ALL, Duration.ofHours(1), 9,
+            () -> refreshes.add(statsCollector.getTotalRequests()))));
+
+        assertEquals(9L, refreshes.poll(10, TimeUnit.SECONDS));
+        Files.write(file, Files.readAllBytes(source), StandardOpenOption.APPEND);
+        assertEquals(18L, refreshes.poll(10, TimeUnit.SECONDS));
+
+        follower.interrupt();
+        follower.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(null, refreshes.poll());
+    }
+
     @Test
     void testAbsolutePath() {
         Path absolutePath = Paths.get("src/test/java/backend/academy/resources/test_logs.txt").toAbsolutePath();
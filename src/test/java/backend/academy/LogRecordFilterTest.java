@@ -0,0 +1,79 @@
+package backend.academy;
+
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogRecordFilterTest {
+    private final LogRecord logRecord = new LogRecord.Builder()
+        .setIp("192.168.1.1")
+        .setUser("-")
+        .setTime(ZonedDateTime.parse("2024-08-31T10:00:00Z"))
+        .setRequest("GET /index.html HTTP/1.1")
+        .setStatus(200)
+        .setSize(500)
+        .setReferer("-")
+        .setAgent("Mozilla/5.0")
+        .build();
+
+    @Test
+    public void testTimeBoundsAreInclusive() {
+        assertTrue(new LogRecordFilter(null, null, null, null).test(logRecord));
+        assertTrue(new LogRecordFilter("2024-08-31T10:00:00Z", "2024-08-31T10:00:00Z", null, null).test(logRecord));
+        assertFalse(new LogRecordFilter("2024-08-31T10:00:01Z", null, null, null).test(logRecord));
+        assertFalse(new LogRecordFilter(null, "2024-08-31T09:59:59Z", null, null).test(logRecord));
+    }
+
+    @Test
+    public void testFieldFilter() {
+        assertTrue(new LogRecordFilter(null, null, "agent", "Mozilla*").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "status", "200").test(logRecord));
+        assertFalse(new LogRecordFilter(null, null, "method", "POST").test(logRecord));
+        assertFalse(new LogRecordFilter(null, null, "unknown", "value").test(logRecord));
+    }
+
+    @Test
+    public void testGlobFastPaths() {
+        assertTrue(new LogRecordFilter(null, null, "resource", "/index*").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "resource", "*.html").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "resource", "*dex*").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "resource", "*").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "Method", "GET").test(logRecord));
+        assertFalse(new LogRecordFilter(null, null, "resource", "/index").test(logRecord));
+        assertFalse(new LogRecordFilter(null, null, "resource", "*.htm").test(logRecord));
+        assertFalse(new LogRecordFilter(null, null, "method", "GE").test(logRecord));
+    }
+
+    @Test
+    public void testRequestPartFields() {
+        assertTrue(new LogRecordFilter(null, null, "path", "/index.html").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "protocol", "HTTP/1.1").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "query", "").test(logRecord));
+        assertFalse(new LogRecordFilter(null, null, "protocol", "HTTP/2*").test(logRecord));
+    }
+
+    @Test
+    public void testRegexFallback() {
+        assertTrue(new LogRecordFilter(null, null, "resource", "/in*.html").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "ip", "192.168.1.*").test(logRecord));
+        assertTrue(new LogRecordFilter(null, null, "status", "2[0-9]*").test(logRecord));
+        assertFalse(new LogRecordFilter(null, null, "status", "[45]*").test(logRecord));
+    }
+
+    @Test
+    public void testFilterAppliedBeforeRecordIsBuilt() throws Exception {
+        String line = "192.168.1.1 - - [31/Aug/2024:10:00:00 +0000] \"GET /index.html HTTP/1.1\" 200 500 "
+            + "\"-\" \"Mozilla/5.0\"";
+        for (LogParser parser : new LogParser[] {new LogParser(), new ScanningLogParser()}) {
+            assertNotNull(parser.parse(line, new LogRecordFilter(null, null, "resource", "/index.html")));
+            assertNotNull(parser.parse(line, new LogRecordFilter(null, null, "agent", "Mozilla*")));
+            assertNotNull(parser.parse(line, new LogRecordFilter(null, null, "protocol", "HTTP/1.*")));
+            assertNull(parser.parse(line, new LogRecordFilter(null, null, "method", "POST")));
+            assertNull(parser.parse(line, new LogRecordFilter(null, null, "status", "404")));
+            assertNull(parser.parse(line, new LogRecordFilter("2024-08-31T10:00:01Z", null, null, null)));
+        }
+    }
+}
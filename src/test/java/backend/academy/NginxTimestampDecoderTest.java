@@ -0,0 +1,59 @@
+package backend.academy;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class NginxTimestampDecoderTest {
+
+    @Test
+    public void testDecodeMatchesZonedDateTimeParse() {
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        String[] timestamps = {
+            "17/May/2015:08:05:52 +0000",
+            "17/May/2015:08:05:53 +0000",
+            "17/May/2015:08:06:00 +0000",
+            "17/May/2015:08:06:00 +0300",
+            "31/Dec/2023:23:59:59 -0930",
+            "01/Jan/2024:00:00:00 +1800",
+            "29/Feb/2024:12:30:15 +0000",
+            "17/May/2015:08:05:52 +0000"
+        };
+        for (String timestamp : timestamps) {
+            assertEquals(expectedMillis(timestamp), decoder.decode(timestamp), timestamp);
+        }
+    }
+
+    @Test
+    public void testDecodeSubstring() {
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        String line = "1.1.1.1 - - [17/May/2015:08:05:52 +0000] \"GET / HTTP/1.1\"";
+        int start = line.indexOf('[') + 1;
+        int end = line.indexOf(']');
+
+        assertEquals(expectedMillis("17/May/2015:08:05:52 +0000"), decoder.decode(line, start, end));
+    }
+
+    @Test
+    public void testFallbackForNonStandardValues() {
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+
+        // 30 февраля SMART-резолвер форматтера приводит к последнему дню месяца
+        assertEquals(expectedMillis("30/Feb/2015:08:05:52 +0000"), decoder.decode("30/Feb/2015:08:05:52 +0000"));
+    }
+
+    @Test
+    public void testInvalidTimestamp() {
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+
+        assertThrows(DateTimeParseException.class, () -> decoder.decode("17/Mai/2015:08:05:52 +0000"));
+        assertThrows(DateTimeParseException.class, () -> decoder.decode("17/May/2015:25:05:52 +0000"));
+        assertThrows(DateTimeParseException.class, () -> decoder.decode("not a timestamp"));
+    }
+
+    private static long expectedMillis(String timestamp) {
+        return ZonedDateTime.parse(timestamp, LogParser.TIME_FORMATTER).toInstant().toEpochMilli();
+    }
+}
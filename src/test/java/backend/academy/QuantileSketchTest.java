@@ -0,0 +1,69 @@
+package backend.academy;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class QuantileSketchTest {
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0.01, 0.5, 0.9, 0.95, 0.99, 0.999, 1.0};
+
+    @Test
+    public void testRelativeErrorBound() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        Random random = new Random(42);
+        int[] values = new int[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Логнормальное распределение, похожее на размеры ответов
+            values[i] = (int) Math.exp(7 + 2 * random.nextGaussian());
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : QUANTILES) {
+            int exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            assertEquals(exact, sketch.getQuantile(quantile), exact * ACCURACY + 1e-9, "q=" + quantile);
+        }
+    }
+
+    @Test
+    public void testMergeEqualsSingleSketch() {
+        QuantileSketch whole = new QuantileSketch(ACCURACY);
+        QuantileSketch first = new QuantileSketch(ACCURACY);
+        QuantileSketch second = new QuantileSketch(ACCURACY);
+        for (int i = 0; i < 10_000; i++) {
+            whole.add(i);
+            (i % 3 == 0 ? first : second).add(i);
+        }
+
+        first.merge(second);
+
+        assertEquals(whole.getCount(), first.getCount());
+        for (double quantile : QUANTILES) {
+            assertEquals(whole.getQuantile(quantile), first.getQuantile(quantile), 0.0);
+        }
+    }
+
+    @Test
+    public void testZerosAndEmpty() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        assertEquals(0, sketch.getQuantile(0.95), 0.0);
+
+        sketch.add(0);
+        sketch.add(0);
+        sketch.add(Integer.MAX_VALUE);
+
+        assertEquals(0, sketch.getQuantile(0.5), 0.0);
+        assertEquals(Integer.MAX_VALUE, sketch.getQuantile(1.0), Integer.MAX_VALUE * ACCURACY);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(ACCURACY).add(-1));
+        assertThrows(IllegalArgumentException.class,
+            () -> new QuantileSketch(ACCURACY).merge(new QuantileSketch(0.05)));
+    }
+}
@@ -1,7 +1,10 @@
 package backend.academy;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ReportFormatterTest {
@@ -79,4 +82,60 @@ public class ReportFormatterTest {
         assertTrue(report.contains("| 200 | 2 "));
         assertTrue(report.contains("| 404 | 1 "));
     }
+
+    @Test
+    public void testCustomPercentiles() {
+        StatisticsCollector stats = new StatisticsCollector();
+        stats.collect(record1);
+        stats.collect(record2);
+        stats.collect(record3);
+
+        ReportFormatter formatter = new ReportFormatter("markdown", List.of(50.0, 99.9));
+        String report = formatter.formatReport(stats, "access.log", null, null);
+        assertTrue(report.contains("| 50-й перцентиль размера ответа | 500 B |"));
+        assertTrue(report.contains("| 99.9-й перцентиль размера ответа | 700 B |"));
+        assertFalse(report.contains("95-й перцентиль"));
+    }
+
+    @Test
+    public void testApproximateTopResourcesLabel() {
+        StatisticsCollector exact = new StatisticsCollector(2);
+        exact.collect(record1);
+        exact.collect(record3);
+        String exactReport = new ReportFormatter("markdown").formatReport(exact, "access.log", null, null);
+        assertTrue(exactReport.contains("| Ресурс | Количество |"));
+
+        StatisticsCollector approximate = new StatisticsCollector(1);
+        approximate.collect(record1);
+        approximate.collect(record2);
+        approximate.collect(record3);
+        String report = new ReportFormatter("markdown").formatReport(approximate, "access.log", null, null);
+        assertTrue(report.contains("| Ресурс | Количество (приблизительно, завышено не более чем на 3) |"));
+        // Емкость 1: каждый новый ресурс вытесняет предыдущий и наследует его счетчик
+        assertTrue(report.contains("| `/index.html` | 3 |"));
+    }
+
+    @Test
+    public void testTimeHistogramTable() {
+        StatisticsCollector stats = new StatisticsCollector(0, Duration.ofMinutes(5));
+        stats.collect(record1);
+        stats.collect(record2);
+        stats.collect(record3);
+
+        String report = new ReportFormatter("markdown").formatReport(stats, "access.log", null, null);
+        assertTrue(report.contains("### Запросы по времени (интервал 5 мин)"));
+        assertTrue(report.contains("| Начало интервала (UTC) | Запросы | Объем ответов | 2xx | 3xx | 4xx | 5xx |\n"
+            + "|:------------------------|--------------------------:|----------:|----------:|----------:|"
+            + "----------:|----------:|\n"));
+        assertTrue(report.contains("| 2024-08-31 10:00 | 1 | 500 B | 1 | 0 | 0 | 0 |"));
+        assertTrue(report.contains("| 2024-08-31 10:05 | 1 | 300 B | 0 | 0 | 1 | 0 |"));
+        assertTrue(report.contains("| 2024-08-31 10:10 | 1 | 700 B | 1 | 0 | 0 | 0 |"));
+
+        String adoc = new ReportFormatter("adoc").formatReport(stats, "access.log", null, null);
+        assertTrue(adoc.contains("==== Запросы по времени (интервал 5 мин) ===="));
+        assertTrue(adoc.contains("| 2024-08-31 10:05 | 1 | 300 B | 0 | 0 | 1 | 0 "));
+
+        String withoutHistogram = new ReportFormatter("markdown").formatReport(this.stats, "access.log", null, null);
+        assertFalse(withoutHistogram.contains("Запросы по времени"));
+    }
 }
@@ -0,0 +1,123 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScanningLogParserTest {
+    private final LogParser regexParser = new LogParser();
+    private final LogParser scanningParser = new ScanningLogParser();
+
+    @Test
+    public void testSameResultOnTestCorpus() throws Exception {
+        for (String file : List.of("test_logs.txt", "test_logs2.txt")) {
+            List<String> lines = Files.readAllLines(Path.of("src/test/java/backend/academy/resources", file));
+            for (String line : lines) {
+                assertSameRecord(regexParser.parse(line), scanningParser.parse(line));
+            }
+        }
+    }
+
+    @Test
+    public void testSameResultOnEdgeCases() throws Exception {
+        String[] lines = {
+            "::1 - admin [17/May/2015:08:05:52 +0300] \"GET /a b c HTTP/1.1\" 200 0 \"\" \"\"",
+            "10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"GET / HTTP/1.1\" 500 12 \"-\" \"curl\" trailing",
+            "host_name.local - - [17/May/2015:08:05:52 -0700] \"x\" 999 7 \"[ref]\" \"agent [x]\""
+        };
+        for (String line : lines) {
+            assertSameRecord(regexParser.parse(line), scanningParser.parse(line));
+        }
+    }
+
+    @Test
+    public void testRejectsSameLinesAsRegex() {
+        String[] lines = {
+            "Invalid log line",
+            "",
+            "10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"\" 200 12 \"-\" \"curl\"",
+            "10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"GET / HTTP/1.1\" 2000 12 \"-\" \"curl\"",
+            "10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"GET / HTTP/1.1\" 200 - \"-\" \"curl\"",
+            "10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"GET / HTTP/1.1\" 200 12 \"-\" \"curl",
+            "10.0.0.1 -  [17/May/2015:08:05:52 +0000] \"GET / HTTP/1.1\" 200 12 \"-\" \"curl\"",
+            "10.0.0.1/8 - - [17/May/2015:08:05:52 +0000] \"GET / HTTP/1.1\" 200 12 \"-\" \"curl\""
+        };
+        for (String line : lines) {
+            assertThrows(Exception.class, () -> regexParser.parse(line));
+            Exception exception = assertThrows(Exception.class, () -> scanningParser.parse(line));
+            assertTrue(exception.getMessage().contains("Неверный формат лога"));
+        }
+    }
+
+    @Test
+    public void testBytesSameResultAsString() throws Exception {
+        List<String> lines = new ArrayList<>(
+            Files.readAllLines(Path.of("src/test/java/backend/academy/resources", "test_logs.txt")));
+        lines.add("::1 - admin [17/May/2015:08:05:52 +0300] \"GET /a b c HTTP/1.1\" 200 0 \"\" \"\"");
+        lines.add("10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"PROPFIND /dav HTTP/1.1\" 207 1 \"-\" \"x\"");
+        lines.add("10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"GET /файлы/отчет.pdf?q=ü HTTP/1.1\" 200 12 "
+            + "\"https://пример.рф/\" \"Браузер/1.0 (日本語)\"");
+        LazyLogRecord reuse = new LazyLogRecord();
+        for (String line : lines) {
+            byte[] bytes = ("мусор\n" + line + "\r\n").getBytes(StandardCharsets.UTF_8);
+            int start = "мусор\n".getBytes(StandardCharsets.UTF_8).length;
+            int end = bytes.length - 2;
+
+            LogRecord expected = scanningParser.parse(line);
+            LogRecord actual = scanningParser.parse(bytes, start, end, LogRecordFilter.ACCEPT_ALL, reuse);
+
+            assertSameRecord(expected, actual);
+            assertSameRecord(expected, regexParser.parse(bytes, start, end, LogRecordFilter.ACCEPT_ALL, reuse));
+            assertEquals(expected.getRequestMethod(), actual.getRequestMethod());
+            assertEquals(expected.getHttpMethod(), actual.getHttpMethod());
+            assertEquals(expected.getRequestResource(), actual.getRequestResource());
+            assertEquals(expected.getRequestPath(), actual.getRequestPath());
+            assertEquals(expected.getRequestQuery(), actual.getRequestQuery());
+            assertEquals(expected.getRequestProtocol(), actual.getRequestProtocol());
+            CharSequence resource = actual.getRequestResourceChars();
+            assertEquals(expected.getRequestResource(), resource.toString());
+            assertEquals(expected.getRequestResource().hashCode(),
+                CharSequenceHashStrategy.INSTANCE.hashCode(resource));
+        }
+    }
+
+    @Test
+    public void testBytesRejectedAndFilteredLikeString() throws Exception {
+        String line = "10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"GET /ü HTTP/1.1\" 200 12 \"-\" \"Агент\"";
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        LazyLogRecord reuse = new LazyLogRecord();
+
+        LogRecordFilter agent = new LogRecordFilter(null, null, "agent", "Аг*");
+        LogRecordFilter otherAgent = new LogRecordFilter(null, null, "agent", "curl*");
+        LogRecordFilter resource = new LogRecordFilter(null, null, "resource", "/ü");
+
+        assertEquals("Агент", scanningParser.parse(bytes, 0, bytes.length, agent, reuse).getAgent());
+        assertNull(scanningParser.parse(bytes, 0, bytes.length, otherAgent, reuse));
+        assertEquals("/ü", scanningParser.parse(bytes, 0, bytes.length, resource, reuse).getRequestResource());
+        byte[] broken = line.replace("200", "2000").getBytes(StandardCharsets.UTF_8);
+        Exception exception = assertThrows(Exception.class,
+            () -> scanningParser.parse(broken, 0, broken.length, LogRecordFilter.ACCEPT_ALL, reuse));
+        assertTrue(exception.getMessage().contains("Агент"));
+        byte[] huge = line.replace(" 12 ", " 99999999999 ").getBytes(StandardCharsets.UTF_8);
+        assertThrows(NumberFormatException.class,
+            () -> scanningParser.parse(huge, 0, huge.length, LogRecordFilter.ACCEPT_ALL, reuse));
+    }
+
+    private static void assertSameRecord(LogRecord expected, LogRecord actual) {
+        assertEquals(expected.getIp(), actual.getIp());
+        assertEquals(expected.getUser(), actual.getUser());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getRequest(), actual.getRequest());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getSize(), actual.getSize());
+        assertEquals(expected.getReferer(), actual.getReferer());
+        assertEquals(expected.getAgent(), actual.getAgent());
+    }
+}
@@ -0,0 +1,84 @@
+package backend.academy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static backend.academy.TestLogLines.START;
+import static backend.academy.TestLogLines.line;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceFanOutTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLinesOfEachSourceAreProcessedInOrder() {
+        int sourceCount = SourceFanOut.MAX_OPEN_SOURCES * 2;
+        int lineCount = LinePipeline.BATCH_LINES * 3 + 7;
+        int parseThreads = 3;
+        List<List<String>> received = new ArrayList<>();
+        for (int s = 0; s < sourceCount; s++) {
+            received.add(new ArrayList<>());
+        }
+        AtomicInteger workers = new AtomicInteger();
+        // Пачки одного источника разбираются по очереди, поэтому список источника пополняется последовательно
+        Supplier<Consumer<String>> workerFactory = () -> {
+            workers.incrementAndGet();
+            return line -> received.get(Integer.parseInt(line.substring(0, line.indexOf(':')))).add(line);
+        };
+        try (SourceFanOut fanOut = new SourceFanOut(parseThreads, workerFactory)) {
+            for (int s = 0; s < sourceCount; s++) {
+                String prefix = s + ":";
+                fanOut.submit(consumer -> {
+                    for (int i = 0; i < lineCount; i++) {
+                        consumer.accept(prefix + i);
+                    }
+                });
+            }
+        }
+
+        assertTrue(workers.get() <= parseThreads);
+        for (int s = 0; s < sourceCount; s++) {
+            List<String> lines = received.get(s);
+            assertEquals(lineCount, lines.size());
+            for (int i = 0; i < lineCount; i++) {
+                assertEquals(s + ":" + i, lines.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testManySmallFilesMatchSequentialRead() throws Exception {
+        for (int file = 0; file < 300; file++) {
+            StringBuilder log = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                log.append(line(file * 20 + i)).append('\n');
+            }
+            Files.writeString(tempDir.resolve("vhost-" + file + ".log"), log);
+        }
+        LogParser parser = new LogParser();
+        String from = START.plusSeconds(1000).toString();
+        StatisticsCollector sequential = new StatisticsCollector();
+        StatisticsCollector concurrent = new StatisticsCollector();
+        StatisticsCollector window = new StatisticsCollector();
+        StatisticsCollector sequentialWindow = new StatisticsCollector();
+
+        new LogFileReader(1).readLogs(tempDir.toString(), parser, sequential, null, null, null, null);
+        new LogFileReader(2, true).readLogs(tempDir.toString(), parser, concurrent, null, null, null, null);
+        new LogFileReader(1).readLogs(tempDir.toString(), parser, sequentialWindow, from, null, null, null);
+        new LogFileReader(2, true).readLogs(tempDir.toString(), parser, window, from, null, null, null);
+
+        assertEquals(6000, concurrent.getTotalRequests());
+        assertArrayEquals(StatisticsSnapshot.toBytes(sequential), StatisticsSnapshot.toBytes(concurrent));
+        assertEquals(5000, window.getTotalRequests());
+        assertArrayEquals(StatisticsSnapshot.toBytes(sequentialWindow), StatisticsSnapshot.toBytes(window));
+    }
+}
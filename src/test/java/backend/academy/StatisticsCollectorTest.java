@@ -4,6 +4,8 @@ import java.time.ZonedDateTime;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StatisticsCollectorTest {
 
@@ -52,14 +54,120 @@ public class StatisticsCollectorTest {
         assertEquals((500 + 300 + 700) / 3.0, stats.getAverageResponseSize(), 0.001);
         assertEquals(700, stats.getPercentile95ResponseSize());
 
-        Map<String, Integer> topResources = stats.getTopResources(10);
+        Map<String, Long> topResources = stats.getTopResources(10);
         assertEquals(2, topResources.size());
-        assertEquals(2, topResources.get("/index.html"));
-        assertEquals(1, topResources.get("/submit"));
+        assertEquals(2L, topResources.get("/index.html"));
+        assertEquals(1L, topResources.get("/submit"));
 
-        Map<Integer, Integer> statusCodes = stats.getStatusCodes();
+        Map<Integer, Long> statusCodes = stats.getStatusCodes();
         assertEquals(2, statusCodes.size());
-        assertEquals(2, statusCodes.get(200));
-        assertEquals(1, statusCodes.get(404));
+        assertEquals(2L, statusCodes.get(200));
+        assertEquals(1L, statusCodes.get(404));
+    }
+
+    @Test
+    public void testMerge() {
+        LogRecord record1 = new LogRecord.Builder()
+            .setIp("192.168.1.1")
+            .setUser("-")
+            .setTime(ZonedDateTime.parse("2024-08-31T10:00:00Z"))
+            .setRequest("GET /index.html HTTP/1.1")
+            .setStatus(200)
+            .setSize(500)
+            .setReferer("-")
+            .setAgent("Mozilla/5.0")
+            .build();
+
+        LogRecord record2 = new LogRecord.Builder()
+            .setIp("192.168.1.2")
+            .setUser("-")
+            .setTime(ZonedDateTime.parse("2024-08-31T09:00:00Z"))
+            .setRequest("POST /index.html HTTP/1.1")
+            .setStatus(404)
+            .setSize(300)
+            .setReferer("-")
+            .setAgent("curl/7.68.0")
+            .build();
+
+        StatisticsCollector first = new StatisticsCollector();
+        first.collect(record1);
+        StatisticsCollector second = new StatisticsCollector();
+        second.collect(record2);
+        second.collect(record1);
+
+        first.merge(second);
+
+        assertEquals(3, first.getTotalRequests());
+        assertEquals(500, first.getPercentile95ResponseSize());
+        assertEquals(3L, first.getTopResources(10).get("/index.html"));
+        assertEquals(2L, first.getStatusCodes().get(200));
+        assertEquals(1L, first.getHttpMethods().get("POST"));
+        assertEquals(ZonedDateTime.parse("2024-08-31T09:00:00Z"), first.getMinDate());
+        assertEquals(ZonedDateTime.parse("2024-08-31T10:00:00Z"), first.getMaxDate());
+    }
+
+    @Test
+    public void testApproximatePercentilesForLargeInput() {
+        StatisticsCollector stats = new StatisticsCollector();
+        int total = StatisticsCollector.EXACT_PERCENTILE_LIMIT + 1;
+        for (int i = 1; i <= total; i++) {
+            stats.collect(new LogRecord.Builder()
+                .setTime(ZonedDateTime.parse("2024-08-31T10:00:00Z"))
+                .setRequest("GET /index.html HTTP/1.1")
+                .setStatus(200)
+                .setSize(i)
+                .build());
+        }
+
+        assertFalse(stats.isPercentileExact());
+        assertEquals(total * 0.5, stats.getPercentileResponseSize(50),
+            total * StatisticsCollector.PERCENTILE_ACCURACY);
+        assertEquals(total * 0.999, stats.getPercentileResponseSize(99.9),
+            total * StatisticsCollector.PERCENTILE_ACCURACY);
+    }
+
+    @Test
+    public void testExactPercentiles() {
+        StatisticsCollector stats = new StatisticsCollector();
+        for (int size = 100; size >= 1; size--) {
+            stats.collect(new LogRecord.Builder()
+                .setTime(ZonedDateTime.parse("2024-08-31T10:00:00Z"))
+                .setRequest("GET /index.html HTTP/1.1")
+                .setStatus(200)
+                .setSize(size)
+                .build());
+        }
+
+        assertTrue(stats.isPercentileExact());
+        assertEquals(50, stats.getPercentileResponseSize(50));
+        assertEquals(99, stats.getPercentileResponseSize(99));
+        assertEquals(100, stats.getPercentileResponseSize(99.9));
+    }
+
+    @Test
+    public void testApproximateTopResources() {
+        StatisticsCollector stats = new StatisticsCollector(10);
+        for (int i = 0; i < 10_000; i++) {
+            // Два частых ресурса среди множества уникальных адресов с параметрами
+            String resource = switch (i % 4) {
+                case 0 -> "/index.html";
+                case 1 -> "/api";
+                default -> "/page?id=" + i;
+            };
+            stats.collect(new LogRecord.Builder()
+                .setTime(ZonedDateTime.parse("2024-08-31T10:00:00Z"))
+                .setRequest("GET " + resource + " HTTP/1.1")
+                .setStatus(200)
+                .setSize(100)
+                .build());
+        }
+
+        assertFalse(stats.isTopResourcesExact());
+        long errorBound = stats.getTopResourcesErrorBound();
+        assertTrue(errorBound <= 10_000 / 10);
+        Map<String, Long> top = stats.getTopResources(2);
+        assertEquals(2, top.size());
+        assertTrue(top.get("/index.html") >= 2500 && top.get("/index.html") <= 2500 + errorBound);
+        assertTrue(top.get("/api") >= 2500 && top.get("/api") <= 2500 + errorBound);
     }
 }
@@ -0,0 +1,186 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatisticsSnapshotTest {
+    private static final ZonedDateTime START = ZonedDateTime.parse("2024-08-31T10:00:00Z");
+    private static final String[] METHODS = {"GET", "POST", "PROPFIND", "HEAD"};
+    private static final String[] RESOURCES = {"/index.html", "/api/v1/users?id=1", "/api/v1/users?id=2",
+        "/файлы/отчет.pdf", "/emoji/😀", "/emoji/😁", "/" + "x".repeat(70_000), ""};
+
+    @TempDir
+    Path tempDir;
+
+    private final ReportFormatter formatter = new ReportFormatter("markdown", List.of(50.0, 95.0, 99.9));
+
+    @Test
+    public void testExactRoundTrip() throws Exception {
+        StatisticsCollector collector = collect(new StatisticsCollector(), 0, 500);
+
+        StatisticsCollector restored = StatisticsSnapshot.fromBytes(StatisticsSnapshot.toBytes(collector));
+
+        assertSameState(collector, restored);
+        assertTrue(restored.isPercentileExact());
+        assertEquals(RESOURCES.length, restored.getTopResources(Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testApproximateRoundTrip() throws Exception {
+        StatisticsCollector collector = collect(new StatisticsCollector(3), 0, 500);
+
+        StatisticsCollector restored = StatisticsSnapshot.fromBytes(StatisticsSnapshot.toBytes(collector));
+
+        assertSameState(collector, restored);
+        assertTrue(restored.getTopResourcesErrorBound() > 0);
+        restored.merge(collector);
+        assertEquals(1000, restored.getTotalRequests());
+    }
+
+    @Test
+    public void testEstimatedPercentilesRoundTrip() throws Exception {
+        StatisticsCollector collector = collect(new StatisticsCollector(),
+            0, StatisticsCollector.EXACT_PERCENTILE_LIMIT + 1);
+        assertFalse(collector.isPercentileExact());
+
+        assertSameState(collector, StatisticsSnapshot.fromBytes(StatisticsSnapshot.toBytes(collector)));
+    }
+
+    @Test
+    public void testEmptyRoundTrip() throws Exception {
+        StatisticsCollector restored =
+            StatisticsSnapshot.fromBytes(StatisticsSnapshot.toBytes(new StatisticsCollector()));
+
+        assertSameState(new StatisticsCollector(), restored);
+        assertNull(restored.getMinDate());
+        restored.merge(collect(new StatisticsCollector(), 0, 10));
+        assertEquals(START, restored.getMinDate());
+    }
+
+    @Test
+    public void testMergedSnapshotsMatchSingleRun() throws Exception {
+        StatisticsCollector single = collect(new StatisticsCollector(), 0, 900);
+        List<Path> files = List.of(tempDir.resolve("host1.snapshot"), tempDir.resolve("host2.snapshot"),
+            tempDir.resolve("host3.snapshot"));
+        for (int i = 0; i < files.size(); i++) {
+            StatisticsSnapshot.save(collect(new StatisticsCollector(), i * 300, 300), files.get(i));
+        }
+
+        StatisticsCollector merged = StatisticsSnapshot.merge(files);
+
+        assertEquals(formatter.formatReport(single, "logs", null, null),
+            formatter.formatReport(merged, "logs", null, null));
+        assertArrayEquals(StatisticsSnapshot.toBytes(single), StatisticsSnapshot.toBytes(merged));
+    }
+
+    @Test
+    public void testParallelMergeMatchesSingleRun() throws Exception {
+        StatisticsCollector single = collect(new StatisticsCollector(), 0, 1100);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            Path file = tempDir.resolve("shard" + i + ".snapshot");
+            StatisticsSnapshot.save(collect(new StatisticsCollector(), i * 100, 100), file);
+            files.add(file);
+        }
+
+        StatisticsCollector merged = StatisticsSnapshot.merge(files, 4);
+
+        assertArrayEquals(StatisticsSnapshot.toBytes(single), StatisticsSnapshot.toBytes(merged));
+    }
+
+    @Test
+    public void testParallelMergeReportsDamagedSnapshot() throws Exception {
+        Path good = tempDir.resolve("good.snapshot");
+        StatisticsSnapshot.save(collect(new StatisticsCollector(), 0, 10), good);
+        Path bad = Files.write(tempDir.resolve("bad.snapshot"), "not a snapshot".getBytes());
+
+        IOException error = assertThrows(IOException.class,
+            () -> StatisticsSnapshot.merge(List.of(good, bad, good), 2));
+        assertTrue(error.getMessage().contains("bad.snapshot"));
+    }
+
+    @Test
+    public void testSharedPrefixesAreStoredOnce() {
+        StatisticsCollector collector = new StatisticsCollector();
+        int rawLength = 0;
+        for (int i = 0; i < 1000; i++) {
+            String resource = "/api/v1/products/category/item-" + i;
+            rawLength += resource.length();
+            collector.collect(record(resource, "GET", 200, 100, 0));
+        }
+
+        assertTrue(StatisticsSnapshot.toBytes(collector).length < rawLength / 3);
+    }
+
+    @Test
+    public void testDamagedSnapshotIsRejected() throws Exception {
+        byte[] snapshot = StatisticsSnapshot.toBytes(collect(new StatisticsCollector(), 0, 100));
+
+        byte[] corrupted = snapshot.clone();
+        corrupted[corrupted.length / 2] ^= 1;
+        assertThrows(IOException.class, () -> StatisticsSnapshot.fromBytes(corrupted));
+        assertThrows(IOException.class, () -> StatisticsSnapshot.fromBytes(Arrays.copyOf(snapshot, 40)));
+        assertThrows(IOException.class, () -> StatisticsSnapshot.fromBytes(new byte[0]));
+
+        Path file = Files.write(tempDir.resolve("text.snapshot"), "not a snapshot".getBytes());
+        assertThrows(IOException.class, () -> StatisticsSnapshot.load(file));
+    }
+
+    @Test
+    public void testOtherVersionIsRejected() {
+        SnapshotWriter out = new SnapshotWriter();
+        out.writeInt(0x4c41534e);
+        out.writeVarLong(99);
+        collect(new StatisticsCollector(), 0, 10).writeTo(out);
+
+        IOException error = assertThrows(IOException.class, () -> StatisticsSnapshot.fromBytes(out.toSealedArray()));
+        assertTrue(error.getMessage().contains("99"));
+    }
+
+    private void assertSameState(StatisticsCollector expected, StatisticsCollector actual) {
+        assertEquals(formatter.formatReport(expected, "logs", null, null),
+            formatter.formatReport(actual, "logs", null, null));
+        assertEquals(expected.getTopResources(Integer.MAX_VALUE), actual.getTopResources(Integer.MAX_VALUE));
+        assertEquals(expected.getStatusCodes(), actual.getStatusCodes());
+        assertEquals(expected.getHttpMethods(), actual.getHttpMethods());
+        assertEquals(expected.getMinTimeMillis(), actual.getMinTimeMillis());
+        assertEquals(expected.getMaxTimeMillis(), actual.getMaxTimeMillis());
+        assertEquals(expected.isPercentileExact(), actual.isPercentileExact());
+        assertEquals(expected.getTopResourcesErrorBound(), actual.getTopResourcesErrorBound());
+        assertArrayEquals(StatisticsSnapshot.toBytes(expected), StatisticsSnapshot.toBytes(actual));
+    }
+
+    private static StatisticsCollector collect(StatisticsCollector collector, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            collector.collect(record(RESOURCES[i * 7 % RESOURCES.length], METHODS[i % METHODS.length],
+                200 + i % 5 * 100, i % 13 == 0 ? 0 : i * 31 % 100_000, i));
+        }
+        return collector;
+    }
+
+    private static LogRecord record(String resource, String method, int status, int size, int second) {
+        return new LogRecord.Builder()
+            .setIp("10.0.0.1")
+            .setUser("-")
+            .setTime(START.plusSeconds(second))
+            .setRequest(method + " " + resource + " HTTP/1.1")
+            .setStatus(status)
+            .setSize(size)
+            .setReferer("-")
+            .setAgent("curl")
+            .build();
+    }
+}
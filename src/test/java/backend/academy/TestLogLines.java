@@ -0,0 +1,37 @@
+package backend.academy;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Строки лога для тестов чтения: по номеру строки однозначно восстанавливаются ее поля.
+ */
+final class TestLogLines {
+    static final ZonedDateTime START = ZonedDateTime.parse("2024-08-31T00:00:00Z");
+    static final long START_MILLIS = START.toInstant().toEpochMilli();
+
+    private TestLogLines() {
+    }
+
+    /**
+     * Строка с временем через {@code index} секунд после {@link #START}.
+     *
+     * @param index Номер строки
+     * @return Строка лога без перевода строки
+     */
+    static String line(int index) {
+        return line(index, index);
+    }
+
+    /**
+     * Строка с временем через {@code second} секунд после {@link #START}.
+     *
+     * @param second Смещение времени в секундах
+     * @param index  Номер строки, от которого зависят адрес клиента, ресурс, код ответа и размер
+     * @return Строка лога без перевода строки
+     */
+    static String line(int second, int index) {
+        return "10.0.0." + index % 250 + " - - [" + LogParser.TIME_FORMATTER.format(START.plusSeconds(second))
+            + "] \"GET /resource/" + index % 100 + " HTTP/1.1\" " + (200 + index % 3 * 100) + " " + index
+            + " \"-\" \"curl/8.0\"";
+    }
+}
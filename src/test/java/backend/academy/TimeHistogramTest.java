@@ -0,0 +1,143 @@
+package backend.academy;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeHistogramTest {
+    private static final long START = ZonedDateTime.parse("2024-08-31T10:00:00Z").toInstant().toEpochMilli();
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+    @Test
+    public void testCountsPerBucket() {
+        TimeHistogram histogram = new TimeHistogram(Duration.ofMinutes(1));
+        histogram.add(START + 5_000, 100, 200);
+        histogram.add(START + 59_999, 50, 404);
+        histogram.add(START + 3 * MINUTE, 10, 503);
+        histogram.add(START + 3 * MINUTE + 1, 20, 101);
+
+        assertEquals(4, histogram.getBucketCount());
+        assertEquals(START, histogram.getBucketStartMillis(0));
+        assertEquals(2, histogram.getRequests(0));
+        assertEquals(150, histogram.getBytes(0));
+        assertEquals(1, histogram.getStatusClassCount(0, 2));
+        assertEquals(1, histogram.getStatusClassCount(0, 4));
+        assertEquals(0, histogram.getRequests(1));
+        assertEquals(0, histogram.getRequests(2));
+        assertEquals(2, histogram.getRequests(3));
+        assertEquals(30, histogram.getBytes(3));
+        assertEquals(1, histogram.getStatusClassCount(3, 5));
+        assertEquals(0, histogram.getStatusClassCount(3, 3));
+    }
+
+    @Test
+    public void testEarlierRecordExtendsRangeBackwards() {
+        TimeHistogram histogram = new TimeHistogram(Duration.ofMinutes(1));
+        histogram.add(START + 10 * MINUTE, 1, 200);
+        histogram.add(START, 2, 300);
+
+        assertEquals(11, histogram.getBucketCount());
+        assertEquals(START, histogram.getBucketStartMillis(0));
+        assertEquals(2, histogram.getBytes(0));
+        assertEquals(1, histogram.getBytes(10));
+        assertEquals(0, histogram.getRequests(5));
+    }
+
+    @Test
+    public void testMergeMatchesSingleHistogram() {
+        TimeHistogram single = new TimeHistogram(Duration.ofMinutes(5));
+        TimeHistogram first = new TimeHistogram(Duration.ofMinutes(5));
+        TimeHistogram second = new TimeHistogram(Duration.ofMinutes(5));
+        for (int i = 0; i < 1000; i++) {
+            long time = START + i * 37_000L;
+            int status = 200 + i % 4 * 100;
+            single.add(time, i, status);
+            (i < 600 ? second : first).add(time, i, status);
+        }
+
+        first.merge(second);
+
+        assertSameBuckets(single, first);
+    }
+
+    @Test
+    public void testLongRangeIsCoarsened() {
+        TimeHistogram histogram = new TimeHistogram(Duration.ofMinutes(1));
+        TimeHistogram other = new TimeHistogram(Duration.ofMinutes(1));
+        long range = 3L * TimeHistogram.MAX_BUCKETS;
+        for (long minute = 0; minute < range; minute += 7) {
+            (minute < range / 2 ? histogram : other).add(START + minute * MINUTE, 1, 200);
+        }
+        TimeHistogram single = new TimeHistogram(Duration.ofMinutes(1));
+        for (long minute = 0; minute < range; minute += 7) {
+            single.add(START + minute * MINUTE, 1, 200);
+        }
+
+        histogram.merge(other);
+
+        assertTrue(single.getBucketCount() <= TimeHistogram.MAX_BUCKETS);
+        assertEquals(4 * MINUTE, single.getWidthMillis());
+        assertSameBuckets(single, histogram);
+        long total = 0;
+        for (int i = 0; i < single.getBucketCount(); i++) {
+            total += single.getRequests(i);
+        }
+        assertEquals((range + 6) / 7, total);
+    }
+
+    @Test
+    public void testDifferentWidthsAreNotMerged() {
+        TimeHistogram minutes = new TimeHistogram(Duration.ofMinutes(1));
+        TimeHistogram hours = new TimeHistogram(Duration.ofHours(1));
+
+        assertThrows(IllegalArgumentException.class, () -> minutes.merge(hours));
+        assertThrows(IllegalArgumentException.class, () -> new TimeHistogram(Duration.ZERO));
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        StatisticsCollector collector = new StatisticsCollector(0, Duration.ofHours(1));
+        collector.collect(record("2024-08-31T10:15:00Z", 404));
+        collector.collect(record("2024-08-31T13:59:59Z", 200));
+
+        byte[] snapshot = StatisticsSnapshot.toBytes(collector);
+        StatisticsCollector restored = StatisticsSnapshot.fromBytes(snapshot);
+
+        assertArrayEquals(snapshot, StatisticsSnapshot.toBytes(restored));
+        assertSameBuckets(collector.getTimeHistogram(), restored.getTimeHistogram());
+        assertEquals(4, restored.getTimeHistogram().getBucketCount());
+        assertTrue(restored.isCompatible(collector));
+        assertFalse(restored.isCompatible(new StatisticsCollector()));
+    }
+
+    private static void assertSameBuckets(TimeHistogram expected, TimeHistogram actual) {
+        assertEquals(expected.getWidthMillis(), actual.getWidthMillis());
+        assertEquals(expected.getBucketCount(), actual.getBucketCount());
+        for (int i = 0; i < expected.getBucketCount(); i++) {
+            assertEquals(expected.getBucketStartMillis(i), actual.getBucketStartMillis(i));
+            assertEquals(expected.getRequests(i), actual.getRequests(i));
+            assertEquals(expected.getBytes(i), actual.getBytes(i));
+            for (int statusClass = 2; statusClass <= 5; statusClass++) {
+                assertEquals(expected.getStatusClassCount(i, statusClass), actual.getStatusClassCount(i, statusClass));
+            }
+        }
+    }
+
+    private static LogRecord record(String time, int status) {
+        return new LogRecord.Builder()
+            .setIp("10.0.0.1")
+            .setUser("-")
+            .setTime(ZonedDateTime.parse(time))
+            .setRequest("GET /index.html HTTP/1.1")
+            .setStatus(status)
+            .setSize(100)
+            .setReferer("-")
+            .setAgent("curl")
+            .build();
+    }
+}
@@ -0,0 +1,149 @@
+package backend.academy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static backend.academy.TestLogLines.START;
+import static backend.academy.TestLogLines.START_MILLIS;
+import static backend.academy.TestLogLines.line;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeIndexTest {
+    private static final int LINES = 20_000;
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private long[] offsets;
+    private long[] times;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = tempDir.resolve("access.log");
+        offsets = new long[LINES + 1];
+        times = new long[LINES];
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            // Отдельные строки сильно отстают от соседних: по индексу они не должны теряться
+            int second = i % 1000 == 999 ? i - 3000 : i;
+            times[i] = START_MILLIS + second * 1000L;
+            String logLine = line(second, i) + "\n";
+            log.append(logLine);
+            offsets[i + 1] = offsets[i] + logLine.getBytes(StandardCharsets.UTF_8).length;
+        }
+        Files.writeString(file, log);
+    }
+
+    @Test
+    public void testFindCoversAllLinesOfRange() throws Exception {
+        TimeIndex index = TimeIndex.build(file);
+        long from = START_MILLIS + 6_000_000L;
+        long to = START_MILLIS + 6_999_000L;
+
+        FileChunk range = index.find(file, from, to);
+
+        assertTrue(Files.exists(TimeIndex.sidecar(file)));
+        assertEquals(LINES, index.getLineCount());
+        assertEquals((LINES + TimeIndex.BLOCK_LINES - 1) / TimeIndex.BLOCK_LINES, index.getBlockCount());
+        assertNotNull(range);
+        assertTrue(range.end() - range.start() < Files.size(file) / 3);
+        for (int i = 0; i < LINES; i++) {
+            if (times[i] >= from && times[i] <= to) {
+                assertTrue(offsets[i] >= range.start() && offsets[i + 1] <= range.end(), "строка " + i);
+            }
+        }
+        assertNull(index.find(file, START_MILLIS + LINES * 1000L, Long.MAX_VALUE));
+        assertNull(index.find(file, Long.MIN_VALUE, START_MILLIS - 3_001_000L));
+    }
+
+    @Test
+    public void testIndexIsExtendedWhenLogGrows() throws Exception {
+        TimeIndex.build(file);
+        String appended = line(LINES + 100, LINES) + "\n" + line(LINES + 101, LINES + 1) + "\nunfinished";
+        Files.writeString(file, appended, StandardOpenOption.APPEND);
+
+        TimeIndex index = TimeIndex.open(file);
+
+        assertNotNull(index);
+        assertEquals(LINES + 2, index.getLineCount());
+        assertEquals(Files.size(file) - "unfinished".length(), index.getIndexedLength());
+        FileChunk tail = index.find(file, START_MILLIS + (LINES + 100) * 1000L, Long.MAX_VALUE);
+        assertNotNull(tail);
+        // Дописанные строки продолжают последний неполный блок
+        assertEquals(offsets[LINES / TimeIndex.BLOCK_LINES * TimeIndex.BLOCK_LINES], tail.start());
+        assertEquals(Files.size(file), tail.end());
+        assertEquals((LINES + 2 + TimeIndex.BLOCK_LINES - 1) / TimeIndex.BLOCK_LINES, index.getBlockCount());
+        // Дополненный индекс сохранен
+        assertEquals(LINES + 2, TimeIndex.open(file).getLineCount());
+    }
+
+    @Test
+    public void testRepeatedAppendsExtendLastBlock() throws Exception {
+        TimeIndex.build(file);
+        int lines = LINES;
+        for (int append = 0; append < 50; append++) {
+            StringBuilder appended = new StringBuilder();
+            for (int i = 0; i < 37; i++, lines++) {
+                appended.append(line(lines, lines)).append('\n');
+            }
+            Files.writeString(file, appended, StandardOpenOption.APPEND);
+            TimeIndex.build(file);
+        }
+
+        TimeIndex index = TimeIndex.open(file);
+
+        assertEquals(lines, index.getLineCount());
+        assertEquals((lines + TimeIndex.BLOCK_LINES - 1) / TimeIndex.BLOCK_LINES, index.getBlockCount());
+        FileChunk tail = index.find(file, START_MILLIS + (lines - 10) * 1000L, Long.MAX_VALUE);
+        assertNotNull(tail);
+        assertTrue(Files.size(file) - tail.start() < 2L * TimeIndex.BLOCK_LINES * 200);
+        assertEquals(Files.size(file), tail.end());
+    }
+
+    @Test
+    public void testIndexOfReplacedFileIsRemoved() throws Exception {
+        TimeIndex.build(file);
+        Files.writeString(file, line(5, 0).replace("10.0.0.0", "10.9.9.9") + "\n");
+
+        assertNull(TimeIndex.open(file));
+        assertFalse(Files.exists(TimeIndex.sidecar(file)));
+        assertNull(TimeIndex.open(tempDir.resolve("other.log")));
+    }
+
+    @Test
+    public void testReaderUsesIndex() throws Exception {
+        String from = START.plusSeconds(9_500).toString();
+        String to = START.plusSeconds(11_000).toString();
+        LogParser parser = new LogParser();
+        LogRecordFilter filter = new LogRecordFilter(from, to, null, null);
+        StatisticsCollector expected = new StatisticsCollector();
+        for (String logLine : Files.readAllLines(file)) {
+            LogRecord entry = parser.parse(logLine, filter);
+            if (entry != null) {
+                expected.collect(entry);
+            }
+        }
+        StatisticsCollector indexed = new StatisticsCollector();
+        StatisticsCollector all = new StatisticsCollector();
+
+        LogFileReader reader = new LogFileReader(2);
+        reader.buildTimeIndexes(tempDir.toString());
+        reader.readLogs(tempDir.toString(), parser, indexed, from, to, null, null);
+        reader.readLogs(tempDir.toString(), parser, all, null, null, null, null);
+
+        assertTrue(Files.exists(TimeIndex.sidecar(file)));
+        assertArrayEquals(StatisticsSnapshot.toBytes(expected), StatisticsSnapshot.toBytes(indexed));
+        // Файл индекса не читается как лог
+        assertEquals(LINES, all.getTotalRequests());
+    }
+}
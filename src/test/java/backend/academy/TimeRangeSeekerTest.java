@@ -0,0 +1,119 @@
+package backend.academy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static backend.academy.TestLogLines.START;
+import static backend.academy.TestLogLines.START_MILLIS;
+import static backend.academy.TestLogLines.line;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeRangeSeekerTest {
+    private static final int LINES = 30_000;
+    private static final long TOLERANCE = 60_000;
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private long[] offsets;
+    private long[] times;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("access.log");
+        offsets = new long[LINES + 1];
+        times = new long[LINES];
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            // Каждая седьмая строка записана позже соседних: время начала долгого запроса
+            int second = i % 7 == 0 ? Math.max(0, i - 20) : i;
+            times[i] = START_MILLIS + second * 1000L;
+            String logLine = line(second, i) + "\n";
+            log.append(logLine);
+            offsets[i + 1] = offsets[i] + logLine.getBytes(StandardCharsets.UTF_8).length;
+        }
+        Files.writeString(file, log);
+    }
+
+    @Test
+    public void testFindsLinesOfTimeRange() throws Exception {
+        long from = START_MILLIS + 10_000_000L;
+        long to = START_MILLIS + 10_999_000L;
+
+        FileChunk range = TimeRangeSeeker.find(file, from, to, TOLERANCE);
+
+        assertNotNull(range);
+        assertTrue(range.end() - range.start() < Files.size(file) / 5);
+        for (int i = 0; i < LINES; i++) {
+            if (times[i] >= from && times[i] <= to) {
+                assertTrue(offsets[i] >= range.start() && offsets[i + 1] <= range.end(), "строка " + i);
+            }
+        }
+        assertLineBoundary(range.start());
+        assertLineBoundary(range.end());
+    }
+
+    @Test
+    public void testOpenEndedRange() throws Exception {
+        FileChunk fromOnly = TimeRangeSeeker.find(file, START_MILLIS + 29_000_000L, Long.MAX_VALUE, TOLERANCE);
+        FileChunk toOnly = TimeRangeSeeker.find(file, Long.MIN_VALUE, START_MILLIS + 500_000L, TOLERANCE);
+
+        assertNotNull(fromOnly);
+        assertEquals(Files.size(file), fromOnly.end());
+        assertTrue(fromOnly.start() > 0);
+        assertNotNull(toOnly);
+        assertEquals(0, toOnly.start());
+        assertTrue(toOnly.end() < Files.size(file));
+    }
+
+    @Test
+    public void testSkipsFileOutsideRange() throws Exception {
+        long last = times[LINES - 1];
+
+        assertNull(TimeRangeSeeker.find(file, last + TOLERANCE + 1000, Long.MAX_VALUE, TOLERANCE));
+        assertNull(TimeRangeSeeker.find(file, Long.MIN_VALUE, START_MILLIS - TOLERANCE - 1000, TOLERANCE));
+        assertNull(TimeRangeSeeker.find(Files.createFile(tempDir.resolve("empty.log")),
+            START_MILLIS, Long.MAX_VALUE, TOLERANCE));
+    }
+
+    @Test
+    public void testSeekMatchesFullScan() throws Exception {
+        String from = START.plusSeconds(12_345).toString();
+        String to = START.plusSeconds(14_000).toString();
+        LogParser parser = new LogParser();
+        LogRecordFilter filter = new LogRecordFilter(from, to, null, null);
+        StatisticsCollector expected = new StatisticsCollector();
+        for (String logLine : Files.readAllLines(file)) {
+            LogRecord entry = parser.parse(logLine, filter);
+            if (entry != null) {
+                expected.collect(entry);
+            }
+        }
+        StatisticsCollector sequential = new StatisticsCollector();
+        StatisticsCollector chunked = new StatisticsCollector();
+
+        new LogFileReader(1).readLogs(file.toString(), parser, sequential, from, to, null, null);
+        new LogFileReader(3, 1).readLogs(file.toString(), parser, chunked, from, to, null, null);
+
+        assertTrue(expected.getTotalRequests() > 1000);
+        assertArrayEquals(StatisticsSnapshot.toBytes(expected), StatisticsSnapshot.toBytes(sequential));
+        assertArrayEquals(StatisticsSnapshot.toBytes(expected), StatisticsSnapshot.toBytes(chunked));
+    }
+
+    private void assertLineBoundary(long offset) {
+        boolean found = false;
+        for (long lineStart : offsets) {
+            found |= lineStart == offset;
+        }
+        assertTrue(found, "смещение " + offset + " не является началом строки");
+    }
+}
@@ -0,0 +1,57 @@
+package backend.academy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TopSelectorTest {
+    @Test
+    public void testMatchesFullSort() {
+        Random random = new Random(42);
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            // Небольшой диапазон счетчиков, чтобы было много равных значений
+            entries.add(Map.entry("/resource/" + i, (long) random.nextInt(50)));
+        }
+        List<Map.Entry<String, Long>> expected = entries.stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .limit(10)
+            .toList();
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Collections.shuffle(entries, random);
+            TopSelector<String> selector = new TopSelector<>(10);
+            entries.forEach(e -> selector.offer(e.getKey(), e.getValue()));
+            List<Map.Entry<String, Long>> actual = new ArrayList<>();
+            selector.drainDescending((key, count) -> actual.add(Map.entry(key, count)));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testLimitLargerThanInput() {
+        TopSelector<String> selector = new TopSelector<>(5);
+        selector.offer("b", 1);
+        selector.offer("a", 1);
+        selector.offer("c", 2);
+
+        List<String> keys = new ArrayList<>();
+        selector.drainDescending((key, count) -> keys.add(key));
+        assertEquals(List.of("c", "a", "b"), keys);
+    }
+
+    @Test
+    public void testZeroLimit() {
+        TopSelector<String> selector = new TopSelector<>(0);
+        selector.offer("a", 1);
+
+        List<String> keys = new ArrayList<>();
+        selector.drainDescending((key, count) -> keys.add(key));
+        assertTrue(keys.isEmpty());
+    }
+}
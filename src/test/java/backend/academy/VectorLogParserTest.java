@@ -0,0 +1,85 @@
+package backend.academy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static backend.academy.DelimiterSearchAssertions.assertMatchesByteByByteSearch;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VectorLogParserTest {
+    private final LogParser scanningParser = new ScanningLogParser();
+    private final LogParser vectorParser = VectorLogParser.create();
+
+    @Test
+    public void testCreatesVectorParserOnlyWithModule() {
+        // Без модуля (отдельный запуск surefire без --add-modules) используется обычный сканер
+        Class<?> expected = VectorLogParser.isSupported() ? VectorLogParser.class : ScanningLogParser.class;
+        assertEquals(expected, vectorParser.getClass());
+    }
+
+    @Test
+    public void testIndexOfMatchesByteByByteSearch() {
+        assumeTrue(VectorLogParser.isSupported());
+        assertMatchesByteByByteSearch((byte) '"',
+            (bytes, from, to) -> VectorDelimiterScanner.indexOf(bytes, from, to, (byte) '"'));
+    }
+
+    @Test
+    public void testSameResultAsScannerOnPackedLines() throws Exception {
+        List<String> lines = new ArrayList<>(
+            Files.readAllLines(Path.of("src/test/java/backend/academy/resources", "test_logs.txt")));
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            // Поля разной длины, чтобы разделители попадали в разные блоки и в их границы
+            lines.add("10.0.0." + i % 250 + " - - [17/May/2015:08:05:52 +0000] \"GET /" + "р".repeat(random.nextInt(70))
+                + " HTTP/1.1\" 200 " + i + " \"" + "r".repeat(random.nextInt(130)) + "\" \""
+                + "агент ".repeat(random.nextInt(20)) + "\"");
+        }
+        lines.add("10.0.0.1 - - [17/May/2015:08:05:52 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"без кавычки");
+        lines.add("10.0.0.1 - - [17/May/2015:08:05:52 +0000 \"GET / HTTP/1.1\" 200 1 \"-\" \"x\"");
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        List<Integer> starts = new ArrayList<>();
+        for (String line : lines) {
+            starts.add(packed.size());
+            packed.writeBytes((line + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        starts.add(packed.size());
+        byte[] buffer = packed.toByteArray();
+        LazyLogRecord expectedReuse = new LazyLogRecord();
+        LazyLogRecord actualReuse = new LazyLogRecord();
+
+        for (int i = 0; i < lines.size(); i++) {
+            int start = starts.get(i);
+            int end = starts.get(i + 1) - 1;
+            LogRecord expected = parseOrNull(scanningParser, buffer, start, end, expectedReuse);
+            LogRecord actual = parseOrNull(vectorParser, buffer, start, end, actualReuse);
+            if (expected == null) {
+                assertNull(actual, lines.get(i));
+                continue;
+            }
+            assertEquals(expected.getIp(), actual.getIp());
+            assertEquals(expected.getTime(), actual.getTime());
+            assertEquals(expected.getRequest(), actual.getRequest());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getSize(), actual.getSize());
+            assertEquals(expected.getReferer(), actual.getReferer());
+            assertEquals(expected.getAgent(), actual.getAgent());
+        }
+    }
+
+    // Разобранная запись или null, если строка не соответствует формату
+    private static LogRecord parseOrNull(LogParser parser, byte[] buffer, int start, int end, LazyLogRecord reuse) {
+        try {
+            return parser.parse(buffer, start, end, LogRecordFilter.ACCEPT_ALL, reuse);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}